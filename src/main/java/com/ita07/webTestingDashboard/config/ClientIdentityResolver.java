@@ -0,0 +1,42 @@
+package com.ita07.webTestingDashboard.config;
+
+import com.ita07.webTestingDashboard.model.RunPriority;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * Identifies the submitter of a run for per-client queue limits. Pipelines sharing one login can tell
+ * themselves apart with an X-Client-Id header; otherwise the authenticated user is used.
+ */
+@Component
+public class ClientIdentityResolver {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final int MAX_LENGTH = 100;
+
+    public String resolve(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        if (clientId == null || clientId.isBlank()) {
+            clientId = request.getUserPrincipal() != null ? request.getUserPrincipal().getName() : request.getRemoteAddr();
+        }
+        clientId = clientId.trim();
+        return clientId.length() > MAX_LENGTH ? clientId.substring(0, MAX_LENGTH) : clientId;
+    }
+
+    /**
+     * Priority a submission runs at. The interactive class is reserved for people working in the dashboard;
+     * API clients declaring it are capped at ci, lower priorities are taken as declared.
+     */
+    public RunPriority resolvePriority(HttpServletRequest request, RunPriority requested) {
+        if (requested == RunPriority.INTERACTIVE && !isDashboardSession(request)) {
+            return RunPriority.CI;
+        }
+        return requested;
+    }
+
+    // API clients authenticate every request with HTTP Basic, the dashboard uses the session of its login form
+    private boolean isDashboardSession(HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.AUTHORIZATION) == null && request.getSession(false) != null;
+    }
+}
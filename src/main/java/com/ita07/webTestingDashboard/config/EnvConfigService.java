@@ -34,9 +34,20 @@ public class EnvConfigService {
 
     public synchronized void setProperty(String key, String value) {
         props.setProperty(key, value);
+        store();
+        logger.info("Updated {} to {} in env.properties", key, value);
+    }
+
+    public synchronized void removeProperty(String key) {
+        if (props.remove(key) != null) {
+            store();
+            logger.info("Removed {} from env.properties", key);
+        }
+    }
+
+    private void store() {
         try (OutputStream output = new FileOutputStream(FILE_PATH)) {
             props.store(output, null);
-            logger.info("Updated {} to {} in env.properties", key, value);
         } catch (IOException e) {
             logger.error("Failed to write to env.properties: {}", e.getMessage());
         }
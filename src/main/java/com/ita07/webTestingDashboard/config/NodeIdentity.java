@@ -0,0 +1,27 @@
+package com.ita07.webTestingDashboard.config;
+
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Identifies this application instance when it claims jobs from the shared run queue.
+ */
+@Getter
+@Component
+public class NodeIdentity {
+
+    private final String nodeId;
+
+    public NodeIdentity() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown-host";
+        }
+        this.nodeId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
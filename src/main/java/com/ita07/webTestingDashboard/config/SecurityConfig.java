@@ -1,5 +1,6 @@
 package com.ita07.webTestingDashboard.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,6 +16,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.config.Customizer;
 
 @Configuration
+@ConditionalOnWebApplication // Worker nodes run without the web layer
 public class SecurityConfig {
     @Value("${dashboard.security.username}")
     private String username;
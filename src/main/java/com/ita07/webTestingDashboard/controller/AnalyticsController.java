@@ -4,9 +4,11 @@ package com.ita07.webTestingDashboard.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ita07.webTestingDashboard.repository.TestRunRepository;
+import com.ita07.webTestingDashboard.service.ActionResultService;
 import com.ita07.webTestingDashboard.serviceImpl.SharedDataServiceImpl;
 import com.ita07.webTestingDashboard.utils.FormatUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +25,9 @@ public class AnalyticsController {
     @Autowired
     private FormatUtils formatUtils;
 
+    @Autowired
+    private ActionResultService actionResultService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @GetMapping("/analytics")
@@ -38,6 +43,13 @@ public class AnalyticsController {
         model.addAttribute("successRate", formatUtils.formatPercentage(successRate));
         model.addAttribute("avgDuration", formatUtils.formatDuration(avgDuration));
 
+        // Per-action breakdowns are SQL aggregates over the action_result table
+        model.addAttribute("actionTypeStats", actionResultService.getActionTypeStats());
+        model.addAttribute("failingLocators", actionResultService.getMostFailingLocators(10));
+        model.addAttribute("commonFailures", actionResultService.getMostCommonFailures(10));
+        // Suites whose browsers use the most memory, from the peak RSS recorded on every run
+        model.addAttribute("suiteMemoryStats", testRunRepository.findPeakMemoryBySuite(PageRequest.of(0, 10)));
+
         // Set layout attributes
         model.addAttribute("activeTab", "analytics");
         model.addAttribute("pageTitle", "Analytics - Web Testing");
@@ -45,8 +45,10 @@ public class DashboardController {
         model.addAttribute("failedTests", failedTestRuns);
         model.addAttribute("passedTests", successfulTestRuns);
         model.addAttribute("cancelledTests", cancelledTestRuns);
-        model.addAttribute("runningTests", status.get("activeTestRuns"));
+        model.addAttribute("runningTests", status.get("runningTestRuns"));
+        model.addAttribute("workerNodes", status.get("workers"));
         model.addAttribute("queuedTests", status.get("queuedTestRuns"));
+        model.addAttribute("browserPools", status.get("browserPools"));
 
         model.addAttribute("activeTab", "dashboard");
         model.addAttribute("pageTitle", "Dashboard - Web Testing");
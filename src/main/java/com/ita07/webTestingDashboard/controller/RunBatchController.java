@@ -0,0 +1,113 @@
+package com.ita07.webTestingDashboard.controller;
+
+import com.ita07.webTestingDashboard.config.ClientIdentityResolver;
+import com.ita07.webTestingDashboard.model.BulkRunRequest;
+import com.ita07.webTestingDashboard.model.DataDrivenRunRequest;
+import com.ita07.webTestingDashboard.model.MatrixRunRequest;
+import com.ita07.webTestingDashboard.model.RunBatch;
+import com.ita07.webTestingDashboard.service.RunBatchService;
+import com.ita07.webTestingDashboard.service.TestService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+@RestController
+@RequestMapping("/api/batches")
+public class RunBatchController {
+
+    private final RunBatchService runBatchService;
+    private final TestService testService;
+    private final ClientIdentityResolver clientIdentityResolver;
+
+    @Autowired
+    public RunBatchController(RunBatchService runBatchService, TestService testService,
+                              ClientIdentityResolver clientIdentityResolver) {
+        this.runBatchService = runBatchService;
+        this.testService = testService;
+        this.clientIdentityResolver = clientIdentityResolver;
+    }
+
+    /**
+     * Runs a suite once per test data set or inline row; the child runs are spread over the executors of all nodes.
+     */
+    @PostMapping("/data")
+    public Map<String, Object> runDataDriven(@RequestBody DataDrivenRunRequest request, HttpServletRequest httpRequest) {
+        request.setSubmittedBy(clientIdentityResolver.resolve(httpRequest));
+        request.setPriority(clientIdentityResolver.resolvePriority(httpRequest, request.getPriority()));
+        RunBatch batch = runBatchService.submitDataDriven(request);
+        // Start children right away when slots are free instead of waiting for the next poll
+        testService.dispatchQueuedRuns();
+        Map<String, Object> response = new HashMap<>();
+        response.put("batchId", batch.getId());
+        response.put("totalRuns", batch.getTotalRuns());
+        return response;
+    }
+
+    /**
+     * Runs a suite on several browsers (and optionally window sizes) at once. Returns immediately with the batch id;
+     * the report of a finished matrix compares the timing of its legs.
+     */
+    @PostMapping("/matrix")
+    public Map<String, Object> runMatrix(@RequestBody MatrixRunRequest request, HttpServletRequest httpRequest) {
+        request.setSubmittedBy(clientIdentityResolver.resolve(httpRequest));
+        request.setPriority(clientIdentityResolver.resolvePriority(httpRequest, request.getPriority()));
+        RunBatch batch = runBatchService.submitMatrix(request);
+        testService.dispatchQueuedRuns();
+        Map<String, Object> response = new HashMap<>();
+        response.put("batchId", batch.getId());
+        response.put("totalRuns", batch.getTotalRuns());
+        return response;
+    }
+
+    /**
+     * Submits many runs in one call: inline test requests and suite ids, with shared defaults for browser, window
+     * size, deadlines and priority. All runs are validated and queued together or none is; the run ids are
+     * returned in submission order (requests first, then suites).
+     */
+    @PostMapping("/bulk")
+    public Map<String, Object> runBulk(@RequestBody BulkRunRequest request, HttpServletRequest httpRequest) {
+        request.setSubmittedBy(clientIdentityResolver.resolve(httpRequest));
+        request.setPriority(clientIdentityResolver.resolvePriority(httpRequest, request.getPriority()));
+        if (request.getRequests() != null) {
+            // Inline runs may declare their own priority, which is capped the same way
+            request.getRequests().stream().filter(Objects::nonNull)
+                    .forEach(child -> child.setPriority(clientIdentityResolver.resolvePriority(httpRequest, child.getPriority())));
+        }
+        RunBatch batch = runBatchService.submitBulk(request);
+        testService.dispatchQueuedRuns();
+        Map<String, Object> response = new HashMap<>();
+        response.put("batchId", batch.getId());
+        response.put("totalRuns", batch.getTotalRuns());
+        response.put("testRunIds", runBatchService.getRunIds(batch.getId()));
+        return response;
+    }
+
+    /**
+     * Cancels all runs of the batch that are still queued or running.
+     */
+    @PostMapping("/{batchId}/cancel")
+    public Map<String, Object> cancelBatch(@PathVariable Long batchId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("batchId", batchId);
+        response.put("cancelled", runBatchService.cancelBatch(batchId));
+        return response;
+    }
+
+    /**
+     * Aggregated pass/fail counts and duration percentiles of the batch, with one entry per child run.
+     * Each child's results are available under /api/tests/results/{testRunId}.
+     */
+    @GetMapping("/{batchId}")
+    public Map<String, Object> getBatch(@PathVariable Long batchId) {
+        return runBatchService.getBatchReport(batchId).orElseGet(() -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("batchId", batchId);
+            response.put("status", "not_found");
+            return response;
+        });
+    }
+}
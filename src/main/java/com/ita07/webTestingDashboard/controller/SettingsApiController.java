@@ -2,7 +2,10 @@ package com.ita07.webTestingDashboard.controller;
 
 import com.ita07.webTestingDashboard.config.EnvConfigService;
 import com.ita07.webTestingDashboard.exception.ValidationException;
+import com.ita07.webTestingDashboard.model.ConcurrencyAdjustment;
 import com.ita07.webTestingDashboard.model.SettingsDTO;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.AdaptiveConcurrencyService;
 import com.ita07.webTestingDashboard.service.SettingsService;
 import com.ita07.webTestingDashboard.serviceImpl.TestServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +16,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/settings")
 public class SettingsApiController {
@@ -26,26 +32,90 @@ public class SettingsApiController {
     @Autowired
     private SettingsService settingsService;
 
+    @Autowired
+    private AdaptiveConcurrencyService adaptiveConcurrencyService;
+
     @GetMapping
     public ResponseEntity<SettingsDTO> getSettings() {
         SettingsDTO settings = settingsService.getCurrentSettings();
         return ResponseEntity.ok(settings);
     }
 
+    // Changes the adaptive controller made to the pool sizes, newest first
+    @GetMapping("/concurrency/history")
+    public List<ConcurrencyAdjustment> getConcurrencyHistory(@RequestParam(defaultValue = "100") int limit) {
+        return adaptiveConcurrencyService.getHistory(Math.max(1, Math.min(limit, 1000)));
+    }
+
     @PostMapping("/update")
     public ResponseEntity<String> updateSettings(
-            @RequestParam("concurrency") int concurrency) {
+            @RequestParam("concurrency") int concurrency,
+            @RequestParam Map<String, String> params) {
 
         // Validate concurrency value
         if (concurrency <= 0) {
             throw new ValidationException("Concurrency must be a positive number (minimum value is 1).");
         }
+        // Per-browser values are optional; an empty field falls back to the shared concurrency or no queue limit
+        for (String browser : SeleniumUtils.SUPPORTED_BROWSERS) {
+            parseOptional(params, "concurrency." + browser, 1);
+            parseOptional(params, "maxQueued." + browser, 1);
+        }
+        Integer autoMin = parseOptional(params, "autoConcurrencyMin", 1);
+        Integer autoMax = parseOptional(params, "autoConcurrencyMax", 1);
+        if (autoMin != null && autoMax != null && autoMin > autoMax) {
+            throw new ValidationException("The minimum automatic concurrency cannot be above the maximum.");
+        }
 
         // Save to env.properties
         envConfigService.setProperty("parallel.tests.max", String.valueOf(concurrency));
-        // Apply new concurrency value live
-        testServiceImpl.setMaxParallelTests(concurrency);
+        for (String browser : SeleniumUtils.SUPPORTED_BROWSERS) {
+            saveOptional(params, "concurrency." + browser, "parallel.tests.max." + browser);
+            saveOptional(params, "maxQueued." + browser, "run.admission.max-queued." + browser);
+        }
+        if (params.containsKey("autoConcurrency")) {
+            envConfigService.setProperty("parallel.tests.auto", String.valueOf(Boolean.parseBoolean(params.get("autoConcurrency"))));
+        }
+        saveOptional(params, "autoConcurrencyMin", "parallel.tests.auto.min");
+        saveOptional(params, "autoConcurrencyMax", "parallel.tests.auto.max");
+
+        // Apply the new pool sizes live; queue limits are read on every submission
+        if (adaptiveConcurrencyService.isEnabled()) {
+            // The controller keeps its tuned sizes and only moves them into the new bounds
+            adaptiveConcurrencyService.clampToBounds();
+        } else {
+            testServiceImpl.applyConfiguredParallelTests();
+        }
 
         return ResponseEntity.ok("Settings updated successfully.");
     }
+
+    private Integer parseOptional(Map<String, String> params, String name, int min) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < min) {
+                throw new ValidationException(name + " must be at least " + min + ".");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new ValidationException(name + " must be a number.");
+        }
+    }
+
+    // Parameters that were not sent keep their current value, so older clients only change the shared concurrency
+    private void saveOptional(Map<String, String> params, String name, String property) {
+        if (!params.containsKey(name)) {
+            return;
+        }
+        Integer value = parseOptional(params, name, 1);
+        if (value == null) {
+            envConfigService.removeProperty(property);
+        } else {
+            envConfigService.setProperty(property, String.valueOf(value));
+        }
+    }
 }
@@ -1,9 +1,5 @@
 package com.ita07.webTestingDashboard.controller;
 
-import com.ita07.webTestingDashboard.config.EnvConfigService;
-import com.ita07.webTestingDashboard.serviceImpl.TestServiceImpl;
-import jakarta.annotation.PostConstruct;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,19 +7,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 @Controller
 public class SettingsViewController {
 
-    @Autowired
-    private EnvConfigService envConfigService;
-
-    @Autowired
-    private TestServiceImpl testServiceImpl;
-
-    @PostConstruct
-    public void init() {
-        String value = envConfigService.getProperty("parallel.tests.max", "4");
-        int max = Integer.parseInt(value);
-        testServiceImpl.setMaxParallelTests(max); // Your existing setter that initializes the executor
-    }
-
     @GetMapping("/settings")
     public String getSettings(Model model) {
         // Set layout attributes
@@ -1,45 +1,88 @@
 package com.ita07.webTestingDashboard.controller;
 
+import com.ita07.webTestingDashboard.config.ClientIdentityResolver;
 import com.ita07.webTestingDashboard.model.ActionResult;
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunEta;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
 import com.ita07.webTestingDashboard.model.TestRequest;
 import com.ita07.webTestingDashboard.model.TestRun;
 import com.ita07.webTestingDashboard.repository.TestRunRepository;
+import com.ita07.webTestingDashboard.selenium.pool.SessionReaper;
+import com.ita07.webTestingDashboard.selenium.pool.WebDriverPool;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.AdmissionService;
+import com.ita07.webTestingDashboard.service.BrowserMemoryService;
+import com.ita07.webTestingDashboard.service.RunDurationEstimator;
+import com.ita07.webTestingDashboard.service.RunEventService;
+import com.ita07.webTestingDashboard.service.RunQueueService;
 import com.ita07.webTestingDashboard.service.TestService;
+import com.ita07.webTestingDashboard.service.WorkerNodeService;
 import com.ita07.webTestingDashboard.serviceImpl.TestServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadPoolExecutor;
 
 @RestController
 @RequestMapping("/api/tests")
 public class TestController {
 
     private static final Logger logger = LoggerFactory.getLogger(TestController.class);
+    private static final int QUEUE_STATUS_LIMIT = 50;
     private final TestService testService;
     private final TestRunRepository testRunRepository;
+    private final WebDriverPool webDriverPool;
+    private final RunQueueService runQueueService;
+    private final WorkerNodeService workerNodeService;
+    private final RunEventService runEventService;
+    private final ClientIdentityResolver clientIdentityResolver;
+    private final RunDurationEstimator runDurationEstimator;
+    private final AdmissionService admissionService;
+    private final BrowserMemoryService browserMemoryService;
+    private final SessionReaper sessionReaper;
 
     @Autowired
-    public TestController(TestService testService, TestRunRepository testRunRepository) {
+    public TestController(TestService testService, TestRunRepository testRunRepository, WebDriverPool webDriverPool,
+                          RunQueueService runQueueService, WorkerNodeService workerNodeService,
+                          RunEventService runEventService, ClientIdentityResolver clientIdentityResolver,
+                          RunDurationEstimator runDurationEstimator, AdmissionService admissionService,
+                          BrowserMemoryService browserMemoryService, SessionReaper sessionReaper) {
         this.testService = testService;
         this.testRunRepository = testRunRepository;
+        this.webDriverPool = webDriverPool;
+        this.runQueueService = runQueueService;
+        this.workerNodeService = workerNodeService;
+        this.runEventService = runEventService;
+        this.clientIdentityResolver = clientIdentityResolver;
+        this.runDurationEstimator = runDurationEstimator;
+        this.admissionService = admissionService;
+        this.browserMemoryService = browserMemoryService;
+        this.sessionReaper = sessionReaper;
     }
 
     @PostMapping("/run")
-    public Map<String, Object> runTests(@RequestBody TestRequest request) {
-        int testRunId = testService.submitTestAsync(request);
+    public Map<String, Object> runTests(@RequestBody TestRequest request, HttpServletRequest httpRequest) {
+        request.setSubmittedBy(clientIdentityResolver.resolve(httpRequest));
+        request.setPriority(clientIdentityResolver.resolvePriority(httpRequest, request.getPriority()));
+        long testRunId = testService.submitTestAsync(request);
         Map<String, Object> response = new HashMap<>();
         response.put("testRunId", testRunId);
         return response;
     }
 
     @GetMapping("/results/{testRunId}")
-    public Map<String, Object> getTestResults(@PathVariable int testRunId) {
+    public Map<String, Object> getTestResults(@PathVariable long testRunId) {
         Map<String, Object> response = new HashMap<>();
         List<ActionResult> results = TestServiceImpl.getResultsForRun(testRunId); // From in-memory map
         boolean isTaskActive = TestServiceImpl.isTestFutureActive(testRunId); // Use new static method
@@ -47,34 +90,55 @@ public class TestController {
         String determinedStatus;
         if (isTaskActive) {
             determinedStatus = "running";
-        } else { // Future is no longer active
-            if (results != null) {
-                // Results are present in the map. Test finished and populated them (or error populated empty list).
-                determinedStatus = "finished";
-            } else {
-                // Future is done, but no results in the map.
-                // This means they were either never populated or already served and cleared.
+        } else if (results != null) {
+            // Results are present in the map. Test finished and populated them (or error populated empty list).
+            determinedStatus = "finished";
+        } else {
+            // Not executing on this node: the run queue knows whether it is waiting, running or already done
+            RunQueueJob job = runQueueService.findJob(testRunId).orElse(null);
+            if (job == null) {
                 determinedStatus = "not_found";
+            } else if ("queued".equals(job.getStatus())) {
+                determinedStatus = "queued";
+                response.put("queuePosition", runQueueService.getQueuePosition(testRunId));
+            } else if ("finished".equals(job.getStatus())) {
+                results = testService.findPersistedResults(job).orElse(null);
+                determinedStatus = results != null ? "finished" : "not_found";
+            } else if ("cancelled".equals(job.getStatus())) {
+                results = testService.findPersistedResults(job).orElse(null); // The actions completed before the cancellation, if it was running
+                determinedStatus = "cancelled";
+            } else {
+                determinedStatus = job.getStatus(); // running elsewhere, failed or cancelled
             }
         }
 
         response.put("testRunId", testRunId);
-        // Only include results in the response if the status is 'finished'.
-        if ("finished".equals(determinedStatus)) {
+        // Only include results in the response if the status is 'finished', or the partial results of a cancelled run.
+        if ("finished".equals(determinedStatus) || "cancelled".equals(determinedStatus)) {
             response.put("results", results);
         } else {
             response.put("results", null); // Ensure results are null if not 'finished' or if they are meant to be absent for 'running'
         }
         response.put("status", determinedStatus);
 
-        // Clear in-memory results if the task is done and results were successfully retrieved (are not null).
-        if (!isTaskActive && results != null) { // This implies determinedStatus was "finished"
+        // Clear in-memory results once served; later polls are answered from the database.
+        if (!isTaskActive && TestServiceImpl.getResultsForRun(testRunId) != null) {
             TestServiceImpl.clearPersistedTestResults(testRunId);
             logger.info("Cleared in-memory results for testRunId {} as task is not active and results were served.", testRunId);
         }
         return response;
     }
 
+    /**
+     * Streams the progress of a test run as Server-Sent Events: a "snapshot" event with the same content as
+     * /results/{testRunId}, "status" events with queue positions and transitions, and a "result" event per
+     * completed action. The stream ends with a final snapshot once the run is finished, failed or cancelled.
+     */
+    @GetMapping(value = "/stream/{testRunId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTestRun(@PathVariable long testRunId) {
+        return runEventService.subscribe(testRunId, () -> getTestResults(testRunId));
+    }
+
     @GetMapping("/history")
     public List<TestRun> getTestHistory() {
         return testRunRepository.findAll();
@@ -83,10 +147,56 @@ public class TestController {
     @GetMapping("/status")
     public Map<String, Object> getTestExecutionStatus() {
         Map<String, Object> status = new HashMap<>();
-        ThreadPoolExecutor executor = TestServiceImpl.getExecutorService();
-        status.put("maxParallelTests", executor.getMaximumPoolSize());
-        status.put("activeTestRuns", executor.getActiveCount());
-        status.put("queuedTestRuns", TestServiceImpl.getQueuedCount());
+        status.put("maxParallelTests", SeleniumUtils.SUPPORTED_BROWSERS.stream().mapToInt(TestServiceImpl::getMaxParallelTests).sum());
+        status.put("activeTestRuns", TestServiceImpl.getActiveRunCount());
+        status.put("queuedTestRuns", runQueueService.countQueued());
+        // Every browser has its own executor pool and queue limit on this node, queued and running counts are cluster-wide
+        Map<String, Long> queuedPerBrowser = runQueueService.countQueuedPerBrowser();
+        Map<String, Long> runningPerBrowser = runQueueService.countRunningPerBrowser();
+        List<Map<String, Object>> browserPools = new ArrayList<>();
+        for (String browser : SeleniumUtils.SUPPORTED_BROWSERS) {
+            Map<String, Object> pool = new HashMap<>();
+            pool.put("browser", browser);
+            pool.put("maxParallelTests", TestServiceImpl.getMaxParallelTests(browser));
+            pool.put("activeTestRuns", TestServiceImpl.getActiveRunCount(browser));
+            pool.put("maxQueuedTestRuns", admissionService.getMaxQueued(browser));
+            pool.put("queuedTestRuns", queuedPerBrowser.getOrDefault(browser, 0L));
+            pool.put("runningTestRuns", runningPerBrowser.getOrDefault(browser, 0L));
+            pool.put("estimatedSessionMb", browserMemoryService.estimateSessionBytes(browser) / (1024 * 1024));
+            browserPools.add(pool);
+        }
+        status.put("browserPools", browserPools);
+        status.put("memoryBudgetMb", browserMemoryService.getBudgetBytes() / (1024 * 1024));
+        status.put("projectedMemoryMb", browserMemoryService.getProjectedBytes() / (1024 * 1024));
+        status.put("idleBrowserSessions", webDriverPool.getIdleCounts());
+        // What the session reaper removed: leftover profile directories and browser or driver processes
+        status.put("reaper", sessionReaper.getStats());
+        status.put("coalescedSubmissions", runQueueService.getCoalescedCount());
+        // Cluster-wide view: runs executing on any node and the nodes currently heart-beating
+        status.put("runningTestRuns", runQueueService.countRunning());
+        status.put("workers", workerNodeService.getLiveNodes());
+        // Expected start order of the queued runs under the active scheduler
+        status.put("scheduler", runQueueService.getSchedulerName());
+        List<Map<String, Object>> queue = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        List<QueuedRun> order = runQueueService.getQueueOrder(QUEUE_STATUS_LIMIT);
+        Map<Long, RunEta> etas = runDurationEstimator.estimateEtas(order);
+        for (int i = 0; i < order.size(); i++) {
+            QueuedRun run = order.get(i);
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("testRunId", run.id());
+            entry.put("queuePosition", i + 1);
+            entry.put("priority", run.priority());
+            entry.put("submittedBy", run.submittedBy());
+            entry.put("browser", run.browser());
+            entry.put("waitingSeconds", run.createdAt() != null ? Duration.between(run.createdAt(), now).toSeconds() : 0);
+            RunEta eta = etas.get(run.id());
+            entry.put("estimatedSeconds", eta.estimatedMillis() / 1000);
+            entry.put("startsInSeconds", eta.startsInMillis() / 1000);
+            entry.put("finishesInSeconds", eta.finishesInMillis() / 1000);
+            queue.add(entry);
+        }
+        status.put("queue", queue);
         return status;
     }
 
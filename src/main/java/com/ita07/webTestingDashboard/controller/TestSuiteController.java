@@ -1,30 +1,45 @@
 package com.ita07.webTestingDashboard.controller;
 
+import com.ita07.webTestingDashboard.config.ClientIdentityResolver;
 import com.ita07.webTestingDashboard.model.TestSuite;
 import com.ita07.webTestingDashboard.service.TestSuiteService;
-import com.ita07.webTestingDashboard.model.ActionResult;
+import com.ita07.webTestingDashboard.model.RunHandle;
 import com.ita07.webTestingDashboard.model.TestRequest;
 import com.ita07.webTestingDashboard.service.TestService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.ita07.webTestingDashboard.selenium.plan.ExecutionPlan;
+import com.ita07.webTestingDashboard.selenium.plan.ExecutionPlanCompiler;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.util.ArrayList;
+import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/suites")
 public class TestSuiteController {
     private final TestSuiteService testSuiteService;
     private final TestService testService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutionPlanCompiler executionPlanCompiler;
+    private final ClientIdentityResolver clientIdentityResolver;
+
+    // How long a synchronous suite run keeps the response open before answering 202 with the results location
+    @Value("${run.suite.response-timeout-seconds:3600}")
+    private long responseTimeoutSeconds;
 
     @Autowired
-    public TestSuiteController(TestSuiteService testSuiteService, TestService testService) {
+    public TestSuiteController(TestSuiteService testSuiteService, TestService testService,
+                               ExecutionPlanCompiler executionPlanCompiler, ClientIdentityResolver clientIdentityResolver) {
         this.testSuiteService = testSuiteService;
         this.testService = testService;
+        this.executionPlanCompiler = executionPlanCompiler;
+        this.clientIdentityResolver = clientIdentityResolver;
     }
 
     @PostMapping
@@ -40,6 +55,7 @@ public class TestSuiteController {
     @DeleteMapping("/{id}")
     public void deleteTestSuite(@PathVariable Long id) {
         testSuiteService.deleteTestSuite(id);
+        executionPlanCompiler.evict(id);
     }
 
     @GetMapping("/{id}")
@@ -52,19 +68,54 @@ public class TestSuiteController {
         return testSuiteService.getAllTestSuites();
     }
 
+    /**
+     * Queues the suite run like any other and answers once it ended, on whichever node executed it, without
+     * holding a request thread meanwhile. With async=true 202 Accepted is returned right away, as it is when
+     * the run outlasts run.suite.response-timeout-seconds; the Location header then points at the run's results.
+     */
     @PostMapping("/{id}/run")
-    public List<ActionResult> runTestSuite(@PathVariable Long id, @RequestParam(value = "browser", required = false) String browserOverride) throws Exception {
+    public DeferredResult<ResponseEntity<Object>> runTestSuite(@PathVariable Long id,
+                                                               @RequestParam(value = "browser", required = false) String browserOverride,
+                                                               @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                                               HttpServletRequest httpRequest) {
         TestSuite suite = testSuiteService.getTestSuite(id);
-        Map<String, Object> actionsMap = objectMapper.readValue(suite.getActionsJson(), new TypeReference<>() {});
-        String browser = browserOverride != null ? browserOverride : (String) actionsMap.getOrDefault("browser", "chrome");
-        Object actionsObj = actionsMap.get("actions");
-        if (actionsObj == null) {
-            throw new RuntimeException("actionsJson does not contain an 'actions' array");
-        }
-        List<Map<String, Object>> safeActions = objectMapper.convertValue( actionsObj, new TypeReference<>() {});
+        // actionsJson is only parsed and validated again after the suite was updated
+        ExecutionPlan plan = executionPlanCompiler.compileSuite(suite);
         TestRequest request = new TestRequest();
-        request.setBrowser(browser);
-        request.setActions(safeActions);
-        return testService.executeActions(request);
+        request.setBrowser(browserOverride != null ? browserOverride : plan.getDefaultBrowser());
+        request.setActions(plan.getActions());
+        request.setSuiteId(suite.getId());
+        request.setSuiteVersion(ExecutionPlanCompiler.versionOf(suite));
+        request.setRunDeadlineSeconds(suite.getRunDeadlineSeconds());
+        request.setActionDeadlineSeconds(suite.getActionDeadlineSeconds());
+        request.setSubmittedBy(clientIdentityResolver.resolve(httpRequest));
+        if (async) {
+            DeferredResult<ResponseEntity<Object>> response = new DeferredResult<>();
+            response.setResult(accepted(testService.submitTestAsync(request)));
+            return response;
+        }
+        RunHandle handle = testService.startActions(request);
+        DeferredResult<ResponseEntity<Object>> response = new DeferredResult<>(responseTimeoutSeconds * 1000L,
+                () -> accepted(handle.getTestRunId()));
+        // After a timeout the run goes on, only the wait for it ends
+        response.onCompletion(() -> handle.getCompletion().cancel(false));
+        handle.getCompletion().whenComplete((results, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                response.setErrorResult(new RuntimeException("Test run " + handle.getTestRunId() + " execution failed: " + cause.getMessage(), cause));
+            } else {
+                response.setResult(ResponseEntity.ok(results));
+            }
+        });
+        return response;
+    }
+
+    private ResponseEntity<Object> accepted(long testRunId) {
+        String location = "/api/tests/results/" + testRunId;
+        Map<String, Object> body = new HashMap<>();
+        body.put("testRunId", testRunId);
+        body.put("resultsUrl", location);
+        body.put("streamUrl", "/api/tests/stream/" + testRunId);
+        return ResponseEntity.accepted().location(URI.create(location)).body(body);
     }
 }
@@ -0,0 +1,16 @@
+package com.ita07.webTestingDashboard.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a run is not admitted to the run queue; answered with 429 and a Retry-After header.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
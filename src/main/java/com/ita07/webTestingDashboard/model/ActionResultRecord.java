@@ -0,0 +1,45 @@
+package com.ita07.webTestingDashboard.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One executed action of a test run, stored as a row so analytics can aggregate in SQL.
+ * TestRun.resultsJson stays the source for reports; this table is a queryable copy of it.
+ */
+@Data
+@Entity
+@Table(name = "action_result", indexes = {
+        @Index(name = "uk_action_result_run_ordinal", columnList = "test_run_id, ordinal", unique = true),
+        @Index(name = "idx_action_result_type", columnList = "actionType, durationMillis"),
+        @Index(name = "idx_action_result_status_locator", columnList = "status, locator"),
+        @Index(name = "idx_action_result_signature", columnList = "status, messageSignature")
+})
+public class ActionResultRecord {
+
+    // A sequence (unlike IDENTITY) lets Hibernate batch the inserts of a run's results
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "action_result_seq")
+    @SequenceGenerator(name = "action_result_seq", sequenceName = "action_result_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "test_run_id", nullable = false)
+    private TestRun testRun;
+
+    private int ordinal; // Position of the action in the run, starting at 0
+
+    private String actionType;
+    private String status; // success, failure or skipped
+    private long durationMillis;
+
+    @Column(length = 500)
+    private String locator; // "type:value" of the locator (or drag source) the action used
+
+    @Column(length = 255)
+    private String messageSignature; // Message with numbers and whitespace normalized, for grouping failures
+
+    private LocalDateTime executedAt;
+}
@@ -0,0 +1,19 @@
+package com.ita07.webTestingDashboard.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkRunRequest {
+    private List<TestRequest> requests; // Inline runs, each with its own actions
+    private List<Long> suiteIds; // Suites to run, a suite listed twice runs twice
+    // Defaults for every run that does not set its own
+    private String browser; // Falls back to the suite's browser, then chrome
+    private String windowSize;
+    private boolean stopOnFailure = false; // Applies to suite runs; inline runs set it themselves
+    private Integer runDeadlineSeconds;
+    private Integer actionDeadlineSeconds;
+    private RunPriority priority = RunPriority.CI;
+    private String submittedBy; // Set by the server from the client identity
+}
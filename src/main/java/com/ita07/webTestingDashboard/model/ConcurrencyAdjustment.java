@@ -0,0 +1,36 @@
+package com.ita07.webTestingDashboard.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change of a browser pool's concurrency made by the adaptive concurrency controller, with the
+ * load it measured, so it can be seen afterwards why a node ran more or fewer runs at once.
+ */
+@Entity
+@Data
+@Table(name = "concurrency_adjustment", indexes = {
+        @Index(name = "idx_concurrency_adjustment_time", columnList = "adjustedAt")
+})
+public class ConcurrencyAdjustment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String nodeId;
+    private String browser;
+    private int previousLimit;
+    private int newLimit;
+
+    @Column(length = 500)
+    private String reason;
+
+    private double cpuLoad; // System CPU load between 0 and 1, negative when unavailable
+    private long availableMemoryMb;
+    private Double latencyInflation; // Recent action latency relative to its baseline, null without samples
+    private int activeRuns;
+    private long queuedRuns;
+    private LocalDateTime adjustedAt;
+}
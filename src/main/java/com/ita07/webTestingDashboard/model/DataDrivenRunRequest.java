@@ -0,0 +1,17 @@
+package com.ita07.webTestingDashboard.model;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class DataDrivenRunRequest {
+    private Long suiteId;
+    private String browser; // Defaults to the browser of the suite
+    private boolean stopOnFailure = false;
+    private RunPriority priority = RunPriority.BATCH;
+    private String submittedBy; // Set by the server from the client identity
+    private List<Long> testDataIds; // Stored test data sets, one child run each
+    private List<Map<String, Object>> rows; // Inline data rows, one child run each
+}
@@ -0,0 +1,16 @@
+package com.ita07.webTestingDashboard.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MatrixRunRequest {
+    private Long suiteId;
+    private List<String> browsers; // One leg per browser (and window size)
+    private List<String> windowSizes; // Optional, WIDTHxHEIGHT; every browser runs once per size
+    private boolean stopOnFailure = false;
+    private RunPriority priority = RunPriority.BATCH;
+    private String submittedBy; // Set by the server from the client identity
+    private Long testDataId;
+}
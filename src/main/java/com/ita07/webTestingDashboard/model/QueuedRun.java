@@ -0,0 +1,10 @@
+package com.ita07.webTestingDashboard.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scheduling view of a queued run, read without loading or locking the full run queue job.
+ */
+public record QueuedRun(Long id, String submittedBy, RunPriority priority, String browser, LocalDateTime createdAt,
+                        String costKey) {
+}
@@ -0,0 +1,26 @@
+package com.ita07.webTestingDashboard.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parent of a group of runs submitted together. The child runs are run queue jobs that reference the batch,
+ * pass/fail and duration statistics are aggregated from them when the batch is read.
+ */
+@Entity
+@Data
+@Table(name = "run_batch")
+public class RunBatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String kind; // data: one child run per test data row, matrix: one per browser and window size, bulk: independent runs
+
+    private Long suiteId;
+    private int totalRuns;
+    private LocalDateTime createdAt;
+}
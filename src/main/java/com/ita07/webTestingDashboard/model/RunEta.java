@@ -0,0 +1,7 @@
+package com.ita07.webTestingDashboard.model;
+
+/**
+ * Expected duration and start/finish of a queued run, relative to now.
+ */
+public record RunEta(long estimatedMillis, long startsInMillis, long finishesInMillis) {
+}
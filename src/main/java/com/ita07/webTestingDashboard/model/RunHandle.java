@@ -0,0 +1,21 @@
+package com.ita07.webTestingDashboard.model;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A queued run that a caller waits on without blocking. The completion is finished once the run ended on
+ * any node, with the results, or with the partial results when the run is cancelled.
+ */
+@Getter
+public class RunHandle {
+    private final long testRunId;
+    private final CompletableFuture<List<ActionResult>> completion;
+
+    public RunHandle(long testRunId, CompletableFuture<List<ActionResult>> completion) {
+        this.testRunId = testRunId;
+        this.completion = completion;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ita07.webTestingDashboard.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Priority class of a submitted run. The weight is the class's share of slots under fair-share scheduling;
+ * batch work is also shed first when the queue is overloaded.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RunPriority {
+    INTERACTIVE(4),
+    CI(2),
+    BATCH(1);
+
+    private final int weight;
+
+    @JsonValue
+    public String getValue() {
+        return name().toLowerCase();
+    }
+
+    @JsonCreator
+    public static RunPriority fromString(String value) {
+        return Arrays.stream(values())
+                .filter(priority -> priority.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown run priority: " + value));
+    }
+}
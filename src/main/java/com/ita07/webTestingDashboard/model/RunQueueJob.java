@@ -0,0 +1,74 @@
+package com.ita07.webTestingDashboard.model;
+
+import com.vladmihalcea.hibernate.type.json.JsonType;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "run_queue_job", indexes = {
+        @Index(name = "idx_run_queue_job_status", columnList = "status, id"),
+        @Index(name = "idx_run_queue_job_lease", columnList = "status, leaseExpiresAt"),
+        @Index(name = "idx_run_queue_job_batch", columnList = "batchId"),
+        @Index(name = "idx_run_queue_job_client", columnList = "status, submittedBy"),
+        @Index(name = "idx_run_queue_job_lane", columnList = "status, browser, submittedBy, priority, id"),
+        @Index(name = "idx_run_queue_job_cost", columnList = "costKey, status, id"),
+        @Index(name = "idx_run_queue_job_coalesce", columnList = "coalesceKey, status")
+})
+public class RunQueueJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Type(JsonType.class)
+    @Column(columnDefinition = "jsonb", nullable = false)
+    private String requestJson; // The submitted TestRequest as JSON
+
+    private String browser;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private RunPriority priority;
+
+    private String submittedBy; // Client identity of the submitter
+
+    @Column(nullable = false)
+    private String status; // queued, running, finished, failed or cancelled
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    private String claimedBy; // Node that currently holds the lease
+    private LocalDateTime leaseExpiresAt;
+    private LocalDateTime heartbeatAt;
+    private int attempts;
+
+    // Set when a run owned by another node is cancelled; the owner stops it on its next heartbeat
+    @Column(columnDefinition = "boolean default false")
+    private boolean cancelRequested;
+
+    private Long testRunId; // TestRun written when the job finished
+
+    private Long batchId; // RunBatch this job is a child of, if any
+    private String batchLabel; // Identifies the child within its batch, e.g. the test data row
+
+    private Long durationMillis; // Time from claim to completion
+
+    @Column(length = 100)
+    private String costKey; // Runs with the same key are expected to take equally long: suite or action list, and browser
+    private Boolean passed; // Set when finished: true when no action failed
+
+    @Column(length = 64)
+    private String coalesceKey; // Hash of the normalized request, identical submissions attach to this run while it is in flight
+
+    // Submissions sharing this run through coalescing; a cancellation only stops it once the last one cancelled
+    @Column(columnDefinition = "integer default 1")
+    private int subscribers = 1;
+
+    @Column(length = 1000)
+    private String lastError;
+}
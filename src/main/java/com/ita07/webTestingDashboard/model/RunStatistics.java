@@ -0,0 +1,28 @@
+package com.ita07.webTestingDashboard.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals over all saved test runs, kept in a single row so the dashboard and analytics pages
+ * do not have to scan and parse every TestRun.
+ */
+@Entity
+@Data
+@Table(name = "run_statistics")
+public class RunStatistics {
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id = SINGLETON_ID;
+
+    private long totalRuns;
+    private long successfulRuns; // Runs where every action succeeded
+    private long cancelledRuns;
+    private long successfulDurationMillis; // Sum of action execution times of successful runs
+    private long totalDurationMillis;
+    private LocalDateTime updatedAt;
+    private LocalDateTime actionResultsBackfilledAt; // Set once every run saved before the action_result table has its rows
+}
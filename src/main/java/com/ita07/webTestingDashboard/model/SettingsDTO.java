@@ -4,9 +4,18 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class SettingsDTO {
     private int concurrency;
+    // Per-browser overrides, null where the browser uses the shared concurrency or has no queue limit of its own
+    private Map<String, Integer> browserConcurrency;
+    private Map<String, Integer> browserMaxQueued;
+    // Automatic mode lets the adaptive controller move every pool's concurrency between the bounds
+    private boolean autoConcurrency;
+    private int autoConcurrencyMin;
+    private int autoConcurrencyMax;
 }
@@ -9,5 +9,13 @@ public class TestRequest {
     private String browser;
     private List<Map<String, Object>> actions;
     private boolean stopOnFailure = false;
+    private String windowSize; // Optional browser window size as WIDTHxHEIGHT, e.g. 1280x720
+    private RunPriority priority; // Defaults to ci for queued runs
+    private String submittedBy; // Set by the server from the client identity, used for per-client limits
     private Long testDataId; // ID of the test data to use for variable substitution
+    private Map<String, Object> variables; // Already parsed test data, takes precedence over testDataId
+    private Long suiteId; // Set when the request was created from a test suite
+    private String suiteVersion; // Last update of that suite, selects the cached execution plan
+    private Integer runDeadlineSeconds; // Optional limit on the whole run, the server default applies when absent
+    private Integer actionDeadlineSeconds; // Optional limit on every single action, the server default applies when absent
 }
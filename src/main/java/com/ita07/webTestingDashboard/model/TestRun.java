@@ -27,4 +27,7 @@ public class TestRun {
 
     @Column(nullable = false)
     private String status; // Status of the test run (e.g., "running", "finished", "cancelled")
+
+    private Long suiteId; // Suite the run was started from, null for ad-hoc action lists
+    private Long peakRssBytes; // Highest resident memory of the browser process tree during the run
 }
\ No newline at end of file
@@ -21,4 +21,7 @@ public class TestSuite {
     @Type(JsonType.class)
     @Column(columnDefinition = "jsonb")
     private String actionsJson; // Store actions as JSON string in jsonb column
+
+    private Integer runDeadlineSeconds; // Deadline budgets of the suite's runs, null uses the server defaults
+    private Integer actionDeadlineSeconds;
 }
\ No newline at end of file
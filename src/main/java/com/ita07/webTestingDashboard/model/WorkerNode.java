@@ -0,0 +1,26 @@
+package com.ita07.webTestingDashboard.model;
+
+import com.vladmihalcea.hibernate.type.json.JsonType;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+public class WorkerNode {
+    @Id
+    private String nodeId;
+
+    private String hostname;
+    private String mode; // "full" (dashboard and executor) or "worker" (executor only)
+
+    @Type(JsonType.class)
+    @Column(columnDefinition = "jsonb")
+    private String capacityJson; // Concurrent runs this node accepts per browser, e.g. {"chrome": 2}
+
+    private int activeRuns;
+    private LocalDateTime startedAt;
+    private LocalDateTime lastSeenAt;
+}
@@ -0,0 +1,89 @@
+package com.ita07.webTestingDashboard.repository;
+
+import com.ita07.webTestingDashboard.model.ActionResultRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ActionResultRecordRepository extends JpaRepository<ActionResultRecord, Long> {
+
+    interface ActionTypeStats {
+        String getActionType();
+        long getExecutions();
+        long getFailures();
+        Double getAverageMillis();
+        long getMaxMillis();
+    }
+
+    interface FailureCount {
+        String getLabel();
+        long getFailures();
+    }
+
+    interface ActionTiming {
+        Long getTestRunId();
+        int getOrdinal();
+        String getActionType();
+        String getStatus();
+        long getDurationMillis();
+    }
+
+    @Query("SELECT a.actionType AS actionType, COUNT(a) AS executions, " +
+            "SUM(CASE WHEN a.status = 'failure' THEN 1 ELSE 0 END) AS failures, " +
+            "AVG(a.durationMillis) AS averageMillis, MAX(a.durationMillis) AS maxMillis " +
+            "FROM ActionResultRecord a WHERE a.status <> 'skipped' " +
+            "GROUP BY a.actionType ORDER BY AVG(a.durationMillis) DESC")
+    List<ActionTypeStats> findActionTypeStats();
+
+    @Query("SELECT a.locator AS label, COUNT(a) AS failures FROM ActionResultRecord a " +
+            "WHERE a.status = 'failure' AND a.locator IS NOT NULL " +
+            "GROUP BY a.locator ORDER BY COUNT(a) DESC")
+    List<FailureCount> findMostFailingLocators(Pageable pageable);
+
+    @Query("SELECT a.messageSignature AS label, COUNT(a) AS failures FROM ActionResultRecord a " +
+            "WHERE a.status = 'failure' AND a.messageSignature IS NOT NULL " +
+            "GROUP BY a.messageSignature ORDER BY COUNT(a) DESC")
+    List<FailureCount> findMostCommonFailures(Pageable pageable);
+
+    @Query("SELECT a.testRun.id AS testRunId, a.ordinal AS ordinal, a.actionType AS actionType, " +
+            "a.status AS status, a.durationMillis AS durationMillis FROM ActionResultRecord a " +
+            "WHERE a.testRun.id IN :testRunIds ORDER BY a.ordinal")
+    List<ActionTiming> findTimings(@Param("testRunIds") Collection<Long> testRunIds);
+
+    // Lowest id of a run with results but no action_result rows yet, i.e. where the backfill has to resume
+    @Query(value = "SELECT MIN(t.id) FROM test_run t " +
+            "WHERE CASE WHEN jsonb_typeof(t.results_json) = 'array' THEN jsonb_array_length(t.results_json) ELSE 0 END > 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM action_result a WHERE a.test_run_id = t.id)", nativeQuery = true)
+    Long findFirstRunWithoutRecords();
+
+    @Query(value = "SELECT MAX(b.id) FROM (SELECT id FROM test_run WHERE id >= :fromId ORDER BY id LIMIT :limit) b",
+            nativeQuery = true)
+    Long findBatchEnd(@Param("fromId") long fromId, @Param("limit") int limit);
+
+    // Copies the results of the runs in [fromId, toId] out of resultsJson; the locator comes from the action at the
+    // same position in actionsJson and the signature uses the same normalization as ActionResultServiceImpl
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO action_result (id, test_run_id, ordinal, action_type, status, duration_millis, " +
+            "locator, message_signature, executed_at) " +
+            "SELECT nextval('action_result_seq'), t.id, CAST(r.ordinality - 1 AS int), LOWER(r.value->>'action'), " +
+            "LOWER(r.value->>'status'), CAST(COALESCE(CAST(r.value->>'executionTimeMillis' AS numeric), 0) AS bigint), " +
+            "LEFT((l.loc->>'type') || ':' || (l.loc->>'value'), 500), " +
+            "LEFT(TRIM(regexp_replace(regexp_replace(r.value->>'message', '\\d+', '#', 'g'), '\\s+', ' ', 'g')), 255), " +
+            "t.executed_at " +
+            "FROM (SELECT * FROM test_run WHERE id BETWEEN :fromId AND :toId AND jsonb_typeof(results_json) = 'array') t " +
+            "CROSS JOIN LATERAL jsonb_array_elements(t.results_json) WITH ORDINALITY AS r(value, ordinality) " +
+            "CROSS JOIN LATERAL (SELECT COALESCE(t.actions_json -> CAST(r.ordinality - 1 AS int) -> 'locator', " +
+            "    t.actions_json -> CAST(r.ordinality - 1 AS int) -> 'sourceLocator') AS loc) l " +
+            "WHERE NOT EXISTS (SELECT 1 FROM action_result a WHERE a.test_run_id = t.id) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int backfillRange(@Param("fromId") long fromId, @Param("toId") long toId);
+}
@@ -0,0 +1,14 @@
+package com.ita07.webTestingDashboard.repository;
+
+import com.ita07.webTestingDashboard.model.ConcurrencyAdjustment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ConcurrencyAdjustmentRepository extends JpaRepository<ConcurrencyAdjustment, Long> {
+
+    List<ConcurrencyAdjustment> findAllByOrderByAdjustedAtDesc(Pageable pageable);
+}
@@ -0,0 +1,9 @@
+package com.ita07.webTestingDashboard.repository;
+
+import com.ita07.webTestingDashboard.model.RunBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RunBatchRepository extends JpaRepository<RunBatch, Long> {
+}
@@ -0,0 +1,126 @@
+package com.ita07.webTestingDashboard.repository;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RunQueueJobRepository extends JpaRepository<RunQueueJob, Long> {
+
+    interface SubmitterCount {
+        String getSubmittedBy();
+        long getRuns();
+    }
+
+    interface BrowserCount {
+        String getBrowser();
+        long getRuns();
+    }
+
+    interface LaneRun {
+        Long getId();
+        String getSubmittedBy();
+        String getPriority();
+        String getBrowser();
+        LocalDateTime getCreatedAt();
+        String getCostKey();
+    }
+
+    // The first :perLane queued runs of every submitter and priority class, all a simulation of the first
+    // :perLane starts can pick from
+    @Query(value = "SELECT id, submitted_by AS \"submittedBy\", priority, browser, created_at AS \"createdAt\", " +
+            "cost_key AS \"costKey\" FROM (SELECT j.*, ROW_NUMBER() OVER (PARTITION BY j.submitted_by, j.priority " +
+            "ORDER BY j.id) AS lane_position FROM run_queue_job j WHERE j.status = 'queued') lanes " +
+            "WHERE lane_position <= :perLane ORDER BY id", nativeQuery = true)
+    List<LaneRun> findLaneFronts(@Param("perLane") int perLane);
+
+    long countByStatusAndIdLessThan(String status, Long id);
+
+    // The oldest queued run of every submitter and priority class, the only runs a scheduler can pick next
+    @Query("SELECT new com.ita07.webTestingDashboard.model.QueuedRun(j.id, j.submittedBy, j.priority, j.browser, j.createdAt, j.costKey) " +
+            "FROM RunQueueJob j WHERE j.id IN (SELECT MIN(k.id) FROM RunQueueJob k WHERE k.status = 'queued' " +
+            "AND k.browser IN :browsers GROUP BY k.submittedBy, k.priority) ORDER BY j.id")
+    List<QueuedRun> findLaneHeads(@Param("browsers") Collection<String> browsers);
+
+    @Query("SELECT j.submittedBy AS submittedBy, COUNT(j) AS runs FROM RunQueueJob j " +
+            "WHERE j.status = 'running' GROUP BY j.submittedBy")
+    List<SubmitterCount> countRunningBySubmitter();
+
+    @Query("SELECT j.browser AS browser, COUNT(j) AS runs FROM RunQueueJob j WHERE j.status = :status GROUP BY j.browser")
+    List<BrowserCount> countByStatusPerBrowser(@Param("status") String status);
+
+    // Locks the job if it is still queued; a job another node is claiming at the same time is skipped instead of waited on
+    @Query(value = "SELECT * FROM run_queue_job WHERE id = :id AND status = 'queued' FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<RunQueueJob> lockIfQueued(@Param("id") Long id);
+
+    // Serializes submissions with the same coalesce key across nodes until the transaction ends
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext(:key))", nativeQuery = true)
+    Integer lockCoalesceKey(@Param("key") String key);
+
+    // Serializes admission checks and the inserts they admit across nodes until the transaction ends
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('run_admission'))", nativeQuery = true)
+    Integer lockAdmission();
+
+    Optional<RunQueueJob> findFirstByCoalesceKeyAndStatusInOrderByIdDesc(String coalesceKey, Collection<String> statuses);
+
+    // Fails when the run left the queue or finished since it was looked up
+    @Modifying
+    @Query("UPDATE RunQueueJob j SET j.subscribers = j.subscribers + 1 WHERE j.id = :id AND j.status IN ('queued', 'running')")
+    int addSubscriber(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE RunQueueJob j SET j.priority = :priority WHERE j.id = :id AND j.status = 'queued'")
+    int updateQueuedPriority(@Param("id") Long id, @Param("priority") RunPriority priority);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM RunQueueJob j WHERE j.id = :id")
+    Optional<RunQueueJob> findByIdForUpdate(@Param("id") Long id);
+
+    long countByStatus(String status);
+
+    long countByStatusAndSubmittedBy(String status, String submittedBy);
+
+    List<RunQueueJob> findByStatus(String status);
+
+    @Query(value = "SELECT duration_millis FROM run_queue_job WHERE cost_key = :costKey AND status = 'finished' " +
+            "AND duration_millis IS NOT NULL ORDER BY id DESC LIMIT :limit", nativeQuery = true)
+    List<Long> findRecentDurations(@Param("costKey") String costKey, @Param("limit") int limit);
+
+    @Query(value = "SELECT duration_millis FROM run_queue_job WHERE status = 'finished' " +
+            "AND duration_millis IS NOT NULL ORDER BY id DESC LIMIT :limit", nativeQuery = true)
+    List<Long> findRecentDurations(@Param("limit") int limit);
+
+    List<RunQueueJob> findByBatchIdOrderById(Long batchId);
+
+    @Query("SELECT j.id FROM RunQueueJob j WHERE j.claimedBy = :nodeId AND j.status = 'running' AND j.cancelRequested = true")
+    List<Long> findCancelRequested(@Param("nodeId") String nodeId);
+
+    @Modifying
+    @Query("UPDATE RunQueueJob j SET j.heartbeatAt = :now, j.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE j.id IN :ids AND j.claimedBy = :nodeId AND j.status = 'running'")
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("nodeId") String nodeId,
+                    @Param("now") LocalDateTime now, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE RunQueueJob j SET j.status = 'queued', j.claimedBy = NULL, j.leaseExpiresAt = NULL " +
+            "WHERE j.status = 'running' AND j.leaseExpiresAt < :now AND j.attempts < :maxAttempts")
+    int requeueExpired(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("UPDATE RunQueueJob j SET j.status = 'failed', j.finishedAt = :now, j.lastError = 'Lease expired too many times' " +
+            "WHERE j.status = 'running' AND j.leaseExpiresAt < :now AND j.attempts >= :maxAttempts")
+    int failExpired(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+}
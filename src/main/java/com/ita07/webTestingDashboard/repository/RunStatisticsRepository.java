@@ -0,0 +1,58 @@
+package com.ita07.webTestingDashboard.repository;
+
+import com.ita07.webTestingDashboard.model.RunStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RunStatisticsRepository extends JpaRepository<RunStatistics, Long> {
+
+    // Relative update so concurrent runs on several nodes never overwrite each other's counts
+    @Modifying
+    @Query("UPDATE RunStatistics s SET s.totalRuns = s.totalRuns + 1, " +
+            "s.successfulRuns = s.successfulRuns + :successful, " +
+            "s.cancelledRuns = s.cancelledRuns + :cancelled, " +
+            "s.successfulDurationMillis = s.successfulDurationMillis + :successfulDuration, " +
+            "s.totalDurationMillis = s.totalDurationMillis + :duration, " +
+            "s.updatedAt = :now WHERE s.id = 1")
+    int increment(@Param("successful") long successful, @Param("cancelled") long cancelled,
+                  @Param("successfulDuration") long successfulDuration, @Param("duration") long duration,
+                  @Param("now") LocalDateTime now);
+
+    // Records that the action result backfill is complete; updates nothing before the statistics row exists
+    @Modifying
+    @Transactional
+    @Query("UPDATE RunStatistics s SET s.actionResultsBackfilledAt = :now WHERE s.id = 1 AND s.actionResultsBackfilledAt IS NULL")
+    int markActionResultsBackfilled(@Param("now") LocalDateTime now);
+
+    // Blocks inserts into test_run until the backfill commits, so no run is counted twice or missed
+    @Modifying
+    @Query(value = "LOCK TABLE test_run IN SHARE MODE", nativeQuery = true)
+    void lockTestRuns();
+
+    // Computes the totals from all existing runs; a no-op when another node already created the row
+    @Modifying
+    @Query(value = "INSERT INTO run_statistics (id, total_runs, successful_runs, cancelled_runs, " +
+            "successful_duration_millis, total_duration_millis, updated_at) " +
+            "SELECT 1, COUNT(*), " +
+            "COUNT(*) FILTER (WHERE r.successful), " +
+            "COUNT(*) FILTER (WHERE LOWER(t.status) = 'cancelled'), " +
+            "COALESCE(SUM(r.duration) FILTER (WHERE r.successful), 0), " +
+            "COALESCE(SUM(r.duration), 0), NOW() " +
+            "FROM test_run t " +
+            "CROSS JOIN LATERAL (SELECT CASE WHEN jsonb_typeof(t.results_json) = 'array' " +
+            "    THEN t.results_json ELSE CAST('[]' AS jsonb) END AS results) a " +
+            "CROSS JOIN LATERAL (SELECT " +
+            "    jsonb_array_length(a.results) > 0 AND NOT EXISTS (SELECT 1 FROM jsonb_array_elements(a.results) e " +
+            "        WHERE COALESCE(LOWER(e->>'status'), '') <> 'success') AS successful, " +
+            "    (SELECT CAST(COALESCE(SUM(CAST(e->>'executionTimeMillis' AS numeric)), 0) AS bigint) " +
+            "        FROM jsonb_array_elements(a.results) e) AS duration) r " +
+            "ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    int backfill();
+}
@@ -1,11 +1,29 @@
 package com.ita07.webTestingDashboard.repository;
 
 import com.ita07.webTestingDashboard.model.TestRun;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TestRunRepository extends JpaRepository<TestRun, Long> {
-    // Additional query methods can be added here if needed
-}
 
+    interface SuiteMemoryStats {
+        Long getSuiteId();
+        String getSuiteName();
+        String getBrowser();
+        long getRuns();
+        Double getAveragePeakBytes();
+        long getMaxPeakBytes();
+    }
+
+    // Runs of ad-hoc action lists are grouped under a null suite
+    @Query("SELECT t.suiteId AS suiteId, s.name AS suiteName, t.browser AS browser, COUNT(t) AS runs, " +
+            "AVG(t.peakRssBytes) AS averagePeakBytes, MAX(t.peakRssBytes) AS maxPeakBytes " +
+            "FROM TestRun t LEFT JOIN TestSuite s ON s.id = t.suiteId WHERE t.peakRssBytes IS NOT NULL " +
+            "GROUP BY t.suiteId, s.name, t.browser ORDER BY MAX(t.peakRssBytes) DESC")
+    List<SuiteMemoryStats> findPeakMemoryBySuite(Pageable pageable);
+}
@@ -0,0 +1,21 @@
+package com.ita07.webTestingDashboard.repository;
+
+import com.ita07.webTestingDashboard.model.WorkerNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WorkerNodeRepository extends JpaRepository<WorkerNode, String> {
+
+    List<WorkerNode> findByLastSeenAtAfterOrderByStartedAt(LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM WorkerNode n WHERE n.lastSeenAt < :before")
+    int deleteStale(@Param("before") LocalDateTime before);
+}
@@ -5,6 +5,7 @@ import com.ita07.webTestingDashboard.selenium.abstractions.SeleniumAction;
 import com.ita07.webTestingDashboard.selenium.utils.SeleniumActionExecutor;
 import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
 import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.springframework.stereotype.Component;
@@ -46,15 +47,9 @@ public class AssertAction implements SeleniumAction {
                         return new ActionResult("assert", "failure", "Missing expected value for title assertion.", System.currentTimeMillis() - start, details);
                     }
                     // Wait for title to match expected within timeout
-                    boolean matched = false;
-                    for (int i = 0; i < timeout; i++) {
-                        if (driver.getTitle().equals(expected)) {
-                            matched = true;
-                            break;
-                        }
-                        Thread.sleep(1000);
-                    }
-                    if (!matched) {
+                    try {
+                        SeleniumUtils.waitForTitle(driver, expected, timeout);
+                    } catch (TimeoutException e) {
                         throw new AssertionError("Expected title: " + expected + ", but found: " + driver.getTitle());
                     }
                     successMessage += " (expected: '" + expected + "')";
@@ -64,15 +59,9 @@ public class AssertAction implements SeleniumAction {
                         return new ActionResult("assert", "failure", "Missing locator for elementPresent assertion.", System.currentTimeMillis() - start, details);
                     }
                     By by = SeleniumUtils.getByFromLocator(locator);
-                    boolean found = false;
-                    for (int i = 0; i < timeout; i++) {
-                        if (!driver.findElements(by).isEmpty()) {
-                            found = true;
-                            break;
-                        }
-                        Thread.sleep(1000);
-                    }
-                    if (!found) {
+                    try {
+                        SeleniumUtils.waitForElementPresent(driver, by, timeout);
+                    } catch (TimeoutException e) {
                         throw new AssertionError("Element not present: " + by);
                     }
                 }
@@ -10,27 +10,55 @@ import org.openqa.selenium.firefox.FirefoxOptions;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 public class SeleniumConfig {
 
+    // Profiles live under a directory per JVM, so leftovers of a JVM that died can be told apart from live sessions
+    public static final String SESSION_ROOT = "/tmp/wtd-sessions";
+    public static final List<String> PROFILE_DIR_PREFIXES = List.of("chrome-user-data-", "firefox-profile-", "edge-user-data-");
+
     public static WebDriver createDriver(String browserType) {
+        return createDriver(browserType, newProfileDir(browserType));
+    }
+
+    // Unique per session to avoid conflicts; the path also identifies the session's browser processes
+    public static String newProfileDir(String browserType) {
+        String prefix = switch (browserType.toLowerCase()) {
+            case "firefox" -> "firefox-profile-";
+            case "edge" -> "edge-user-data-";
+            default -> "chrome-user-data-";
+        };
+        return SESSION_ROOT + "/" + ProcessHandle.current().pid() + "/" + prefix + UUID.randomUUID();
+    }
+
+    public static WebDriver createDriver(String browserType, String profileDir) {
+        return createDriver(browserType, profileDir, null, 0);
+    }
+
+    /**
+     * Starts a browser on the given profile directory. With a cache directory the HTTP disk cache is kept
+     * there instead of inside the profile, so it outlives the session.
+     */
+    public static WebDriver createDriver(String browserType, String profileDir, String cacheDir, int cacheSizeMb) {
 
         return switch (browserType.toLowerCase()) {
             case "chrome" -> {
                 ChromeOptions chromeOptions = new ChromeOptions();
 
-                // Create unique user data directory for each session to avoid conflicts
-                String uniqueUserDataDir = "/tmp/chrome-user-data-" + UUID.randomUUID().toString();
-
                 // Ensure the directory exists
-                File userDataDir = new File(uniqueUserDataDir);
+                File userDataDir = new File(profileDir);
                 if (!userDataDir.exists()) {
                     userDataDir.mkdirs();
                 }
 
-                chromeOptions.addArguments("--user-data-dir=" + uniqueUserDataDir);
+                chromeOptions.addArguments("--user-data-dir=" + profileDir);
+                if (cacheDir != null) {
+                    chromeOptions.addArguments("--disk-cache-dir=" + cacheDir);
+                    chromeOptions.addArguments("--disk-cache-size=" + cacheSizeMb * 1024L * 1024L);
+                }
 
                 // Enable headless mode for Docker containers - this is more stable
                 chromeOptions.addArguments("--headless");
@@ -75,12 +103,12 @@ public class SeleniumConfig {
                 // Explicitly set the Firefox binary path for Docker container
                 firefoxOptions.setBinary("/usr/bin/firefox");
 
-                // Create unique profile directory for Firefox
-                String uniqueProfileDir = "/tmp/firefox-profile-" + UUID.randomUUID().toString();
-                File profileDir = new File(uniqueProfileDir);
-                if (!profileDir.exists()) {
-                    profileDir.mkdirs();
+                // Use the unique profile directory instead of one geckodriver creates elsewhere
+                File profile = new File(profileDir);
+                if (!profile.exists()) {
+                    profile.mkdirs();
                 }
+                firefoxOptions.addArguments("-profile", profileDir);
 
                 // Set Firefox preferences for containerized environment
                 firefoxOptions.addPreference("browser.download.folderList", 2);
@@ -88,6 +116,11 @@ public class SeleniumConfig {
                 firefoxOptions.addPreference("browser.helperApps.neverAsk.saveToDisk", "application/octet-stream");
                 firefoxOptions.addPreference("browser.download.manager.showWhenStarting", false);
                 firefoxOptions.addPreference("pdfjs.disabled", true);
+                if (cacheDir != null) {
+                    firefoxOptions.addPreference("browser.cache.disk.parent_directory", cacheDir);
+                    firefoxOptions.addPreference("browser.cache.disk.smart_size.enabled", false);
+                    firefoxOptions.addPreference("browser.cache.disk.capacity", cacheSizeMb * 1024);
+                }
 
                 // Additional Firefox-specific options for Docker containers
                 firefoxOptions.addArguments("--no-sandbox");
@@ -104,14 +137,17 @@ public class SeleniumConfig {
                 // Enable headless mode for Edge - essential for Docker containers
                 edgeOptions.addArguments("--headless");
 
-                // Create unique user data directory for Edge
-                String uniqueUserDataDir = "/tmp/edge-user-data-" + UUID.randomUUID().toString();
-                File userDataDir = new File(uniqueUserDataDir);
+                // Use the unique user data directory for Edge
+                File userDataDir = new File(profileDir);
                 if (!userDataDir.exists()) {
                     userDataDir.mkdirs();
                 }
 
-                edgeOptions.addArguments("--user-data-dir=" + uniqueUserDataDir);
+                edgeOptions.addArguments("--user-data-dir=" + profileDir);
+                if (cacheDir != null) {
+                    edgeOptions.addArguments("--disk-cache-dir=" + cacheDir);
+                    edgeOptions.addArguments("--disk-cache-size=" + cacheSizeMb * 1024L * 1024L);
+                }
 
                 // Additional Edge options for Docker containers (similar to Chrome)
                 edgeOptions.addArguments("--window-size=1920,1080");
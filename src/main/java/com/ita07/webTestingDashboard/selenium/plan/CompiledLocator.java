@@ -0,0 +1,40 @@
+package com.ita07.webTestingDashboard.selenium.plan;
+
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import lombok.Getter;
+import org.openqa.selenium.By;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable locator map ('type' and 'value') that carries its pre-built {@link By}, so actions reading
+ * the locator from their parameters do not rebuild it on every run.
+ */
+public final class CompiledLocator extends AbstractMap<String, String> {
+    private final Map<String, String> entries;
+    @Getter
+    private final By by;
+
+    public CompiledLocator(Map<String, String> locator) {
+        this.entries = Map.of("type", locator.get("type"), "value", locator.get("value"));
+        this.by = SeleniumUtils.getByFromLocator(entries);
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return entries.entrySet();
+    }
+
+    @Override
+    public String get(Object key) {
+        return entries.get(key);
+    }
+
+    // Rendered like a plain locator map so logs and details keep their format
+    @Override
+    public String toString() {
+        return "{type=" + entries.get("type") + ", value=" + entries.get("value") + "}";
+    }
+}
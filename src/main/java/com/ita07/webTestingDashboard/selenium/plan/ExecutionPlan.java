@@ -0,0 +1,26 @@
+package com.ita07.webTestingDashboard.selenium.plan;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, pre-validated form of a suite or test request that the executor runs without re-parsing.
+ */
+@Getter
+public final class ExecutionPlan {
+    private final List<PlanStep> steps;
+    // The raw actions the plan was compiled from, as persisted with the test run
+    private final List<Map<String, Object>> actions;
+    // Browser from the suite definition, null for plans compiled from a request
+    private final String defaultBrowser;
+    private final boolean templated;
+
+    ExecutionPlan(List<PlanStep> steps, List<Map<String, Object>> actions, String defaultBrowser) {
+        this.steps = List.copyOf(steps);
+        this.actions = actions;
+        this.defaultBrowser = defaultBrowser;
+        this.templated = steps.stream().anyMatch(PlanStep::isTemplated);
+    }
+}
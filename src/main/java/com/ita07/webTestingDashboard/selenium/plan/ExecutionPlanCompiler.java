@@ -0,0 +1,366 @@
+package com.ita07.webTestingDashboard.selenium.plan;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ita07.webTestingDashboard.exception.ValidationException;
+import com.ita07.webTestingDashboard.model.TestRequest;
+import com.ita07.webTestingDashboard.model.TestSuite;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.TestDataService;
+import com.ita07.webTestingDashboard.service.TestSuiteService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns suites and test requests into immutable {@link ExecutionPlan}s. Validation, locator building and
+ * detail rendering happen once here; suite plans are cached by suite id and last update, so repeated runs
+ * of an unchanged suite skip parsing and validation entirely.
+ */
+@Component
+public class ExecutionPlanCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionPlanCompiler.class);
+    private static final Set<String> LOCATOR_KEYS = Set.of("locator", "sourceLocator", "targetLocator");
+    private static final Set<String> LOCATOR_TYPES = Set.of("id", "name", "xpath", "cssselector", "classname",
+            "tagname", "linktext", "partiallinktext");
+    private static final Set<String> SELECT_BY = Set.of("value", "visibletext", "index");
+
+    @Autowired
+    private TestSuiteService testSuiteService;
+    @Autowired
+    private TestDataService testDataService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Long, CachedPlan> suitePlans = new ConcurrentHashMap<>();
+
+    private record CachedPlan(String version, ExecutionPlan plan) {
+    }
+
+    /**
+     * Returns the plan of the suite, parsing and validating its actionsJson only when the suite changed since the last call.
+     */
+    public ExecutionPlan compileSuite(TestSuite suite) {
+        String version = versionOf(suite);
+        CachedPlan cached = suitePlans.get(suite.getId());
+        if (cached != null && cached.version().equals(version)) {
+            return cached.plan();
+        }
+        Map<String, Object> actionsMap;
+        try {
+            actionsMap = objectMapper.readValue(suite.getActionsJson(), new TypeReference<>() {});
+        } catch (Exception e) {
+            throw new ValidationException("actionsJson of test suite " + suite.getId() + " is not valid JSON: " + e.getMessage());
+        }
+        Object actionsObj = actionsMap.get("actions");
+        if (actionsObj == null) {
+            throw new ValidationException("actionsJson does not contain an 'actions' array");
+        }
+        List<Map<String, Object>> actions = objectMapper.convertValue(actionsObj, new TypeReference<>() {});
+        ExecutionPlan plan = compileValidated(actions, (String) actionsMap.getOrDefault("browser", "chrome"));
+        suitePlans.put(suite.getId(), new CachedPlan(version, plan));
+        logger.info("Compiled execution plan for test suite {} with {} steps", suite.getId(), plan.getSteps().size());
+        return plan;
+    }
+
+    /**
+     * Validates and compiles a test request. Requests created from a suite reuse the cached suite plan
+     * as long as the suite has not changed since the request was created and they carry the suite's actions.
+     */
+    public ExecutionPlan compile(TestRequest request) {
+        if (request == null) {
+            throw new ValidationException("Request body is missing.");
+        }
+        validateBrowser(request.getBrowser());
+        validateWindowSize(request.getWindowSize());
+        validateDeadline("runDeadlineSeconds", request.getRunDeadlineSeconds());
+        validateDeadline("actionDeadlineSeconds", request.getActionDeadlineSeconds());
+        if (request.getSuiteId() != null && request.getSuiteVersion() != null) {
+            ExecutionPlan plan = findSuitePlan(request.getSuiteId(), request.getSuiteVersion());
+            // The suite fields are client-settable, so a request with other actions runs and is validated as sent
+            if (plan != null && plan.getActions().equals(request.getActions())) {
+                return plan;
+            }
+        }
+        return compileValidated(request.getActions(), null);
+    }
+
+    /**
+     * Resolves test data variables in the templated steps of the plan; all other steps are shared with the cached plan.
+     */
+    public ExecutionPlan bind(ExecutionPlan plan, Map<String, Object> variables) {
+        if (!plan.isTemplated()) {
+            return plan;
+        }
+        List<PlanStep> steps = new ArrayList<>(plan.getSteps().size());
+        for (PlanStep step : plan.getSteps()) {
+            if (!step.isTemplated()) {
+                steps.add(step);
+                continue;
+            }
+            Map<String, Object> resolved = testDataService.resolveVariables(new HashMap<>(step.getParams()), variables);
+            logger.info("Original action: {}, Resolved action: {}", step.getParams(), resolved);
+            steps.add(compileStep(step.getIndex(), resolved));
+        }
+        return new ExecutionPlan(steps, plan.getActions(), plan.getDefaultBrowser());
+    }
+
+    public void evict(Long suiteId) {
+        suitePlans.remove(suiteId);
+    }
+
+    public static String versionOf(TestSuite suite) {
+        return String.valueOf(suite.getUpdatedAt());
+    }
+
+    /**
+     * Builds a plan without validating it, for callers that hand raw actions straight to the executor.
+     */
+    public static ExecutionPlan fromActions(List<Map<String, Object>> actions) {
+        return build(actions, null);
+    }
+
+    private ExecutionPlan findSuitePlan(Long suiteId, String version) {
+        CachedPlan cached = suitePlans.get(suiteId);
+        if (cached == null || !cached.version().equals(version)) {
+            // Nodes that did not compile the suite themselves (e.g. workers) load it once and cache it as well
+            try {
+                compileSuite(testSuiteService.getTestSuite(suiteId));
+            } catch (RuntimeException e) {
+                logger.debug("Could not compile test suite {}, compiling the request instead: {}", suiteId, e.getMessage());
+                return null;
+            }
+            cached = suitePlans.get(suiteId);
+        }
+        // A suite changed after the request was created runs the actions of the request
+        return cached != null && cached.version().equals(version) ? cached.plan() : null;
+    }
+
+    private static ExecutionPlan build(List<Map<String, Object>> actions, String defaultBrowser) {
+        List<PlanStep> steps = new ArrayList<>(actions.size());
+        for (int i = 0; i < actions.size(); i++) {
+            steps.add(compileStep(i, actions.get(i)));
+        }
+        return new ExecutionPlan(steps, Collections.unmodifiableList(actions), defaultBrowser);
+    }
+
+    private static PlanStep compileStep(int index, Map<String, Object> action) {
+        String actionType = ((String) action.get("action")).toLowerCase();
+        boolean templated = isTemplated(action);
+        Map<String, Object> params = new HashMap<>(action);
+        // Locators containing placeholders are compiled once they are bound to test data
+        if (!templated) {
+            for (String key : LOCATOR_KEYS) {
+                params.computeIfPresent(key, (k, locator) -> compileLocator(locator));
+            }
+        }
+        return new PlanStep(index, actionType, Collections.unmodifiableMap(params), buildDetailsString(actionType, params), templated);
+    }
+
+    // Locators that cannot be compiled are kept as they are, so the action reports the problem when it runs
+    private static Object compileLocator(Object locatorObj) {
+        if (locatorObj instanceof Map<?, ?> locator && locator.get("type") instanceof String type
+                && locator.get("value") instanceof String value) {
+            try {
+                return new CompiledLocator(Map.of("type", type, "value", value));
+            } catch (IllegalArgumentException e) {
+                return locatorObj;
+            }
+        }
+        return locatorObj;
+    }
+
+    private static boolean isTemplated(Object value) {
+        if (value instanceof String text) {
+            return text.contains("${");
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.values().stream().anyMatch(ExecutionPlanCompiler::isTemplated);
+        }
+        return false;
+    }
+
+    private static String buildDetailsString(String actionType, Map<String, Object> action) {
+        StringBuilder sb = new StringBuilder();
+        switch (actionType) {
+            case "navigate" -> sb.append("url=").append(action.getOrDefault("url", ""));
+            case "click", "check", "uncheck", "hover", "scroll", "doubleclick" -> {
+                sb.append("locator=").append(stringifyLocator(action.get("locator")));
+            }
+            case "type" -> {
+                sb.append("locator=").append(stringifyLocator(action.get("locator")));
+                sb.append(", text=").append(action.getOrDefault("text", ""));
+            }
+            case "wait" -> sb.append("seconds=").append(action.getOrDefault("seconds", ""));
+            case "select" -> {
+                sb.append("locator=").append(stringifyLocator(action.get("locator")));
+                sb.append(", selectBy=").append(action.getOrDefault("selectBy", ""));
+                sb.append(", option=").append(action.getOrDefault("option", ""));
+            }
+            case "upload" -> {
+                sb.append("locator=").append(stringifyLocator(action.get("locator")));
+                sb.append(", filePath=").append(action.getOrDefault("filePath", ""));
+            }
+            case "assert" -> {
+                sb.append("condition=").append(action.getOrDefault("condition", ""));
+                if (action.get("locator") != null) sb.append(", locator=").append(stringifyLocator(action.get("locator")));
+                if (action.get("expected") != null) sb.append(", expected=").append(action.get("expected"));
+                if (action.get("attribute") != null) sb.append(", attribute=").append(action.get("attribute"));
+            }
+            case "draganddrop" -> {
+                sb.append("sourceLocator=").append(stringifyLocator(action.get("sourceLocator")));
+                sb.append(", targetLocator=").append(stringifyLocator(action.get("targetLocator")));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String stringifyLocator(Object locatorObj) {
+        if (locatorObj instanceof Map<?, ?> loc) {
+            Object typeObj = loc.get("type");
+            Object valueObj = loc.get("value");
+
+            String type = (typeObj != null) ? String.valueOf(typeObj) : "";
+            String value = (valueObj != null) ? String.valueOf(valueObj) : "";
+
+            return "{" + type + ": '" + value + "'}";
+        }
+        return String.valueOf(locatorObj);
+    }
+
+    private void validateBrowser(String requestedBrowser) {
+        if (requestedBrowser != null) {
+            String browser = requestedBrowser.toLowerCase();
+            if (!SeleniumUtils.SUPPORTED_BROWSERS.contains(browser)) {
+                throw new ValidationException("Unsupported browser type: " + requestedBrowser);
+            }
+        }
+    }
+
+    private void validateWindowSize(String windowSize) {
+        if (windowSize != null) {
+            try {
+                SeleniumUtils.parseWindowSize(windowSize);
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Invalid window size '" + windowSize + "', expected WIDTHxHEIGHT such as 1280x720.");
+            }
+        }
+    }
+
+    private void validateDeadline(String name, Integer seconds) {
+        if (seconds != null && seconds < 0) {
+            throw new ValidationException("'" + name + "' must be a non-negative number of seconds, 0 disables the deadline.");
+        }
+    }
+
+    private static ExecutionPlan compileValidated(List<Map<String, Object>> actions, String defaultBrowser) {
+        if (actions == null || actions.isEmpty()) {
+            throw new ValidationException("Actions list is missing or empty.");
+        }
+        List<PlanStep> steps = new ArrayList<>(actions.size());
+        for (int i = 0; i < actions.size(); i++) {
+            Object actionObj = actions.get(i);
+            if (!(actionObj instanceof Map<?, ?>)) {
+                throw new ValidationException("Action at index " + i + " is not a valid object.");
+            }
+            validateStep(i, actions.get(i));
+            steps.add(compileStep(i, actions.get(i)));
+        }
+        return new ExecutionPlan(steps, Collections.unmodifiableList(actions), defaultBrowser);
+    }
+
+    private static void validateStep(int i, Map<String, Object> action) {
+        if (!(action.get("action") instanceof String type) || type.isBlank()) {
+            throw new ValidationException("Action type is missing at index " + i + ".");
+        }
+        String actionType = type.toLowerCase();
+        String what = "'" + actionType + "' action";
+        switch (actionType) {
+            case "navigate" -> requireValue(action, "url", what, i);
+            case "click", "check", "uncheck", "doubleclick" -> requireLocator(action, "locator", what, i);
+            case "type" -> {
+                requireLocator(action, "locator", what, i);
+                requireValue(action, "text", what, i);
+            }
+            // Their parameters are optional or checked by the action when it runs
+            case "hover", "scroll", "upload" -> {
+            }
+            case "wait" -> {
+                requireValue(action, "seconds", what, i);
+                int seconds;
+                try {
+                    seconds = action.get("seconds") instanceof Number number ? number.intValue()
+                            : Integer.parseInt(action.get("seconds").toString());
+                } catch (NumberFormatException e) {
+                    throw new ValidationException("'seconds' must be a valid integer for 'wait' action at index " + i + ".");
+                }
+                if (seconds < 0) {
+                    throw new ValidationException("'seconds' must be non-negative for 'wait' action at index " + i + ".");
+                }
+            }
+            case "select" -> {
+                requireLocator(action, "locator", what, i);
+                requireValue(action, "selectBy", what, i);
+                if (!SELECT_BY.contains(action.get("selectBy").toString().toLowerCase())) {
+                    throw new ValidationException("'selectBy' must be one of 'value', 'visibleText', or 'index' for 'select' action at index " + i + ".");
+                }
+                requireValue(action, "option", what, i);
+            }
+            case "assert" -> validateAssertion(i, action);
+            case "draganddrop" -> {
+                requireLocator(action, "sourceLocator", what, i);
+                requireLocator(action, "targetLocator", what, i);
+            }
+            default -> throw new ValidationException("Unsupported action: '" + type + "' at index " + i + ".");
+        }
+    }
+
+    private static void validateAssertion(int i, Map<String, Object> action) {
+        requireValue(action, "condition", "'assert' action", i);
+        String condition = action.get("condition").toString().toLowerCase();
+        String what = "'assert' with '" + action.get("condition") + "' condition";
+        switch (condition) {
+            case "title" -> requireValue(action, "expected", what, i);
+            case "text" -> {
+                requireLocator(action, "locator", what, i);
+                requireValue(action, "expected", what, i);
+            }
+            case "elementpresent", "elementvisible", "elementenabled" -> requireLocator(action, "locator", what, i);
+            case "attributevalue" -> {
+                requireLocator(action, "locator", what, i);
+                requireValue(action, "attribute", what, i);
+                requireValue(action, "expected", what, i);
+            }
+            default -> throw new ValidationException("Unsupported assertion condition: '" + condition + "' at index " + i + ".");
+        }
+    }
+
+    private static void requireValue(Map<String, Object> action, String key, String what, int i) {
+        Object value = action.get(key);
+        if (value == null || value.toString().isBlank()) {
+            throw new ValidationException("'" + key + "' is required for " + what + " at index " + i + ".");
+        }
+    }
+
+    private static void requireLocator(Map<String, Object> action, String key, String what, int i) {
+        if (!(action.get(key) instanceof Map<?, ?> locator)) {
+            throw new ValidationException("'" + key + "' is required for " + what + " at index " + i + ".");
+        }
+        if (!(locator.get("type") instanceof String type) || type.isBlank()
+                || !(locator.get("value") instanceof String value) || value.isBlank()) {
+            throw new ValidationException("'" + key + ".type' and '" + key + ".value' are required for " + what + " at index " + i + ".");
+        }
+        // A placeholder type is only known once the step is bound to test data
+        if (!isTemplated(type) && !LOCATOR_TYPES.contains(type.toLowerCase())) {
+            throw new ValidationException("Unsupported " + key + " type: '" + type + "' for " + what + " at index " + i + ".");
+        }
+    }
+}
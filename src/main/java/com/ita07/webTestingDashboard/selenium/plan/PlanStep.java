@@ -0,0 +1,26 @@
+package com.ita07.webTestingDashboard.selenium.plan;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * A single validated step of an {@link ExecutionPlan}. Parameters are immutable and their locators are compiled.
+ */
+@Getter
+public final class PlanStep {
+    private final int index;
+    private final String actionType;
+    private final Map<String, Object> params;
+    private final String details;
+    // Contains ${...} placeholders that have to be resolved against test data before execution
+    private final boolean templated;
+
+    PlanStep(int index, String actionType, Map<String, Object> params, String details, boolean templated) {
+        this.index = index;
+        this.actionType = actionType;
+        this.params = params;
+        this.details = details;
+        this.templated = templated;
+    }
+}
@@ -0,0 +1,84 @@
+package com.ita07.webTestingDashboard.selenium.pool;
+
+import com.ita07.webTestingDashboard.selenium.utils.ProcessTreeUtils;
+import lombok.Getter;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A WebDriver session owned by the {@link WebDriverPool}, together with the bookkeeping
+ * needed to decide when it should be retired.
+ */
+@Getter
+public class BrowserSession {
+    // Matches the --window-size argument the drivers are started with
+    private static final Dimension DEFAULT_WINDOW_SIZE = new Dimension(1920, 1080);
+
+    private final String browser;
+    private final WebDriver driver;
+    private final String profileDir;
+    // Shared disk cache the browser writes to, null when it keeps its cache in the profile
+    private final ProfileManager.CacheLease cacheLease;
+    private final Instant createdAt;
+    private int runCount;
+    private boolean resized;
+    // Driver process the browser runs under, looked up once while the session is alive
+    private ProcessHandle processRoot;
+    private boolean processRootResolved;
+
+    public BrowserSession(String browser, WebDriver driver, String profileDir) {
+        this(browser, driver, profileDir, null);
+    }
+
+    public BrowserSession(String browser, WebDriver driver, String profileDir, ProfileManager.CacheLease cacheLease) {
+        this.browser = browser;
+        this.driver = driver;
+        this.profileDir = profileDir;
+        this.cacheLease = cacheLease;
+        this.createdAt = Instant.now();
+    }
+
+    /**
+     * Resident memory of the driver and browser processes of this session in bytes, -1 when unknown.
+     */
+    public long measureRssBytes() {
+        ProcessHandle root = getProcessRoot();
+        return root != null ? ProcessTreeUtils.treeRssBytes(root) : -1;
+    }
+
+    // Null when the processes cannot be found, e.g. without /proc
+    public synchronized ProcessHandle getProcessRoot() {
+        if (!processRootResolved) {
+            processRoot = ProcessTreeUtils.findSessionRoot(profileDir).orElse(null);
+            processRootResolved = true;
+        }
+        return processRoot;
+    }
+
+    public void resizeWindow(Dimension size) {
+        driver.manage().window().setSize(size);
+        resized = true;
+    }
+
+    // Undoes a per-run window size so the next run starts from the default size
+    void restoreWindowSize() {
+        if (resized) {
+            driver.manage().window().setSize(DEFAULT_WINDOW_SIZE);
+            resized = false;
+        }
+    }
+
+    void markRunCompleted() {
+        runCount++;
+    }
+
+    boolean isExpired(int maxRuns, Duration maxAge) {
+        if (maxRuns > 0 && runCount >= maxRuns) {
+            return true;
+        }
+        return !maxAge.isZero() && createdAt.plus(maxAge).isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,209 @@
+package com.ita07.webTestingDashboard.selenium.pool;
+
+import com.ita07.webTestingDashboard.selenium.config.SeleniumConfig;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prepares the profile directory of every new browser session. A template profile per browser is created
+ * once per JVM by starting the browser with the options of {@link SeleniumConfig} on it, so first-run setup
+ * and preferences are already done; sessions get a copy of it. Optionally sessions share HTTP disk caches,
+ * leased one session at a time through a file lock so that two browsers never write to the same cache.
+ */
+@Component
+public class ProfileManager {
+    private static final Logger logger = LoggerFactory.getLogger(ProfileManager.class);
+    // Lock files of a running browser and caches, none of which belong in a session's copy
+    private static final Set<String> SKIPPED_FILES = Set.of("SingletonLock", "SingletonSocket", "SingletonCookie",
+            "lock", ".parentlock", "parent.lock", "Cache", "Code Cache", "GPUCache", "cache2", "Crashpad");
+    private static final Duration TEMPLATE_RETRY = Duration.ofMinutes(10);
+
+    @Value("${webdriver.profile.template:true}")
+    private boolean templateEnabled;
+
+    @Value("${webdriver.profile.shared-cache:false}")
+    private boolean sharedCacheEnabled;
+
+    // Caches per browser, at most this many sessions of a browser use a shared cache at the same time
+    @Value("${webdriver.profile.shared-cache-slots:8}")
+    private int sharedCacheSlots;
+
+    @Value("${webdriver.profile.shared-cache-size-mb:256}")
+    private int sharedCacheSizeMb;
+
+    private final Map<String, Path> templates = new ConcurrentHashMap<>();
+    private final Map<String, Instant> failedTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * A shared cache directory held by one session until it is retired.
+     */
+    public static class CacheLease implements AutoCloseable {
+        private final Path dir;
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        private CacheLease(Path dir, FileChannel channel, FileLock lock) {
+            this.dir = dir;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        public Path getDir() {
+            return dir;
+        }
+
+        @Override
+        public void close() {
+            try {
+                lock.release();
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Failed to release cache lease {}: {}", dir, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates a new, unique profile directory for a session, copied from the browser's template when one is available.
+     */
+    public String createProfile(String browser) {
+        String profileDir = SeleniumConfig.newProfileDir(browser);
+        Path template = templateEnabled ? templateFor(browser) : null;
+        if (template != null) {
+            try {
+                copyTemplate(template, Path.of(profileDir));
+            } catch (IOException e) {
+                logger.warn("Failed to copy the {} template profile, starting from an empty profile: {}", browser, e.getMessage());
+            }
+        }
+        return profileDir;
+    }
+
+    /**
+     * Leases a free shared cache directory of the browser, or returns null when shared caches are disabled or all are in use.
+     */
+    public CacheLease leaseCache(String browser) {
+        if (!sharedCacheEnabled) {
+            return null;
+        }
+        for (int slot = 0; slot < sharedCacheSlots; slot++) {
+            Path dir = Path.of(SeleniumConfig.SESSION_ROOT, "cache", browser + "-" + slot);
+            FileChannel channel = null;
+            try {
+                Files.createDirectories(dir);
+                // Locks are held per file across JVMs, so instances on the same host share the caches safely
+                channel = FileChannel.open(dir.resolveSibling(dir.getFileName() + ".lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock();
+                if (lock != null) {
+                    return new CacheLease(dir, channel, lock);
+                }
+                channel.close();
+            } catch (OverlappingFileLockException e) {
+                closeQuietly(channel); // Held by another session of this JVM
+            } catch (IOException e) {
+                closeQuietly(channel);
+                logger.warn("Failed to lease shared cache {}: {}", dir, e.getMessage());
+                return null;
+            }
+        }
+        logger.debug("All {} shared {} caches are in use, the session keeps its cache in its profile", sharedCacheSlots, browser);
+        return null;
+    }
+
+    public int getSharedCacheSizeMb() {
+        return sharedCacheSizeMb;
+    }
+
+    // Prepared on first use per JVM, so changes to the options in SeleniumConfig are picked up after a restart
+    private synchronized Path templateFor(String browser) {
+        Path template = templates.get(browser);
+        if (template != null) {
+            return template;
+        }
+        Instant failedAt = failedTemplates.get(browser);
+        if (failedAt != null && failedAt.plus(TEMPLATE_RETRY).isAfter(Instant.now())) {
+            return null;
+        }
+        Path dir = Path.of(SeleniumConfig.SESSION_ROOT, String.valueOf(ProcessHandle.current().pid()), "templates", browser);
+        long start = System.currentTimeMillis();
+        WebDriver driver = null;
+        try {
+            Files.createDirectories(dir);
+            driver = SeleniumConfig.createDriver(browser, dir.toString());
+            driver.get("about:blank");
+            driver.quit();
+            driver = null;
+            templates.put(browser, dir);
+            failedTemplates.remove(browser);
+            logger.info("Prepared {} template profile in {} ms", browser, System.currentTimeMillis() - start);
+            return dir;
+        } catch (Exception e) {
+            logger.warn("Failed to prepare the {} template profile, sessions start from empty profiles: {}", browser, e.getMessage());
+            failedTemplates.put(browser, Instant.now());
+            return null;
+        } finally {
+            if (driver != null) {
+                try {
+                    driver.quit();
+                } catch (Exception e) {
+                    logger.debug("Failed to quit the {} template browser: {}", browser, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void copyTemplate(Path template, Path target) throws IOException {
+        Files.walkFileTree(template, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                if (!dir.equals(template) && SKIPPED_FILES.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(template.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            // Files are copied rather than hard linked: browsers rewrite their databases in place, which would change the template
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (attributes.isRegularFile() && !SKIPPED_FILES.contains(file.getFileName().toString())) {
+                    Files.copy(file, target.resolve(template.relativize(file)), StandardCopyOption.COPY_ATTRIBUTES,
+                            LinkOption.NOFOLLOW_LINKS);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing to release
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.ita07.webTestingDashboard.selenium.pool;
+
+import com.ita07.webTestingDashboard.selenium.config.SeleniumConfig;
+import com.ita07.webTestingDashboard.selenium.utils.ProcessTreeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cleans up after browser sessions: the processes and the profile directory of a session are removed
+ * when it is retired, and a periodic sweep (also run at startup) removes the leftovers of sessions whose
+ * quit failed, of cancelled runs and of JVMs that were killed. Profiles of this JVM live under
+ * {@code /tmp/wtd-sessions/<pid>}, so the sweep never touches sessions of another live instance on the host.
+ */
+@Component
+public class SessionReaper {
+    private static final Logger logger = LoggerFactory.getLogger(SessionReaper.class);
+    private static final Set<String> DRIVER_COMMANDS = Set.of("chromedriver", "geckodriver", "msedgedriver");
+    private static final Pattern PROFILE_OWNER = Pattern.compile(Pattern.quote(SeleniumConfig.SESSION_ROOT + "/") + "(\\d+)/");
+
+    @Value("${webdriver.reaper.enabled:true}")
+    private boolean enabled;
+
+    // Directories younger than this are left alone, their session may still be starting
+    @Value("${webdriver.reaper.min-age-minutes:10}")
+    private long minAgeMinutes;
+
+    private final Map<String, BrowserSession> liveSessions = new ConcurrentHashMap<>();
+    private final AtomicLong sweeps = new AtomicLong();
+    private final AtomicLong profileDirsRemoved = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+    private final AtomicLong processesKilled = new AtomicLong();
+    private volatile LocalDateTime lastSweepAt;
+
+    public void register(BrowserSession session) {
+        liveSessions.put(session.getProfileDir(), session);
+        // Resolved while the session is alive, so its processes can still be found after a failed quit
+        session.getProcessRoot();
+    }
+
+    /**
+     * Removes what is left of a session after its driver was quit: processes that did not exit and the
+     * profile directory. Runs on the thread that retired the session, which may be an interrupted one.
+     */
+    public void reap(BrowserSession session, boolean quitFailed) {
+        liveSessions.remove(session.getProfileDir());
+        if (!enabled) {
+            return;
+        }
+        ProcessHandle root = session.getProcessRoot();
+        if (root != null && (quitFailed || root.isAlive())) {
+            int killed = ProcessTreeUtils.destroyTree(root, quitFailed);
+            if (killed > 0) {
+                processesKilled.addAndGet(killed);
+                logger.info("Terminated {} leftover processes of a {} session", killed, session.getBrowser());
+            }
+        }
+        // A process that is still exiting may recreate files, the sweep removes what remains
+        deleteProfileDir(Path.of(session.getProfileDir()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOnStartup() {
+        sweep();
+    }
+
+    @Scheduled(fixedDelayString = "${webdriver.reaper.interval-ms:300000}")
+    public void sweep() {
+        if (!enabled || !ProcessTreeUtils.isSupported()) {
+            return;
+        }
+        try {
+            long currentPid = ProcessHandle.current().pid();
+            File[] owners = new File(SeleniumConfig.SESSION_ROOT).listFiles(File::isDirectory);
+            if (owners != null) {
+                for (File owner : owners) {
+                    boolean ours = owner.getName().equals(String.valueOf(currentPid));
+                    if (ours || !isLiveJvm(owner.getName())) {
+                        reapProfileDirs(owner.toPath(), true);
+                        if (!ours) {
+                            // Template profiles are per JVM, a dead JVM's templates are never used again
+                            deleteProfileDir(owner.toPath().resolve("templates"));
+                            deleteIfEmpty(owner.toPath());
+                        }
+                    }
+                }
+            }
+            // Profiles created before they were grouped per JVM sit directly in /tmp
+            reapProfileDirs(Path.of("/tmp"), false);
+            reapOrphanedDrivers();
+            sweeps.incrementAndGet();
+            lastSweepAt = LocalDateTime.now();
+        } catch (Exception e) {
+            logger.warn("Session reaper sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("liveSessions", liveSessions.size());
+        stats.put("sweeps", sweeps.get());
+        stats.put("profileDirsRemoved", profileDirsRemoved.get());
+        stats.put("reclaimedMb", bytesReclaimed.get() / (1024 * 1024));
+        stats.put("processesKilled", processesKilled.get());
+        stats.put("lastSweepAt", lastSweepAt);
+        return stats;
+    }
+
+    // Removes the profile directories below the parent that no live session of this JVM owns
+    private void reapProfileDirs(Path parent, boolean killUsers) throws IOException {
+        if (!Files.isDirectory(parent)) {
+            return;
+        }
+        List<Path> dirs;
+        try (Stream<Path> children = Files.list(parent)) {
+            dirs = children.filter(Files::isDirectory)
+                    .filter(dir -> SeleniumConfig.PROFILE_DIR_PREFIXES.stream().anyMatch(dir.getFileName().toString()::startsWith))
+                    .toList();
+        }
+        for (Path dir : dirs) {
+            if (liveSessions.containsKey(dir.toString()) || !isOldEnough(dir)) {
+                continue;
+            }
+            List<ProcessHandle> users = ProcessTreeUtils.findProcesses(dir.toString());
+            if (!users.isEmpty() && !killUsers) {
+                // A legacy profile still in use belongs to a browser we cannot attribute, leave it
+                continue;
+            }
+            for (ProcessHandle user : users) {
+                int killed = ProcessTreeUtils.destroyTree(user, true);
+                processesKilled.addAndGet(killed);
+            }
+            if (!users.isEmpty()) {
+                logger.info("Killed {} orphaned browser processes using {}", users.size(), dir);
+            }
+            deleteProfileDir(dir);
+        }
+    }
+
+    // The directory of a dead JVM is removed once all its profiles are gone
+    private void deleteIfEmpty(Path dir) throws IOException {
+        try (Stream<Path> children = Files.list(dir)) {
+            if (children.findAny().isEmpty()) {
+                Files.deleteIfExists(dir);
+            }
+        }
+    }
+
+    // Drivers are only killed when they can be attributed to this app through the profile their browsers use:
+    // drivers of a killed JVM, and drivers of this JVM not backing a live session. Other drivers on the host are left alone.
+    private void reapOrphanedDrivers() {
+        Set<Long> liveRoots = new HashSet<>();
+        boolean allRootsKnown = true;
+        for (BrowserSession session : liveSessions.values()) {
+            ProcessHandle root = session.getProcessRoot();
+            if (root != null) {
+                liveRoots.add(root.pid());
+            } else {
+                allRootsKnown = false;
+            }
+        }
+        long currentPid = ProcessHandle.current().pid();
+        // Without the root of every live session, a driver of this JVM might still be in use
+        boolean reapOwnDrivers = allRootsKnown;
+        List<ProcessHandle> orphans;
+        try (Stream<ProcessHandle> processes = ProcessHandle.allProcesses()) {
+            orphans = processes.filter(this::isDriver)
+                    .filter(process -> !liveRoots.contains(process.pid()))
+                    .filter(this::isOldEnough)
+                    .filter(process -> isAbandoned(process, currentPid, reapOwnDrivers))
+                    .toList();
+        }
+        for (ProcessHandle orphan : orphans) {
+            int killed = ProcessTreeUtils.destroyTree(orphan, true);
+            processesKilled.addAndGet(killed);
+            logger.info("Killed orphaned driver process {} and {} descendants", orphan.pid(), Math.max(0, killed - 1));
+        }
+    }
+
+    private boolean isAbandoned(ProcessHandle driver, long currentPid, boolean reapOwnDrivers) {
+        Set<String> owners = profileOwners(driver);
+        if (owners.contains(String.valueOf(currentPid))) {
+            return reapOwnDrivers && driver.parent().map(parent -> parent.pid() == currentPid).orElse(false);
+        }
+        return !owners.isEmpty() && owners.stream().noneMatch(this::isLiveJvm);
+    }
+
+    // Pids of the JVMs whose session directories hold profiles used by the driver or its browsers
+    private Set<String> profileOwners(ProcessHandle driver) {
+        Set<String> owners = new HashSet<>();
+        Stream.concat(Stream.of(driver), driver.descendants()).forEach(process -> {
+            Matcher matcher = PROFILE_OWNER.matcher(ProcessTreeUtils.readCommandLine(process.pid()));
+            while (matcher.find()) {
+                owners.add(matcher.group(1));
+            }
+        });
+        return owners;
+    }
+
+    private boolean isDriver(ProcessHandle process) {
+        return process.info().command()
+                .map(command -> DRIVER_COMMANDS.contains(Path.of(command).getFileName().toString()))
+                .orElse(false);
+    }
+
+    private boolean isLiveJvm(String pid) {
+        try {
+            return ProcessHandle.of(Long.parseLong(pid))
+                    .filter(ProcessHandle::isAlive)
+                    .map(process -> ProcessTreeUtils.readCommandLine(process.pid()).contains("java"))
+                    .orElse(false);
+        } catch (NumberFormatException e) {
+            return true; // Not one of ours, leave it
+        }
+    }
+
+    private boolean isOldEnough(Path dir) {
+        try {
+            Instant modified = Files.getLastModifiedTime(dir).toInstant();
+            return modified.plus(Duration.ofMinutes(minAgeMinutes)).isBefore(Instant.now());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean isOldEnough(ProcessHandle process) {
+        return process.info().startInstant()
+                .map(started -> started.plus(Duration.ofMinutes(minAgeMinutes)).isBefore(Instant.now()))
+                .orElse(false);
+    }
+
+    private void deleteProfileDir(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        AtomicLong size = new AtomicLong();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    Files.delete(path);
+                    if (attributes.isRegularFile()) {
+                        size.addAndGet(attributes.size());
+                    }
+                } catch (IOException e) {
+                    logger.debug("Could not delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("Could not walk profile directory {}: {}", dir, e.getMessage());
+        }
+        bytesReclaimed.addAndGet(size.get());
+        if (!Files.exists(dir)) {
+            profileDirsRemoved.incrementAndGet();
+            logger.debug("Removed profile directory {} ({} KB)", dir, size.get() / 1024);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.ita07.webTestingDashboard.selenium.pool;
+
+import com.ita07.webTestingDashboard.selenium.config.SeleniumConfig;
+import jakarta.annotation.PreDestroy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Keeps pre-warmed WebDriver sessions per browser type so that test runs do not pay
+ * the browser cold start. Sessions are reset between runs, health checked before reuse
+ * and retired after a configurable number of runs or age.
+ */
+@Component
+public class WebDriverPool {
+    private static final Logger logger = LoggerFactory.getLogger(WebDriverPool.class);
+    private static final String RESET_STORAGE_TYPES =
+            "cookies,local_storage,indexeddb,websql,file_systems,service_workers,cache_storage,shared_storage,storage_buckets";
+
+    @Autowired
+    private SessionReaper sessionReaper;
+
+    @Autowired
+    private ProfileManager profileManager;
+
+    @Value("${webdriver.pool.enabled:true}")
+    private boolean enabled;
+
+    // Number of idle sessions kept warm for each pre-warmed browser
+    @Value("${webdriver.pool.min:1}")
+    private int minIdle;
+
+    // Maximum number of idle sessions retained per browser; extra sessions are quit on release
+    @Value("${webdriver.pool.max:4}")
+    private int maxIdle;
+
+    @Value("${webdriver.pool.max-runs:50}")
+    private int maxRuns;
+
+    @Value("${webdriver.pool.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${webdriver.pool.prewarm-browsers:chrome}")
+    private List<String> prewarmBrowsers;
+
+    private final Map<String, BlockingDeque<BrowserSession>> idleSessions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a healthy session for the given browser, reusing an idle one when possible.
+     */
+    public BrowserSession acquire(String browser) {
+        String browserType = browser.toLowerCase();
+        if (enabled) {
+            BlockingDeque<BrowserSession> idle = idleFor(browserType);
+            BrowserSession session;
+            while ((session = idle.pollFirst()) != null) {
+                if (session.isExpired(maxRuns, maxAge())) {
+                    retire(session, "expired");
+                } else if (!isHealthy(session)) {
+                    retire(session, "failed health check");
+                } else {
+                    logger.debug("Reusing pooled {} session (runs: {})", browserType, session.getRunCount());
+                    return session;
+                }
+            }
+        }
+        return createSession(browserType);
+    }
+
+    /**
+     * Hands a session back after a run. The session is reset and kept idle, or quit when
+     * pooling is disabled, the session is expired or the reset fails.
+     */
+    public void release(BrowserSession session) {
+        if (session == null) {
+            return;
+        }
+        session.markRunCompleted();
+        // A cancelled run leaves the interrupt flag set, which breaks further WebDriver calls
+        if (!enabled || Thread.currentThread().isInterrupted()) {
+            retire(session, "not reusable");
+            return;
+        }
+        if (session.isExpired(maxRuns, maxAge())) {
+            retire(session, "expired");
+            return;
+        }
+        if (!(session.getDriver() instanceof ChromiumDriver)) {
+            // Only Chromium can clear the storage of every origin, other browsers would leak state into the next run
+            retire(session, "no full reset for this browser");
+            return;
+        }
+        if (!reset(session)) {
+            retire(session, "reset failed");
+            return;
+        }
+        BlockingDeque<BrowserSession> idle = idleFor(session.getBrowser());
+        if (idle.size() >= maxIdle || !idle.offerFirst(session)) {
+            retire(session, "pool full");
+        }
+    }
+
+    /**
+     * Tears a session down without waiting for the driver, for a run that is cancelled while another
+     * thread may be blocked in a WebDriver call on it. The browser processes are killed first, so the
+     * blocked call fails right away and the quit afterwards only releases the driver's resources.
+     */
+    public void terminate(BrowserSession session) {
+        logger.info("Terminating {} session of a cancelled run", session.getBrowser());
+        sessionReaper.reap(session, true);
+        try {
+            session.getDriver().quit();
+        } catch (Exception e) {
+            logger.debug("Quit of terminated {} session failed as expected: {}", session.getBrowser(), e.getMessage());
+        }
+        if (session.getCacheLease() != null) {
+            session.getCacheLease().close();
+        }
+    }
+
+    /**
+     * Evicts expired or broken idle sessions and tops the pre-warmed browsers up to the minimum size.
+     */
+    @Scheduled(fixedDelayString = "${webdriver.pool.maintenance-interval-ms:30000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        idleSessions.forEach((browser, idle) -> {
+            Iterator<BrowserSession> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                BrowserSession session = iterator.next();
+                if (session.isExpired(maxRuns, maxAge()) || !isHealthy(session)) {
+                    if (idle.remove(session)) {
+                        retire(session, "evicted during maintenance");
+                    }
+                }
+            }
+        });
+        for (String browser : prewarmBrowsers) {
+            String browserType = browser.trim().toLowerCase();
+            if (browserType.isEmpty()) {
+                continue;
+            }
+            BlockingDeque<BrowserSession> idle = idleFor(browserType);
+            while (idle.size() < Math.min(minIdle, maxIdle)) {
+                try {
+                    idle.offerLast(createSession(browserType));
+                    logger.info("Pre-warmed {} session, idle sessions: {}", browserType, idle.size());
+                } catch (Exception e) {
+                    logger.warn("Failed to pre-warm {} session: {}", browserType, e.getMessage());
+                    break;
+                }
+            }
+        }
+    }
+
+    public Map<String, Integer> getIdleCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        idleSessions.forEach((browser, idle) -> counts.put(browser, idle.size()));
+        return counts;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Shutting down WebDriver pool...");
+        idleSessions.values().forEach(idle -> {
+            List<BrowserSession> sessions = new ArrayList<>();
+            idle.drainTo(sessions);
+            sessions.forEach(session -> retire(session, "shutdown"));
+        });
+    }
+
+    private BrowserSession createSession(String browser) {
+        long start = System.currentTimeMillis();
+        String profileDir = profileManager.createProfile(browser);
+        ProfileManager.CacheLease cacheLease = profileManager.leaseCache(browser);
+        WebDriver driver;
+        try {
+            driver = SeleniumConfig.createDriver(browser, profileDir,
+                    cacheLease != null ? cacheLease.getDir().toString() : null, profileManager.getSharedCacheSizeMb());
+        } catch (RuntimeException e) {
+            if (cacheLease != null) {
+                cacheLease.close();
+            }
+            throw e;
+        }
+        logger.info("Started new {} session in {} ms", browser, System.currentTimeMillis() - start);
+        BrowserSession session = new BrowserSession(browser, driver, profileDir, cacheLease);
+        sessionReaper.register(session);
+        return session;
+    }
+
+    private boolean isHealthy(BrowserSession session) {
+        try {
+            session.getDriver().getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            logger.debug("Health check failed for {} session: {}", session.getBrowser(), e.getMessage());
+            return false;
+        }
+    }
+
+    // Brings a Chromium session back to a clean state: single tab, no cookies or storage of any origin, blank page
+    private boolean reset(BrowserSession session) {
+        ChromiumDriver driver = (ChromiumDriver) session.getDriver();
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            String keep = handles.iterator().next();
+            for (String handle : handles) {
+                if (!handle.equals(keep)) {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                }
+            }
+            driver.switchTo().window(keep);
+
+            // Session storage belongs to the tab, everything else is cleared for all origins below
+            driver.executeScript("try { window.sessionStorage.clear(); } catch (e) {}");
+            driver.executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            // The HTTP cache is left alone, it may be the shared cache and holds nothing a page stored itself
+            driver.executeCdpCommand("Storage.clearDataForOrigin", Map.of("origin", "*", "storageTypes", RESET_STORAGE_TYPES));
+            driver.navigate().to("about:blank");
+            session.restoreWindowSize();
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to reset {} session: {}", session.getBrowser(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void retire(BrowserSession session, String reason) {
+        logger.info("Retiring {} session after {} runs ({})", session.getBrowser(), session.getRunCount(), reason);
+        boolean quitFailed = false;
+        try {
+            session.getDriver().quit();
+        } catch (Exception e) {
+            // Typically a cancelled run whose interrupted thread cannot talk to the driver any more
+            logger.warn("Failed to quit {} session: {}", session.getBrowser(), e.getMessage());
+            quitFailed = true;
+        }
+        sessionReaper.reap(session, quitFailed);
+        // Released only after the browser is gone, so the next session never shares the cache with it
+        if (session.getCacheLease() != null) {
+            session.getCacheLease().close();
+        }
+    }
+
+    private BlockingDeque<BrowserSession> idleFor(String browser) {
+        return idleSessions.computeIfAbsent(browser, key -> new LinkedBlockingDeque<>());
+    }
+
+    private Duration maxAge() {
+        return Duration.ofMinutes(Math.max(0, maxAgeMinutes));
+    }
+}
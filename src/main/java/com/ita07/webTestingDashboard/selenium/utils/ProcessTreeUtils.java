@@ -0,0 +1,124 @@
+package com.ita07.webTestingDashboard.selenium.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds the processes of a browser session and measures their memory through /proc. Every session
+ * passes its own profile directory to the browser, which makes the directory path a marker for the
+ * browser's command line. On systems without /proc nothing is found and memory reads as -1.
+ */
+public class ProcessTreeUtils {
+
+    private static final Path PROC = Path.of("/proc");
+
+    private ProcessTreeUtils() {
+    }
+
+    public static boolean isSupported() {
+        return Files.isDirectory(PROC.resolve("self"));
+    }
+
+    /**
+     * Returns the root of a session's process tree: the driver process (chromedriver, geckodriver,
+     * msedgedriver) that started the browser whose command line contains the marker, or the browser
+     * itself when it has no such parent.
+     */
+    public static Optional<ProcessHandle> findSessionRoot(String marker) {
+        if (marker == null || !isSupported()) {
+            return Optional.empty();
+        }
+        List<ProcessHandle> matches;
+        try (Stream<ProcessHandle> processes = ProcessHandle.allProcesses()) {
+            matches = processes.filter(process -> readCommandLine(process.pid()).contains(marker)).toList();
+        }
+        Set<Long> matchingPids = matches.stream().map(ProcessHandle::pid).collect(Collectors.toSet());
+        // The browser's main process is the match whose parent is not another match, e.g. not a zygote
+        Optional<ProcessHandle> browser = matches.stream()
+                .filter(process -> process.parent().map(parent -> !matchingPids.contains(parent.pid())).orElse(true))
+                .findFirst();
+        return browser.map(process -> process.parent()
+                .filter(parent -> parent.pid() != ProcessHandle.current().pid())
+                .orElse(process));
+    }
+
+    /**
+     * All processes whose command line contains the marker, e.g. the browsers using a profile directory.
+     */
+    public static List<ProcessHandle> findProcesses(String marker) {
+        if (!isSupported()) {
+            return List.of();
+        }
+        try (Stream<ProcessHandle> processes = ProcessHandle.allProcesses()) {
+            return processes.filter(process -> process.pid() != ProcessHandle.current().pid())
+                    .filter(process -> readCommandLine(process.pid()).contains(marker))
+                    .toList();
+        }
+    }
+
+    /**
+     * Terminates the process and its descendants, children first, and returns how many were still alive.
+     * Forcibly kills when requested, otherwise asks them to exit.
+     */
+    public static int destroyTree(ProcessHandle root, boolean forcibly) {
+        List<ProcessHandle> processes;
+        try (Stream<ProcessHandle> descendants = root.descendants()) {
+            processes = new ArrayList<>(descendants.toList());
+        }
+        Collections.reverse(processes);
+        processes.add(root);
+        int destroyed = 0;
+        for (ProcessHandle process : processes) {
+            if (process.isAlive() && (forcibly ? process.destroyForcibly() : process.destroy())) {
+                destroyed++;
+            }
+        }
+        return destroyed;
+    }
+
+    /**
+     * Resident set size of the process and all its descendants in bytes, or -1 when it cannot be read.
+     * Pages shared between the processes are counted once per process, so this errs on the high side.
+     */
+    public static long treeRssBytes(ProcessHandle root) {
+        if (!root.isAlive()) {
+            return -1;
+        }
+        long total = Math.max(0, rssBytes(root.pid()));
+        try (Stream<ProcessHandle> descendants = root.descendants()) {
+            total += descendants.mapToLong(process -> Math.max(0, rssBytes(process.pid()))).sum();
+        }
+        return total > 0 ? total : -1;
+    }
+
+    public static long rssBytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(PROC.resolve(String.valueOf(pid)).resolve("status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // The process exited or is not readable
+        }
+        return -1;
+    }
+
+    public static String readCommandLine(long pid) {
+        try {
+            byte[] bytes = Files.readAllBytes(PROC.resolve(String.valueOf(pid)).resolve("cmdline"));
+            return new String(bytes, StandardCharsets.UTF_8).replace('\0', ' ');
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
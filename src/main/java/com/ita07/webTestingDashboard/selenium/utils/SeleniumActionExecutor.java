@@ -3,6 +3,9 @@ package com.ita07.webTestingDashboard.selenium.utils;
 import com.ita07.webTestingDashboard.model.ActionResult;
 import com.ita07.webTestingDashboard.selenium.abstractions.SeleniumAction;
 import com.ita07.webTestingDashboard.selenium.actions.*;
+import com.ita07.webTestingDashboard.selenium.plan.ExecutionPlan;
+import com.ita07.webTestingDashboard.selenium.plan.ExecutionPlanCompiler;
+import com.ita07.webTestingDashboard.selenium.plan.PlanStep;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -15,6 +18,7 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 public class SeleniumActionExecutor {
     private static final Logger logger = LoggerFactory.getLogger(SeleniumActionExecutor.class);
@@ -22,51 +26,69 @@ public class SeleniumActionExecutor {
     private final WebDriver driver;
     private static final int DEFAULT_TIMEOUT = 10;
 
-    // Action registry
-    private final Map<String, SeleniumAction> actionRegistry = new HashMap<>();
+    // Action registry, the actions are stateless and shared by all executors
+    private static final Map<String, SeleniumAction> actionRegistry = Map.ofEntries(
+            Map.entry("navigate", new NavigateAction()),
+            Map.entry("click", new ClickAction()),
+            Map.entry("type", new TypeAction()),
+            Map.entry("wait", new WaitAction()),
+            Map.entry("hover", new HoverAction()),
+            Map.entry("scroll", new ScrollAction()),
+            Map.entry("upload", new UploadAction()),
+            Map.entry("assert", new AssertAction()),
+            Map.entry("select", new SelectAction()),
+            Map.entry("check", new CheckAction()),
+            Map.entry("uncheck", new UncheckAction()),
+            Map.entry("doubleclick", new DoubleClickAction()),
+            Map.entry("draganddrop", new DragAndDropAction())
+    );
 
     public SeleniumActionExecutor(WebDriver driver) {
         this.driver = driver;
-        // Register all actions
-        actionRegistry.put("navigate", new NavigateAction());
-        actionRegistry.put("click", new ClickAction());
-        actionRegistry.put("type", new TypeAction());
-        actionRegistry.put("wait", new WaitAction());
-        actionRegistry.put("hover", new HoverAction());
-        actionRegistry.put("scroll", new ScrollAction());
-        actionRegistry.put("upload", new UploadAction());
-        actionRegistry.put("assert", new AssertAction());
-        actionRegistry.put("select", new SelectAction());
-        actionRegistry.put("check", new CheckAction());
-        actionRegistry.put("uncheck", new UncheckAction());
-        actionRegistry.put("doubleclick", new DoubleClickAction());
-        actionRegistry.put("draganddrop", new DragAndDropAction());
     }
 
     public List<ActionResult> executeActions(List<Map<String, Object>> actions, boolean stopOnFailure) {
+        return executeActions(actions, stopOnFailure, null);
+    }
+
+    public List<ActionResult> executeActions(List<Map<String, Object>> actions, boolean stopOnFailure,
+                                             BiConsumer<Integer, ActionResult> resultListener) {
+        return executePlan(ExecutionPlanCompiler.fromActions(actions), stopOnFailure, resultListener);
+    }
+
+    /**
+     * Executes the steps of the plan in order, handing each result to the listener (with its index) as soon as the action completes.
+     */
+    public List<ActionResult> executePlan(ExecutionPlan plan, boolean stopOnFailure,
+                                          BiConsumer<Integer, ActionResult> resultListener) {
         List<ActionResult> results = new ArrayList<>();
         boolean failed = false;
-        for (Map<String, Object> action : actions) {
-            String actionType = getActionType(action);
+        for (PlanStep step : plan.getSteps()) {
+            if (Thread.currentThread().isInterrupted()) {
+                // The run was cancelled, its browser is being torn down
+                logger.info("Execution interrupted, not running the remaining {} actions.", plan.getSteps().size() - results.size());
+                break;
+            }
+            String actionType = step.getActionType();
             String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
             long startTime = System.currentTimeMillis();
             long endTime;
             long durationMillis;
-            String details = buildDetailsString(actionType, action);
+            String details = step.getDetails();
 
             if (failed) {
                 logger.info("[{}] Skipping action '{}' due to previous failure.", timestamp, actionType);
                 durationMillis = 0; // Skipped actions have 0 duration
-                results.add(new ActionResult(actionType, "skipped", "Action was not executed due to previous failure.", null, durationMillis, details));
+                addResult(results, resultListener, new ActionResult(actionType, "skipped", "Action was not executed due to previous failure.", null, durationMillis, details));
                 continue;
             }
             try {
-                logger.info("[{}] Starting action: {} with parameters: {}", timestamp, actionType, action);
-                SeleniumAction handler = actionRegistry.get(actionType.toLowerCase());
+                logger.info("[{}] Starting action: {} with parameters: {}", timestamp, actionType, step.getParams());
+                SeleniumAction handler = actionRegistry.get(actionType);
                 if (handler == null) {
                     throw new IllegalArgumentException("Unsupported action: " + actionType);
                 }
-                ActionResult result = handler.execute(driver, action);
+                ActionResult result = handler.execute(driver, step.getParams());
                 endTime = System.currentTimeMillis();
                 durationMillis = endTime - startTime;
                 // If the handler did not set executionTimeMillis, set it here
@@ -78,7 +100,7 @@ public class SeleniumActionExecutor {
                     String screenshotPath = captureScreenshot(actionType);
                     result.setScreenshotPath(screenshotPath);
                 }
-                results.add(result);
+                addResult(results, resultListener, result);
                 if ("failure".equalsIgnoreCase(result.getStatus()) && stopOnFailure) {
                     failed = true;
                 }
@@ -88,7 +110,7 @@ public class SeleniumActionExecutor {
                 String failMessage = extractErrorMessage(e);
                 logger.error("[{}] Action '{}' failed after {} ms with error: {}", timestamp, actionType, durationMillis, failMessage, e);
                 String screenshotPath = captureScreenshot(actionType);
-                results.add(new ActionResult(actionType, "failure", failMessage, screenshotPath, durationMillis, details));
+                addResult(results, resultListener, new ActionResult(actionType, "failure", failMessage, screenshotPath, durationMillis, details));
                 if (stopOnFailure) {
                     failed = true;
                 }
@@ -97,6 +119,19 @@ public class SeleniumActionExecutor {
         return results;
     }
 
+    private void addResult(List<ActionResult> results, BiConsumer<Integer, ActionResult> resultListener, ActionResult result) {
+        results.add(result);
+        if (resultListener == null) {
+            return;
+        }
+        try {
+            resultListener.accept(results.size() - 1, result);
+        } catch (Exception e) {
+            // Progress reporting must never fail the run itself
+            logger.warn("Result listener failed for action {}: {}", results.size() - 1, e.getMessage());
+        }
+    }
+
     private String captureScreenshot(String actionType) {
         try {
             String screenshotsDir = "screenshots";
@@ -124,10 +159,6 @@ public class SeleniumActionExecutor {
         return executeActions(actions, false);
     }
 
-    private String getActionType(Map<String, Object> action) {
-        return ((String) action.get("action")).toLowerCase();
-    }
-
     public static String extractErrorMessage(Throwable e) { // Changed Exception to Throwable
         if (e == null) return "An unknown error occurred.";
 
@@ -148,52 +179,4 @@ public class SeleniumActionExecutor {
         }
         return message.trim(); // Return the trimmed message if no newline
     }
-
-    private String buildDetailsString(String actionType, Map<String, Object> action) {
-        StringBuilder sb = new StringBuilder();
-        switch (actionType) {
-            case "navigate" -> sb.append("url=").append(action.getOrDefault("url", ""));
-            case "click", "check", "uncheck", "hover", "scroll", "doubleclick" -> {
-                sb.append("locator=").append(stringifyLocator(action.get("locator")));
-            }
-            case "type" -> {
-                sb.append("locator=").append(stringifyLocator(action.get("locator")));
-                sb.append(", text=").append(action.getOrDefault("text", ""));
-            }
-            case "wait" -> sb.append("seconds=").append(action.getOrDefault("seconds", ""));
-            case "select" -> {
-                sb.append("locator=").append(stringifyLocator(action.get("locator")));
-                sb.append(", selectBy=").append(action.getOrDefault("selectBy", ""));
-                sb.append(", option=").append(action.getOrDefault("option", ""));
-            }
-            case "upload" -> {
-                sb.append("locator=").append(stringifyLocator(action.get("locator")));
-                sb.append(", filePath=").append(action.getOrDefault("filePath", ""));
-            }
-            case "assert" -> {
-                sb.append("condition=").append(action.getOrDefault("condition", ""));
-                if (action.get("locator") != null) sb.append(", locator=").append(stringifyLocator(action.get("locator")));
-                if (action.get("expected") != null) sb.append(", expected=").append(action.get("expected"));
-                if (action.get("attribute") != null) sb.append(", attribute=").append(action.get("attribute"));
-            }
-            case "draganddrop" -> {
-                sb.append("sourceLocator=").append(stringifyLocator(action.get("sourceLocator")));
-                sb.append(", targetLocator=").append(stringifyLocator(action.get("targetLocator")));
-            }
-        }
-        return sb.toString();
-    }
-
-    private String stringifyLocator(Object locatorObj) {
-        if (locatorObj instanceof Map<?, ?> loc) {
-            Object typeObj = loc.get("type");
-            Object valueObj = loc.get("value");
-
-            String type = (typeObj != null) ? String.valueOf(typeObj) : "";
-            String value = (valueObj != null) ? String.valueOf(valueObj) : "";
-
-            return "{" + type + ": '" + value + "'}";
-        }
-        return String.valueOf(locatorObj);
-    }
 }
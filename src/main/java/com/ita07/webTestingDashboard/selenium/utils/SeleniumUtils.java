@@ -1,19 +1,92 @@
 package com.ita07.webTestingDashboard.selenium.utils;
 
+import com.ita07.webTestingDashboard.selenium.plan.CompiledLocator;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 public class SeleniumUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(SeleniumUtils.class);
 
+    public static final List<String> SUPPORTED_BROWSERS = List.of("chrome", "firefox", "edge");
+
+    // Runs without a browser are executed on Chrome
+    public static String normalizeBrowser(String browser) {
+        return browser != null ? browser.toLowerCase() : "chrome";
+    }
+
+    private static final int MAX_IN_PAGE_WAIT_ATTEMPTS = 3;
+    private static final long IN_PAGE_WAIT_GRACE_MILLIS = 2000;
+    private static final Duration FALLBACK_POLL_INTERVAL = Duration.ofMillis(100);
+
+    // Resolves with true as soon as the condition holds, false on timeout, or an error string when it cannot run.
+    // Locators arrive as W3C strategies (By.id, By.name and By.className are sent as css selectors).
+    private static final String WAIT_SCRIPT = """
+            var using = arguments[0], value = arguments[1], condition = arguments[2], expected = arguments[3];
+            var timeout = arguments[4], done = arguments[arguments.length - 1];
+            function find() {
+                switch (using) {
+                    case 'css selector': return document.querySelector(value);
+                    case 'xpath': return document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+                    case 'tag name': return document.getElementsByTagName(value)[0] || null;
+                    case 'link text':
+                    case 'partial link text':
+                        var links = document.getElementsByTagName('a');
+                        for (var i = 0; i < links.length; i++) {
+                            var text = (links[i].innerText || links[i].textContent || '').trim();
+                            if (using === 'link text' ? text === value : text.indexOf(value) >= 0) return links[i];
+                        }
+                        return null;
+                }
+                throw new Error('unsupported locator strategy ' + using);
+            }
+            function visible(el) {
+                if (!el.getClientRects().length) return false;
+                var style = window.getComputedStyle(el);
+                return style.visibility !== 'hidden' && style.display !== 'none' && parseFloat(style.opacity) !== 0;
+            }
+            function met() {
+                if (condition === 'title') return document.title === expected;
+                var el = find();
+                if (!el) return false;
+                if (condition === 'present') return true;
+                return visible(el) && (condition !== 'clickable' || !el.disabled);
+            }
+            var finished = false, observer = null, interval = null, timer = null;
+            function finish(result) {
+                if (finished) return;
+                finished = true;
+                if (observer) observer.disconnect();
+                clearInterval(interval);
+                clearTimeout(timer);
+                done(result);
+            }
+            function check() {
+                try {
+                    if (met()) finish(true);
+                } catch (e) {
+                    finish('error: ' + e.message);
+                }
+            }
+            check();
+            if (finished) return;
+            observer = new MutationObserver(check);
+            observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});
+            // Style-only changes such as CSS transitions do not produce mutations
+            interval = setInterval(check, 100);
+            timer = setTimeout(function () { finish(false); }, timeout);
+            """;
+
     // Navigate to a URL
     public static void navigateTo(WebDriver driver, String url) {
         driver.get(url);
@@ -105,14 +178,106 @@ public class SeleniumUtils {
 
     // Wait for an element to be visible
     public static WebElement waitForElementVisible(WebDriver driver, By locator, int timeoutInSeconds) {
-        WebDriverWait wait = new WebDriverWait(driver, java.time.Duration.ofSeconds(timeoutInSeconds));
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        return waitUntil(driver, "visible", locator, null, timeoutInSeconds, ExpectedConditions.visibilityOfElementLocated(locator));
     }
 
     // Wait for an element to be clickable
     public static WebElement waitForElementClickable(WebDriver driver, By locator, int timeoutInSeconds) {
-        WebDriverWait wait = new WebDriverWait(driver, java.time.Duration.ofSeconds(timeoutInSeconds));
-        return wait.until(ExpectedConditions.elementToBeClickable(locator));
+        return waitUntil(driver, "clickable", locator, null, timeoutInSeconds, ExpectedConditions.elementToBeClickable(locator));
+    }
+
+    // Wait for an element to be present in the DOM
+    public static WebElement waitForElementPresent(WebDriver driver, By locator, int timeoutInSeconds) {
+        return waitUntil(driver, "present", locator, null, timeoutInSeconds, ExpectedConditions.presenceOfElementLocated(locator));
+    }
+
+    // Wait for the page title to equal the expected value
+    public static void waitForTitle(WebDriver driver, String expectedTitle, int timeoutInSeconds) {
+        waitUntil(driver, "title", null, expectedTitle, timeoutInSeconds, ExpectedConditions.titleIs(expectedTitle));
+    }
+
+    /**
+     * Waits for a condition by blocking on a single async script that watches the page with a MutationObserver,
+     * so the wait ends within milliseconds of the condition becoming true instead of on the next poll.
+     * WebDriver's own check has the final say; when the in-page wait cannot be used (unsupported locator,
+     * repeated navigations, or the page and WebDriver disagree) the rest of the timeout falls back to polling.
+     */
+    private static <T> T waitUntil(WebDriver driver, String condition, By locator, String expected, int timeoutInSeconds,
+                                   ExpectedCondition<T> check) {
+        long deadline = System.currentTimeMillis() + timeoutInSeconds * 1000L;
+        boolean inPage = driver instanceof JavascriptExecutor && (locator == null || locator instanceof By.Remotable);
+        int attempts = 0;
+        Duration previousScriptTimeout = null;
+        try {
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining > 0) {
+                    if (!inPage || attempts >= MAX_IN_PAGE_WAIT_ATTEMPTS) {
+                        return new WebDriverWait(driver, Duration.ofMillis(remaining), FALLBACK_POLL_INTERVAL).until(check);
+                    }
+                    if (previousScriptTimeout == null) {
+                        previousScriptTimeout = driver.manage().timeouts().getScriptTimeout();
+                    }
+                    attempts++;
+                    inPage = awaitInPage((JavascriptExecutor) driver, condition, locator, expected, remaining);
+                }
+                T value = evaluate(check, driver);
+                if (value != null && !Boolean.FALSE.equals(value)) {
+                    return value;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new TimeoutException("Expected condition failed: waiting for " + check
+                            + " (tried for " + timeoutInSeconds + " second(s))");
+                }
+            }
+        } finally {
+            if (previousScriptTimeout != null) {
+                restoreScriptTimeout(driver, previousScriptTimeout);
+            }
+        }
+    }
+
+    // Later executeAsyncScript actions of the run must not inherit the timeout of our in-page wait
+    private static void restoreScriptTimeout(WebDriver driver, Duration scriptTimeout) {
+        try {
+            driver.manage().timeouts().scriptTimeout(scriptTimeout);
+        } catch (WebDriverException e) {
+            // The session is gone, e.g. the run was cancelled while waiting
+            logger.debug("Could not restore the script timeout: {}", e.getMessage());
+        }
+    }
+
+    // Returns false when the in-page wait is not usable on this page, so the caller falls back to polling
+    private static boolean awaitInPage(JavascriptExecutor executor, String condition, By locator, String expected, long timeoutMillis) {
+        String using = null;
+        Object value = null;
+        if (locator != null) {
+            By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+            using = parameters.using();
+            value = parameters.value();
+        }
+        try {
+            // Raised for this script only, waitUntil restores the previous timeout afterwards
+            ((WebDriver) executor).manage().timeouts().scriptTimeout(Duration.ofMillis(timeoutMillis + IN_PAGE_WAIT_GRACE_MILLIS));
+            Object result = executor.executeAsyncScript(WAIT_SCRIPT, using, value, condition, expected, timeoutMillis);
+            if (result instanceof String error) {
+                logger.debug("In-page wait for '{}' is not usable: {}", condition, error);
+                return false;
+            }
+            return true;
+        } catch (WebDriverException e) {
+            // Typically the page navigated while waiting; the next attempt watches the new document
+            logger.debug("In-page wait for '{}' interrupted: {}", condition, e.getMessage());
+            return true;
+        }
+    }
+
+    private static <T> T evaluate(ExpectedCondition<T> check, WebDriver driver) {
+        try {
+            return check.apply(driver);
+        } catch (NotFoundException | StaleElementReferenceException e) {
+            return null;
+        }
     }
 
     // Static wait function (waits for X seconds)
@@ -195,6 +360,10 @@ public class SeleniumUtils {
      * Supported types: id, name, xpath, cssSelector, className, tagName, linkText, partialLinkText
      */
     public static By getByFromLocator(Map<String, String> locator) {
+        if (locator instanceof CompiledLocator compiled) {
+            // Built once when the execution plan was compiled
+            return compiled.getBy();
+        }
         if (locator == null || locator.get("type") == null || locator.get("value") == null) {
             throw new IllegalArgumentException("Locator map must have 'type' and 'value' keys.");
         }
@@ -213,6 +382,22 @@ public class SeleniumUtils {
         };
     }
 
+    /**
+     * Parses a window size given as WIDTHxHEIGHT, e.g. 1280x720.
+     */
+    public static Dimension parseWindowSize(String windowSize) {
+        String[] parts = windowSize.trim().toLowerCase().split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Window size must be WIDTHxHEIGHT: " + windowSize);
+        }
+        int width = Integer.parseInt(parts[0].trim());
+        int height = Integer.parseInt(parts[1].trim());
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        return new Dimension(width, height);
+    }
+
     /**
      * Extracts a timeout value from the params map, or returns the default if not present or invalid.
      */
@@ -0,0 +1,16 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.ActionResult;
+import com.ita07.webTestingDashboard.model.TestRun;
+import com.ita07.webTestingDashboard.repository.ActionResultRecordRepository.ActionTypeStats;
+import com.ita07.webTestingDashboard.repository.ActionResultRecordRepository.FailureCount;
+
+import java.util.List;
+
+public interface ActionResultService {
+    void saveResults(TestRun testRun, List<ActionResult> results);
+    List<ActionTypeStats> getActionTypeStats();
+    List<FailureCount> getMostFailingLocators(int limit);
+    List<FailureCount> getMostCommonFailures(int limit);
+    void backfill();
+}
@@ -0,0 +1,15 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.ConcurrencyAdjustment;
+
+import java.util.List;
+
+public interface AdaptiveConcurrencyService {
+    boolean isEnabled();
+    int getMinParallelTests();
+    int getMaxParallelTests();
+    void recordActionLatency(String browser, String actionType, long millis);
+    void adjust();
+    void clampToBounds();
+    List<ConcurrencyAdjustment> getHistory(int limit);
+}
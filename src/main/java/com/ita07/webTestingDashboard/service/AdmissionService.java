@@ -0,0 +1,11 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.RunPriority;
+
+import java.util.Map;
+
+public interface AdmissionService {
+    void admit(String clientId, RunPriority priority, Map<String, Integer> runsByBrowser);
+    long estimateWaitSeconds(long runsAhead);
+    int getMaxQueued(String browser);
+}
@@ -0,0 +1,13 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.selenium.pool.BrowserSession;
+
+public interface BrowserMemoryService {
+    void reserve(long testRunId, String browser);
+    void attach(long testRunId, BrowserSession session);
+    long release(long testRunId);
+    boolean fits(String browser);
+    long estimateSessionBytes(String browser);
+    long getBudgetBytes();
+    long getProjectedBytes();
+}
@@ -0,0 +1,19 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.BulkRunRequest;
+import com.ita07.webTestingDashboard.model.DataDrivenRunRequest;
+import com.ita07.webTestingDashboard.model.MatrixRunRequest;
+import com.ita07.webTestingDashboard.model.RunBatch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface RunBatchService {
+    RunBatch submitDataDriven(DataDrivenRunRequest request);
+    RunBatch submitMatrix(MatrixRunRequest request);
+    RunBatch submitBulk(BulkRunRequest request);
+    List<Long> getRunIds(Long batchId);
+    int cancelBatch(Long batchId);
+    Optional<Map<String, Object>> getBatchReport(Long batchId);
+}
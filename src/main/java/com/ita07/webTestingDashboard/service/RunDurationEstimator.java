@@ -0,0 +1,12 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunEta;
+
+import java.util.List;
+import java.util.Map;
+
+public interface RunDurationEstimator {
+    long estimateMillis(String costKey);
+    Map<Long, RunEta> estimateEtas(List<QueuedRun> order);
+}
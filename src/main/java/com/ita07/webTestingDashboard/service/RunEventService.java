@@ -0,0 +1,16 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.ActionResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface RunEventService {
+    SseEmitter subscribe(long testRunId, Supplier<Map<String, Object>> snapshot);
+    void publishStatus(long testRunId, String status);
+    void publishResult(long testRunId, int index, ActionResult result);
+    void publishQueueAdvanced();
+    CompletableFuture<String> awaitTerminalStatus(long testRunId);
+}
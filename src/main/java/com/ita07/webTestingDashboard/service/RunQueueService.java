@@ -0,0 +1,43 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
+import com.ita07.webTestingDashboard.model.TestRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface RunQueueService {
+    RunQueueJob enqueue(TestRequest request);
+    RunQueueJob enqueue(TestRequest request, Long batchId, String batchLabel);
+    String coalesceKey(TestRequest request);
+    Optional<RunQueueJob> attachToInFlight(String coalesceKey, RunPriority priority);
+    boolean unsubscribe(Long jobId);
+    RunQueueJob enqueueCoalescing(TestRequest request, String coalesceKey);
+    long getCoalescedCount();
+    Optional<RunQueueJob> claimNext(String nodeId, Collection<String> browsers);
+    void markFinished(Long jobId, String nodeId, Long testRunId, boolean passed);
+    void markFailed(Long jobId, String nodeId, String error);
+    boolean markCancelled(Long jobId);
+    void linkTestRun(Long jobId, Long testRunId);
+    boolean cancelQueued(Long jobId);
+    boolean requestCancel(Long jobId);
+    List<Long> findCancelRequested(String nodeId);
+    void renewLeases(Collection<Long> jobIds, String nodeId);
+    int reclaimExpired();
+    Optional<RunQueueJob> findJob(Long jobId);
+    void lockAdmission();
+    long countQueued();
+    long countQueuedBy(String submittedBy);
+    long countRunning();
+    Map<String, Long> countQueuedPerBrowser();
+    Map<String, Long> countRunningPerBrowser();
+    long getQueuePosition(Long jobId);
+    List<QueuedRun> getQueueOrder(int limit);
+    String getSchedulerName();
+    List<RunQueueJob> findBatchJobs(Long batchId);
+    TestRequest readRequest(RunQueueJob job);
+}
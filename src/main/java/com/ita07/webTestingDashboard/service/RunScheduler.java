@@ -0,0 +1,21 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Strategy deciding which queued run starts next. The candidates are the oldest queued run of every
+ * submitter and priority class, so runs of one submitter and class always start in submission order.
+ */
+public interface RunScheduler {
+    String getName();
+
+    /**
+     * Orders the candidates, the run that should start next first.
+     * @param runningBySubmitter Runs currently executing anywhere in the cluster, per submitter.
+     */
+    List<QueuedRun> rank(List<QueuedRun> candidates, Map<String, Long> runningBySubmitter, LocalDateTime now);
+}
@@ -0,0 +1,13 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.ActionResult;
+import com.ita07.webTestingDashboard.model.RunStatistics;
+import com.ita07.webTestingDashboard.model.TestRun;
+
+import java.util.List;
+
+public interface RunStatisticsService {
+    TestRun saveTestRun(TestRun testRun, List<ActionResult> results);
+    RunStatistics getStatistics();
+    void backfill();
+}
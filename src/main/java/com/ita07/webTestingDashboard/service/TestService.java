@@ -1,11 +1,17 @@
 package com.ita07.webTestingDashboard.service;
 
 import java.util.List;
+import java.util.Optional;
 import com.ita07.webTestingDashboard.model.ActionResult;
+import com.ita07.webTestingDashboard.model.RunHandle;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
 import com.ita07.webTestingDashboard.model.TestRequest;
 
 public interface TestService {
     List<ActionResult> executeActions(TestRequest request);
+    RunHandle startActions(TestRequest request);
     boolean cancelTestRun(long testRunId);
-    int submitTestAsync(TestRequest request);
+    long submitTestAsync(TestRequest request);
+    void dispatchQueuedRuns();
+    Optional<List<ActionResult>> findPersistedResults(RunQueueJob job);
 }
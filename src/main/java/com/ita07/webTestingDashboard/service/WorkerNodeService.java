@@ -0,0 +1,18 @@
+package com.ita07.webTestingDashboard.service;
+
+import com.ita07.webTestingDashboard.model.WorkerNode;
+
+import java.util.List;
+import java.util.Map;
+
+public interface WorkerNodeService {
+    void register();
+    void heartbeat();
+    void deregister();
+    List<WorkerNode> getLiveNodes();
+    Map<String, Integer> getCapacity();
+    int getClusterSlots();
+    int getClusterSlots(String browser);
+    List<String> getSupportedBrowsers();
+    boolean isExecutionEnabled();
+}
@@ -0,0 +1,164 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ita07.webTestingDashboard.model.ActionResult;
+import com.ita07.webTestingDashboard.model.ActionResultRecord;
+import com.ita07.webTestingDashboard.model.RunStatistics;
+import com.ita07.webTestingDashboard.model.TestRun;
+import com.ita07.webTestingDashboard.repository.ActionResultRecordRepository;
+import com.ita07.webTestingDashboard.repository.ActionResultRecordRepository.ActionTypeStats;
+import com.ita07.webTestingDashboard.repository.ActionResultRecordRepository.FailureCount;
+import com.ita07.webTestingDashboard.repository.RunStatisticsRepository;
+import com.ita07.webTestingDashboard.service.ActionResultService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ActionResultServiceImpl implements ActionResultService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActionResultServiceImpl.class);
+
+    @Autowired
+    private ActionResultRecordRepository actionResultRecordRepository;
+
+    @Autowired
+    private RunStatisticsRepository runStatisticsRepository;
+
+    // Number of test runs copied per backfill statement (and transaction)
+    @Value("${action-results.backfill.batch-size:1000}")
+    private int backfillBatchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Writes one row per action result; called inside the transaction that saves the test run.
+     */
+    @Override
+    public void saveResults(TestRun testRun, List<ActionResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> actions = readActions(testRun);
+        List<ActionResultRecord> records = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ActionResult result = results.get(i);
+            ActionResultRecord record = new ActionResultRecord();
+            record.setTestRun(testRun);
+            record.setOrdinal(i);
+            record.setActionType(lower(result.getAction()));
+            record.setStatus(lower(result.getStatus()));
+            record.setDurationMillis(result.getExecutionTimeMillis());
+            record.setLocator(i < actions.size() ? locatorOf(actions.get(i)) : null);
+            record.setMessageSignature(signatureOf(result.getMessage()));
+            record.setExecutedAt(testRun.getExecutedAt());
+            records.add(record);
+        }
+        actionResultRecordRepository.saveAll(records);
+    }
+
+    @Override
+    public List<ActionTypeStats> getActionTypeStats() {
+        return actionResultRecordRepository.findActionTypeStats();
+    }
+
+    @Override
+    public List<FailureCount> getMostFailingLocators(int limit) {
+        return actionResultRecordRepository.findMostFailingLocators(PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<FailureCount> getMostCommonFailures(int limit) {
+        return actionResultRecordRepository.findMostCommonFailures(PageRequest.of(0, limit));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        // Large histories take a while to copy, so do not hold up startup
+        Thread thread = new Thread(this::backfill, "action-result-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Copies results of runs saved before the action_result table existed. Idempotent: runs that already have
+     * rows are skipped, so it resumes where it stopped. Finding where to resume scans every test run, so once
+     * everything is copied a marker on the statistics row is set and later starts skip the backfill entirely.
+     */
+    @Override
+    public void backfill() {
+        try {
+            if (runStatisticsRepository.findById(RunStatistics.SINGLETON_ID)
+                    .map(RunStatistics::getActionResultsBackfilledAt).isPresent()) {
+                return;
+            }
+            Long fromId = actionResultRecordRepository.findFirstRunWithoutRecords();
+            if (fromId == null) {
+                markBackfilled();
+                return;
+            }
+            logger.info("Backfilling action results starting at test run {}", fromId);
+            long start = System.currentTimeMillis();
+            long inserted = 0;
+            Long toId;
+            while ((toId = actionResultRecordRepository.findBatchEnd(fromId, backfillBatchSize)) != null) {
+                inserted += actionResultRecordRepository.backfillRange(fromId, toId);
+                fromId = toId + 1;
+            }
+            logger.info("Backfilled {} action results in {} ms", inserted, System.currentTimeMillis() - start);
+            markBackfilled();
+        } catch (Exception e) {
+            logger.error("Action result backfill failed, it resumes on the next start: {}", e.getMessage(), e);
+        }
+    }
+
+    // Runs saved from now on get their rows in the same transaction, so the backfill never has to run again
+    private void markBackfilled() {
+        if (runStatisticsRepository.markActionResultsBackfilled(LocalDateTime.now()) > 0) {
+            logger.info("Action result backfill complete, it is skipped on later starts");
+        }
+    }
+
+    private List<Map<String, Object>> readActions(TestRun testRun) {
+        try {
+            return objectMapper.readValue(testRun.getActionsJson(), new TypeReference<>() {});
+        } catch (Exception e) {
+            logger.warn("Could not read actions of test run {}: {}", testRun.getId(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    // Same format as the backfill: "type:value" of the locator, or of the source locator for drag and drop
+    private String locatorOf(Map<String, Object> action) {
+        Object locator = action.get("locator") != null ? action.get("locator") : action.get("sourceLocator");
+        if (!(locator instanceof Map<?, ?> map) || map.get("type") == null || map.get("value") == null) {
+            return null;
+        }
+        String text = map.get("type") + ":" + map.get("value");
+        return text.length() > 500 ? text.substring(0, 500) : text;
+    }
+
+    // Must stay in sync with the regexp_replace calls in ActionResultRecordRepository.backfillRange
+    private String signatureOf(String message) {
+        if (message == null) {
+            return null;
+        }
+        String signature = message.replaceAll("\\d+", "#").replaceAll("\\s+", " ").trim();
+        return signature.length() > 255 ? signature.substring(0, 255) : signature;
+    }
+
+    private String lower(String value) {
+        return value != null ? value.toLowerCase() : null;
+    }
+}
@@ -0,0 +1,303 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.config.EnvConfigService;
+import com.ita07.webTestingDashboard.config.NodeIdentity;
+import com.ita07.webTestingDashboard.model.ConcurrencyAdjustment;
+import com.ita07.webTestingDashboard.repository.ConcurrencyAdjustmentRepository;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.AdaptiveConcurrencyService;
+import com.ita07.webTestingDashboard.service.RunQueueService;
+import com.ita07.webTestingDashboard.service.WorkerNodeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tunes the concurrency of every browser pool from the load of this node, AIMD style: a pool whose slots
+ * are all busy while runs wait grows by one slot per sample, and all busy pools are cut by a factor when
+ * CPU load or available memory cross their thresholds or when actions run markedly slower than usual.
+ * Enabled with {@code parallel.tests.auto} in env.properties, within {@code parallel.tests.auto.min}
+ * and {@code parallel.tests.auto.max}.
+ */
+@Service
+public class AdaptiveConcurrencyServiceImpl implements AdaptiveConcurrencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyServiceImpl.class);
+    // An action type needs this many samples before its latency counts towards the inflation
+    private static final int MIN_BASELINE_SAMPLES = 20;
+    // Weight of a sample interval's mean latency when it is folded into the baseline
+    private static final double BASELINE_WEIGHT = 0.1;
+    // Actions that take as long as the step configures, e.g. a wait of 30 s; their latency says nothing about load
+    private static final Set<String> FIXED_DURATION_ACTIONS = Set.of("wait");
+
+    @Autowired
+    private EnvConfigService envConfigService;
+    @Autowired
+    private RunQueueService runQueueService;
+    @Autowired
+    private WorkerNodeService workerNodeService;
+    @Autowired
+    private NodeIdentity nodeIdentity;
+    @Autowired
+    private ConcurrencyAdjustmentRepository concurrencyAdjustmentRepository;
+
+    @Value("${run.concurrency.cpu-high:0.85}")
+    private double cpuHigh;
+
+    @Value("${run.concurrency.min-available-memory-mb:1024}")
+    private long minAvailableMemoryMb;
+
+    @Value("${run.concurrency.latency-inflation-high:1.5}")
+    private double latencyInflationHigh;
+
+    @Value("${run.concurrency.decrease-factor:0.75}")
+    private double decreaseFactor;
+
+    // Runs started at the old concurrency keep the load up for a while, so a pool is not cut again right away
+    @Value("${run.concurrency.decrease-cooldown-seconds:60}")
+    private long decreaseCooldownSeconds;
+
+    private final Map<String, Map<String, LatencyStats>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LocalDateTime> lastDecreases = new ConcurrentHashMap<>();
+
+    private static class LatencyStats {
+        private double baselineMillis;
+        private long baselineSamples;
+        private long recentMillis;
+        private long recentSamples;
+    }
+
+    private record Sample(double cpuLoad, long availableMemoryMb) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return Boolean.parseBoolean(envConfigService.getProperty("parallel.tests.auto", "false"));
+    }
+
+    @Override
+    public int getMinParallelTests() {
+        return Math.max(1, Integer.parseInt(envConfigService.getProperty("parallel.tests.auto.min", "1")));
+    }
+
+    @Override
+    public int getMaxParallelTests() {
+        return Math.max(getMinParallelTests(), Integer.parseInt(envConfigService.getProperty("parallel.tests.auto.max", "8")));
+    }
+
+    @Override
+    public void recordActionLatency(String browser, String actionType, long millis) {
+        if (actionType == null || FIXED_DURATION_ACTIONS.contains(actionType.toLowerCase())) {
+            return;
+        }
+        LatencyStats stats = latencies.computeIfAbsent(browser, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(actionType, key -> new LatencyStats());
+        synchronized (stats) {
+            stats.recentMillis += millis;
+            stats.recentSamples++;
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${run.concurrency.sample-interval-ms:15000}")
+    public void adjust() {
+        if (!isEnabled() || !workerNodeService.isExecutionEnabled()) {
+            return;
+        }
+        try {
+            Sample sample = sample();
+            Map<String, Long> queuedPerBrowser = runQueueService.countQueuedPerBrowser();
+            int min = getMinParallelTests();
+            int max = getMaxParallelTests();
+            for (String browser : workerNodeService.getSupportedBrowsers()) {
+                int current = TestServiceImpl.getMaxParallelTests(browser);
+                if (current <= 0) {
+                    continue;
+                }
+                int active = TestServiceImpl.getActiveRunCount(browser);
+                long queued = queuedPerBrowser.getOrDefault(browser, 0L);
+                Double inflation = latencyInflation(browser);
+
+                int next = current;
+                String reason = null;
+                if (current < min || current > max) {
+                    next = Math.min(max, Math.max(min, current));
+                    reason = "Concurrency outside the configured bounds " + min + "-" + max;
+                } else if (active > 0 && isOverloaded(sample, inflation) && !isCoolingDown(browser)) {
+                    next = Math.max(min, (int) Math.floor(current * decreaseFactor));
+                    reason = overloadReason(sample, inflation);
+                } else if (active >= current && queued > 0 && !isOverloaded(sample, inflation)) {
+                    next = Math.min(max, current + 1);
+                    reason = "All " + current + " slots busy with " + queued + " runs waiting and load within limits";
+                }
+                if (next != current) {
+                    apply(browser, current, next, reason, sample, inflation, active, queued);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to adjust concurrency: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void clampToBounds() {
+        int min = getMinParallelTests();
+        int max = getMaxParallelTests();
+        Sample sample = sample();
+        for (String browser : SeleniumUtils.SUPPORTED_BROWSERS) {
+            int current = TestServiceImpl.getMaxParallelTests(browser);
+            int next = Math.min(max, Math.max(min, current));
+            if (current > 0 && next != current) {
+                apply(browser, current, next, "Concurrency outside the configured bounds " + min + "-" + max,
+                        sample, null, TestServiceImpl.getActiveRunCount(browser), 0);
+            }
+        }
+    }
+
+    @Override
+    public List<ConcurrencyAdjustment> getHistory(int limit) {
+        return concurrencyAdjustmentRepository.findAllByOrderByAdjustedAtDesc(PageRequest.of(0, limit));
+    }
+
+    private void apply(String browser, int current, int next, String reason, Sample sample, Double inflation,
+                       int active, long queued) {
+        TestServiceImpl.setMaxParallelTests(browser, next);
+        if (next < current) {
+            lastDecreases.put(browser, LocalDateTime.now());
+        }
+        logger.info("Adjusted {} concurrency from {} to {}: {}", browser, current, next, reason);
+
+        ConcurrencyAdjustment adjustment = new ConcurrencyAdjustment();
+        adjustment.setNodeId(nodeIdentity.getNodeId());
+        adjustment.setBrowser(browser);
+        adjustment.setPreviousLimit(current);
+        adjustment.setNewLimit(next);
+        adjustment.setReason(reason);
+        adjustment.setCpuLoad(sample.cpuLoad());
+        adjustment.setAvailableMemoryMb(sample.availableMemoryMb());
+        adjustment.setLatencyInflation(inflation);
+        adjustment.setActiveRuns(active);
+        adjustment.setQueuedRuns(queued);
+        adjustment.setAdjustedAt(LocalDateTime.now());
+        try {
+            concurrencyAdjustmentRepository.save(adjustment);
+        } catch (Exception e) {
+            logger.warn("Failed to record concurrency adjustment of {}: {}", browser, e.getMessage());
+        }
+    }
+
+    private boolean isOverloaded(Sample sample, Double inflation) {
+        return sample.cpuLoad() > cpuHigh
+                || sample.availableMemoryMb() >= 0 && sample.availableMemoryMb() < minAvailableMemoryMb
+                || inflation != null && inflation > latencyInflationHigh;
+    }
+
+    private String overloadReason(Sample sample, Double inflation) {
+        if (sample.cpuLoad() > cpuHigh) {
+            return String.format("CPU load %.2f above %.2f", sample.cpuLoad(), cpuHigh);
+        }
+        if (sample.availableMemoryMb() >= 0 && sample.availableMemoryMb() < minAvailableMemoryMb) {
+            return "Available memory " + sample.availableMemoryMb() + " MB below " + minAvailableMemoryMb + " MB";
+        }
+        return String.format("Actions take %.2fx their usual time, above %.2fx", inflation, latencyInflationHigh);
+    }
+
+    private boolean isCoolingDown(String browser) {
+        LocalDateTime lastDecrease = lastDecreases.get(browser);
+        return lastDecrease != null && lastDecrease.plusSeconds(decreaseCooldownSeconds).isAfter(LocalDateTime.now());
+    }
+
+    /**
+     * Mean latency of the actions since the previous sample relative to each action type's baseline,
+     * or null without comparable samples. The interval is folded into the baselines afterwards unless
+     * it was inflated, so a sustained overload does not become the new normal.
+     */
+    private Double latencyInflation(String browser) {
+        Map<String, LatencyStats> byActionType = latencies.get(browser);
+        if (byActionType == null) {
+            return null;
+        }
+        double recentMillis = 0;
+        double expectedMillis = 0;
+        for (LatencyStats stats : byActionType.values()) {
+            synchronized (stats) {
+                if (stats.recentSamples > 0 && stats.baselineSamples >= MIN_BASELINE_SAMPLES && stats.baselineMillis > 0) {
+                    recentMillis += stats.recentMillis;
+                    expectedMillis += stats.recentSamples * stats.baselineMillis;
+                }
+            }
+        }
+        Double inflation = expectedMillis > 0 ? recentMillis / expectedMillis : null;
+        boolean inflated = inflation != null && inflation > latencyInflationHigh;
+        for (LatencyStats stats : byActionType.values()) {
+            synchronized (stats) {
+                if (stats.recentSamples == 0) {
+                    continue;
+                }
+                double mean = (double) stats.recentMillis / stats.recentSamples;
+                if (stats.baselineSamples < MIN_BASELINE_SAMPLES) {
+                    // Plain average until the baseline is established
+                    stats.baselineMillis = (stats.baselineMillis * stats.baselineSamples + stats.recentMillis)
+                            / (stats.baselineSamples + stats.recentSamples);
+                    stats.baselineSamples += stats.recentSamples;
+                } else if (!inflated) {
+                    stats.baselineMillis += BASELINE_WEIGHT * (mean - stats.baselineMillis);
+                    stats.baselineSamples += stats.recentSamples;
+                }
+                stats.recentMillis = 0;
+                stats.recentSamples = 0;
+            }
+        }
+        return inflation;
+    }
+
+    private Sample sample() {
+        double cpuLoad = -1;
+        long availableMemoryMb = -1;
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean bean) {
+            cpuLoad = bean.getCpuLoad();
+            availableMemoryMb = bean.getFreeMemorySize() / (1024 * 1024);
+        } else if (os.getSystemLoadAverage() >= 0) {
+            cpuLoad = os.getSystemLoadAverage() / os.getAvailableProcessors();
+        }
+        // Free memory leaves out the page cache the kernel gives back on demand, MemAvailable counts it
+        long memAvailable = readMemAvailableMb();
+        if (memAvailable >= 0) {
+            availableMemoryMb = memAvailable;
+        }
+        return new Sample(cpuLoad, availableMemoryMb);
+    }
+
+    private long readMemAvailableMb() {
+        Path meminfo = Path.of("/proc/meminfo");
+        if (!Files.isReadable(meminfo)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(meminfo)) {
+                if (line.startsWith("MemAvailable:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) / 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("Could not read available memory: {}", e.getMessage());
+        }
+        return -1;
+    }
+}
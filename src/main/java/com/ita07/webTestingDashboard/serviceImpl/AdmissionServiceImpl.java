@@ -0,0 +1,142 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.config.EnvConfigService;
+import com.ita07.webTestingDashboard.exception.AdmissionRejectedException;
+import com.ita07.webTestingDashboard.exception.ValidationException;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.model.RunStatistics;
+import com.ita07.webTestingDashboard.service.AdmissionService;
+import com.ita07.webTestingDashboard.service.RunQueueService;
+import com.ita07.webTestingDashboard.service.RunStatisticsService;
+import com.ita07.webTestingDashboard.service.WorkerNodeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Decides whether submitted runs are accepted into the run queue. Rejected submissions get a Retry-After
+ * estimated from the queue depth, the cluster's slots and the average run time, so clients back off
+ * instead of retrying into an overloaded queue. Callers admit and enqueue in one transaction; the admission
+ * lock is held until it commits, so concurrent submissions on any node cannot overshoot the limits.
+ */
+@Service
+public class AdmissionServiceImpl implements AdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionServiceImpl.class);
+
+    @Autowired
+    private RunQueueService runQueueService;
+    @Autowired
+    private WorkerNodeService workerNodeService;
+    @Autowired
+    private RunStatisticsService runStatisticsService;
+    @Autowired
+    private EnvConfigService envConfigService;
+
+    @Value("${run.admission.max-queued:1000}")
+    private int maxQueued;
+
+    @Value("${run.admission.max-queued-per-client:200}")
+    private int maxQueuedPerClient;
+
+    // Batch priority runs are rejected once this many runs are queued, 0 disables shedding
+    @Value("${run.admission.shed-batch-above:0}")
+    private int shedBatchAbove;
+
+    @Value("${run.admission.default-run-seconds:30}")
+    private long defaultRunSeconds;
+
+    @Override
+    @Transactional
+    public void admit(String clientId, RunPriority priority, Map<String, Integer> runsByBrowser) {
+        int runs = runsByBrowser.values().stream().mapToInt(Integer::intValue).sum();
+        if (maxQueued > 0 && runs > maxQueued) {
+            // Would never fit, retrying does not help
+            throw new ValidationException("Submission of " + runs + " runs exceeds the queue limit, split it into smaller submissions.");
+        }
+        runQueueService.lockAdmission();
+        long queued = runQueueService.countQueued();
+        if (maxQueued > 0 && queued + runs > maxQueued) {
+            reject("The run queue is full (" + queued + " of " + maxQueued + " runs queued).", queued + runs - maxQueued);
+        }
+        if (shedBatchAbove > 0 && priority == RunPriority.BATCH && queued + runs > shedBatchAbove) {
+            reject("Batch runs are not accepted while more than " + shedBatchAbove + " runs are queued.", queued + runs - shedBatchAbove);
+        }
+        if (clientId != null && maxQueuedPerClient > 0) {
+            long clientQueued = runQueueService.countQueuedBy(clientId);
+            // A batch larger than the client limit (up to run.batch.max-runs) is admitted once the client's
+            // earlier runs have started, and then holds back the client's further submissions until it drains
+            boolean oversized = runs > maxQueuedPerClient;
+            if (oversized ? clientQueued > 0 : clientQueued + runs > maxQueuedPerClient) {
+                reject("Client '" + clientId + "' already has " + clientQueued + " runs queued (limit " + maxQueuedPerClient + ").",
+                        oversized ? clientQueued : clientQueued + runs - maxQueuedPerClient);
+            }
+        }
+        admitPerBrowser(runsByBrowser);
+    }
+
+    // Queue limits per browser are set on the settings page, a flood of one browser's runs only fills its own queue
+    private void admitPerBrowser(Map<String, Integer> runsByBrowser) {
+        Map<String, Long> queuedPerBrowser = null;
+        for (Map.Entry<String, Integer> entry : runsByBrowser.entrySet()) {
+            int limit = getMaxQueued(entry.getKey());
+            if (limit <= 0) {
+                continue;
+            }
+            if (entry.getValue() > limit) {
+                throw new ValidationException("Submission of " + entry.getValue() + " " + entry.getKey()
+                        + " runs exceeds the queue limit of that browser, split it into smaller submissions.");
+            }
+            if (queuedPerBrowser == null) {
+                queuedPerBrowser = runQueueService.countQueuedPerBrowser();
+            }
+            long queued = queuedPerBrowser.getOrDefault(entry.getKey(), 0L);
+            if (queued + entry.getValue() > limit) {
+                rejectAfter("The " + entry.getKey() + " run queue is full (" + queued + " of " + limit + " runs queued).",
+                        waitSeconds(queued + entry.getValue() - limit, workerNodeService.getClusterSlots(entry.getKey())));
+            }
+        }
+    }
+
+    @Override
+    public int getMaxQueued(String browser) {
+        return Integer.parseInt(envConfigService.getProperty("run.admission.max-queued." + browser, "0"));
+    }
+
+    /**
+     * Estimated time until the given number of queued runs has been started, assuming the queue drains
+     * in waves of the cluster's total slots.
+     */
+    @Override
+    public long estimateWaitSeconds(long runsAhead) {
+        return waitSeconds(runsAhead, workerNodeService.getClusterSlots());
+    }
+
+    private long waitSeconds(long runsAhead, int slots) {
+        long waves = (runsAhead + slots - 1) / slots;
+        return Math.max(1, waves * averageRunSeconds());
+    }
+
+    private void reject(String message, long excessRuns) {
+        rejectAfter(message, estimateWaitSeconds(excessRuns));
+    }
+
+    private void rejectAfter(String message, long retryAfter) {
+        logger.info("Rejected submission: {} Retry after {} s", message, retryAfter);
+        throw new AdmissionRejectedException(message, retryAfter);
+    }
+
+    private long averageRunSeconds() {
+        RunStatistics statistics = runStatisticsService.getStatistics();
+        // The total duration includes cancelled runs, they held a slot for as long as they ran
+        if (statistics.getTotalRuns() <= 0 || statistics.getTotalDurationMillis() <= 0) {
+            return defaultRunSeconds;
+        }
+        return Math.max(1, (statistics.getTotalDurationMillis() / statistics.getTotalRuns() + 999) / 1000);
+    }
+}
@@ -0,0 +1,171 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.selenium.pool.BrowserSession;
+import com.ita07.webTestingDashboard.selenium.pool.WebDriverPool;
+import com.ita07.webTestingDashboard.service.BrowserMemoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the resident memory of the browser process tree of every run executing on this node and
+ * keeps the recent peaks per browser type. A run is only dispatched when the memory projected for the
+ * runs already executing, the idle pooled sessions and the new run fits {@code browser.memory.budget-mb}.
+ */
+@Service
+public class BrowserMemoryServiceImpl implements BrowserMemoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrowserMemoryServiceImpl.class);
+    private static final long MB = 1024 * 1024;
+
+    @Autowired
+    private WebDriverPool webDriverPool;
+
+    // 0 disables the memory check, runs are then only limited by the executor pools
+    @Value("${browser.memory.budget-mb:0}")
+    private long budgetMb;
+
+    // Assumed for a browser until one of its sessions has been measured
+    @Value("${browser.memory.default-session-mb:512}")
+    private long defaultSessionMb;
+
+    // Number of recent run peaks per browser the estimate is taken from
+    @Value("${browser.memory.window:20}")
+    private int window;
+
+    private final Map<Long, TrackedRun> runs = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Long>> recentPeaks = new ConcurrentHashMap<>();
+
+    private static class TrackedRun {
+        private final String browser;
+        private volatile BrowserSession session;
+        private volatile long peakBytes = -1;
+
+        private TrackedRun(String browser) {
+            this.browser = browser;
+        }
+    }
+
+    @Override
+    public void reserve(long testRunId, String browser) {
+        runs.put(testRunId, new TrackedRun(browser));
+    }
+
+    @Override
+    public void attach(long testRunId, BrowserSession session) {
+        TrackedRun run = runs.get(testRunId);
+        if (run != null) {
+            run.session = session;
+            measure(run);
+        }
+    }
+
+    /**
+     * Stops tracking a run and returns the peak memory of its browser in bytes, -1 when it was never measured.
+     */
+    @Override
+    public long release(long testRunId) {
+        TrackedRun run = runs.remove(testRunId);
+        if (run == null) {
+            return -1;
+        }
+        measure(run);
+        if (run.peakBytes > 0) {
+            Deque<Long> peaks = recentPeaks.computeIfAbsent(run.browser, key -> new ArrayDeque<>());
+            synchronized (peaks) {
+                peaks.addLast(run.peakBytes);
+                while (peaks.size() > Math.max(1, window)) {
+                    peaks.removeFirst();
+                }
+            }
+            logger.debug("Test run {} peaked at {} MB of {} memory", testRunId, run.peakBytes / MB, run.browser);
+        }
+        return run.peakBytes;
+    }
+
+    @Scheduled(fixedDelayString = "${browser.memory.sample-interval-ms:2000}")
+    public void sample() {
+        runs.values().forEach(this::measure);
+    }
+
+    @Override
+    public boolean fits(String browser) {
+        if (budgetMb <= 0 || runs.isEmpty()) {
+            // A single run always starts, otherwise a budget below one session would stop all work
+            return true;
+        }
+        // A new run takes an idle pooled session if there is one, whose memory is already counted
+        Integer idle = webDriverPool.getIdleCounts().get(browser);
+        long projected = getProjectedBytes() + (idle != null && idle > 0 ? 0 : estimateSessionBytes(browser));
+        if (projected > getBudgetBytes()) {
+            logger.debug("Not starting a {} run: {} MB projected exceeds the memory budget of {} MB", browser, projected / MB, budgetMb);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 90th percentile of the recent run peaks of the browser, so one light run does not admit too many.
+     */
+    @Override
+    public long estimateSessionBytes(String browser) {
+        Deque<Long> peaks = recentPeaks.get(browser);
+        List<Long> sorted;
+        if (peaks == null) {
+            return defaultSessionMb * MB;
+        }
+        synchronized (peaks) {
+            sorted = new ArrayList<>(peaks);
+        }
+        if (sorted.isEmpty()) {
+            return defaultSessionMb * MB;
+        }
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(0.9 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    @Override
+    public long getBudgetBytes() {
+        return budgetMb * MB;
+    }
+
+    // Executing runs count with their estimate until they grow beyond it, idle pooled sessions with the estimate
+    @Override
+    public long getProjectedBytes() {
+        long projected = 0;
+        for (TrackedRun run : runs.values()) {
+            projected += Math.max(run.peakBytes, estimateSessionBytes(run.browser));
+        }
+        for (Map.Entry<String, Integer> idle : webDriverPool.getIdleCounts().entrySet()) {
+            projected += idle.getValue() * estimateSessionBytes(idle.getKey());
+        }
+        return projected;
+    }
+
+    private void measure(TrackedRun run) {
+        BrowserSession session = run.session;
+        if (session == null) {
+            return;
+        }
+        try {
+            long bytes = session.measureRssBytes();
+            if (bytes > run.peakBytes) {
+                run.peakBytes = bytes;
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to measure {} session memory: {}", run.browser, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.service.RunScheduler;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted fair sharing across submitters: the next run goes to the submitter using the smallest share of
+ * slots relative to its weight (priority class weight times the configured client weight). While a run
+ * waits its class weight doubles every aging interval, up to the interactive weight, so batch work
+ * cannot starve behind a steady stream of higher priority runs.
+ */
+@Component
+public class FairShareRunScheduler implements RunScheduler {
+
+    @Value("${run.scheduler.aging-seconds:300}")
+    private long agingSeconds;
+
+    // Optional per-client weights, e.g. "release-pipeline=4,nightly=1"; unlisted clients weigh 1
+    @Value("${run.scheduler.client-weights:}")
+    private String clientWeightsProperty;
+
+    private final Map<String, Double> clientWeights = new HashMap<>();
+
+    @PostConstruct
+    public void parseClientWeights() {
+        for (String entry : clientWeightsProperty.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                clientWeights.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "fair-share";
+    }
+
+    @Override
+    public List<QueuedRun> rank(List<QueuedRun> candidates, Map<String, Long> runningBySubmitter, LocalDateTime now) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (QueuedRun run : candidates) {
+            double running = runningBySubmitter.getOrDefault(run.submittedBy(), 0L);
+            scores.put(run.id(), (running + 1) / (effectiveWeight(run, now) * clientWeight(run.submittedBy())));
+        }
+        return candidates.stream()
+                .sorted(Comparator.comparing((QueuedRun run) -> scores.get(run.id())).thenComparing(QueuedRun::id))
+                .toList();
+    }
+
+    private double effectiveWeight(QueuedRun run, LocalDateTime now) {
+        RunPriority priority = run.priority() != null ? run.priority() : RunPriority.CI;
+        double waited = run.createdAt() != null ? Duration.between(run.createdAt(), now).toSeconds() : 0;
+        double aged = priority.getWeight() * Math.pow(2, agingSeconds > 0 ? waited / agingSeconds : 0);
+        return Math.min(aged, RunPriority.INTERACTIVE.getWeight());
+    }
+
+    private double clientWeight(String submittedBy) {
+        return submittedBy != null ? clientWeights.getOrDefault(submittedBy, 1.0) : 1.0;
+    }
+}
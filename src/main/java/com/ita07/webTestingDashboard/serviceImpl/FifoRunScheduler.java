@@ -0,0 +1,27 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.service.RunScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts runs strictly in submission order, regardless of priority and submitter.
+ */
+@Component
+public class FifoRunScheduler implements RunScheduler {
+
+    @Override
+    public String getName() {
+        return "fifo";
+    }
+
+    @Override
+    public List<QueuedRun> rank(List<QueuedRun> candidates, Map<String, Long> runningBySubmitter, LocalDateTime now) {
+        return candidates.stream().sorted(Comparator.comparing(QueuedRun::id)).toList();
+    }
+}
@@ -0,0 +1,407 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ita07.webTestingDashboard.exception.ValidationException;
+import com.ita07.webTestingDashboard.model.*;
+import com.ita07.webTestingDashboard.repository.ActionResultRecordRepository;
+import com.ita07.webTestingDashboard.repository.RunBatchRepository;
+import com.ita07.webTestingDashboard.selenium.plan.ExecutionPlan;
+import com.ita07.webTestingDashboard.selenium.plan.ExecutionPlanCompiler;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.AdmissionService;
+import com.ita07.webTestingDashboard.service.RunBatchService;
+import com.ita07.webTestingDashboard.service.RunQueueService;
+import com.ita07.webTestingDashboard.service.TestDataService;
+import com.ita07.webTestingDashboard.service.TestService;
+import com.ita07.webTestingDashboard.service.TestSuiteService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class RunBatchServiceImpl implements RunBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunBatchServiceImpl.class);
+
+    @Autowired
+    private RunBatchRepository runBatchRepository;
+    @Autowired
+    private RunQueueService runQueueService;
+    @Autowired
+    private TestSuiteService testSuiteService;
+    @Autowired
+    private TestDataService testDataService;
+    @Autowired
+    private ExecutionPlanCompiler executionPlanCompiler;
+    @Autowired
+    private ActionResultRecordRepository actionResultRecordRepository;
+    @Autowired
+    private AdmissionService admissionService;
+    @Autowired
+    private TestService testService;
+
+    @Value("${run.batch.max-runs:1000}")
+    private int maxRuns;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Queues one child run per data row. Rows are parsed once here and travel with their child run, and all
+     * children share the compiled plan of the suite; only its templated steps are bound per row.
+     */
+    @Override
+    @Transactional
+    public RunBatch submitDataDriven(DataDrivenRunRequest request) {
+        if (request == null || request.getSuiteId() == null) {
+            throw new ValidationException("'suiteId' is required for a data-driven run.");
+        }
+        TestSuite suite = testSuiteService.getTestSuite(request.getSuiteId());
+        ExecutionPlan plan = executionPlanCompiler.compileSuite(suite);
+
+        Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+        if (request.getTestDataIds() != null) {
+            for (Long testDataId : request.getTestDataIds()) {
+                TestData testData = testDataService.getTestData(testDataId);
+                String label = "TestData " + testDataId + (testData.getName() != null ? " (" + testData.getName() + ")" : "");
+                try {
+                    rows.put(label, objectMapper.readValue(testData.getDataJson(), new TypeReference<>() {}));
+                } catch (Exception e) {
+                    throw new ValidationException("dataJson of test data " + testDataId + " is not valid JSON: " + e.getMessage());
+                }
+            }
+        }
+        if (request.getRows() != null) {
+            for (int i = 0; i < request.getRows().size(); i++) {
+                rows.put("Row " + (i + 1), request.getRows().get(i));
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new ValidationException("A data-driven run needs at least one entry in 'testDataIds' or 'rows'.");
+        }
+
+        Map<String, TestRequest> children = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> row : rows.entrySet()) {
+            try {
+                // Fails fast on rows that miss a variable used by the suite
+                executionPlanCompiler.bind(plan, row.getValue());
+            } catch (ValidationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new ValidationException(row.getKey() + ": " + e.getMessage());
+            }
+            TestRequest child = suiteRequest(suite, plan, request.getBrowser(), request.isStopOnFailure());
+            child.setPriority(request.getPriority());
+            child.setSubmittedBy(request.getSubmittedBy());
+            child.setVariables(row.getValue());
+            children.put(row.getKey(), child);
+        }
+        executionPlanCompiler.compile(children.values().iterator().next());
+        return createBatch("data", suite.getId(), children, request.getSubmittedBy(), request.getPriority());
+    }
+
+    /**
+     * Queues one leg per browser and window size. The legs are ordinary queued runs, so they execute
+     * concurrently within the concurrency limit of every node that supports their browser.
+     */
+    @Override
+    @Transactional
+    public RunBatch submitMatrix(MatrixRunRequest request) {
+        if (request == null || request.getSuiteId() == null) {
+            throw new ValidationException("'suiteId' is required for a matrix run.");
+        }
+        if (request.getBrowsers() == null || request.getBrowsers().isEmpty()) {
+            throw new ValidationException("'browsers' must list at least one browser for a matrix run.");
+        }
+        TestSuite suite = testSuiteService.getTestSuite(request.getSuiteId());
+        ExecutionPlan plan = executionPlanCompiler.compileSuite(suite);
+        List<String> windowSizes = request.getWindowSizes() == null || request.getWindowSizes().isEmpty()
+                ? Collections.singletonList(null) : request.getWindowSizes();
+
+        Map<String, TestRequest> legs = new LinkedHashMap<>();
+        for (String browser : request.getBrowsers()) {
+            for (String windowSize : windowSizes) {
+                TestRequest leg = suiteRequest(suite, plan, browser.toLowerCase(), request.isStopOnFailure());
+                leg.setWindowSize(windowSize);
+                leg.setTestDataId(request.getTestDataId());
+                leg.setPriority(request.getPriority());
+                leg.setSubmittedBy(request.getSubmittedBy());
+                // Rejects unknown browsers and malformed window sizes, the plan itself comes from the cache
+                executionPlanCompiler.compile(leg);
+                legs.put(windowSize == null ? leg.getBrowser() : leg.getBrowser() + " " + windowSize, leg);
+            }
+        }
+        return createBatch("matrix", suite.getId(), legs, request.getSubmittedBy(), request.getPriority());
+    }
+
+    /**
+     * Queues many independent runs, inline requests and suites, as one batch. Every run is validated before
+     * anything is queued and all of them are queued in one transaction, so a CI pipeline gets either the whole
+     * batch or an error naming the offending entry.
+     */
+    @Override
+    @Transactional
+    public RunBatch submitBulk(BulkRunRequest request) {
+        if (request == null || (isEmpty(request.getRequests()) && isEmpty(request.getSuiteIds()))) {
+            throw new ValidationException("A bulk submission needs at least one entry in 'requests' or 'suiteIds'.");
+        }
+        Map<String, TestRequest> children = new LinkedHashMap<>();
+        if (request.getRequests() != null) {
+            for (int i = 0; i < request.getRequests().size(); i++) {
+                TestRequest child = request.getRequests().get(i);
+                if (child == null) {
+                    throw new ValidationException("requests[" + i + "] is empty.");
+                }
+                if (child.getBrowser() == null) {
+                    child.setBrowser(request.getBrowser());
+                }
+                addBulkChild(children, "requests[" + i + "]", child, request);
+            }
+        }
+        if (request.getSuiteIds() != null) {
+            for (int i = 0; i < request.getSuiteIds().size(); i++) {
+                Long suiteId = request.getSuiteIds().get(i);
+                String label = "suiteIds[" + i + "] suite " + suiteId;
+                TestSuite suite;
+                ExecutionPlan plan;
+                try {
+                    suite = testSuiteService.getTestSuite(suiteId);
+                    plan = executionPlanCompiler.compileSuite(suite);
+                } catch (RuntimeException e) {
+                    // Unknown suite or one whose actions no longer compile
+                    throw new ValidationException(label + ": " + e.getMessage());
+                }
+                addBulkChild(children, label, suiteRequest(suite, plan, request.getBrowser(), request.isStopOnFailure()), request);
+            }
+        }
+        return createBatch("bulk", null, children, request.getSubmittedBy(), request.getPriority());
+    }
+
+    private void addBulkChild(Map<String, TestRequest> children, String label, TestRequest child, BulkRunRequest request) {
+        if (child.getWindowSize() == null) {
+            child.setWindowSize(request.getWindowSize());
+        }
+        if (child.getRunDeadlineSeconds() == null) {
+            child.setRunDeadlineSeconds(request.getRunDeadlineSeconds());
+        }
+        if (child.getActionDeadlineSeconds() == null) {
+            child.setActionDeadlineSeconds(request.getActionDeadlineSeconds());
+        }
+        if (child.getPriority() == null) {
+            child.setPriority(request.getPriority());
+        }
+        child.setSubmittedBy(request.getSubmittedBy());
+        try {
+            executionPlanCompiler.compile(child);
+        } catch (ValidationException e) {
+            throw new ValidationException(label + ": " + e.getMessage());
+        }
+        children.put(label, child);
+    }
+
+    @Override
+    public List<Long> getRunIds(Long batchId) {
+        return runQueueService.findBatchJobs(batchId).stream().map(RunQueueJob::getId).toList();
+    }
+
+    /**
+     * Cancels every child run that has not ended yet, queued ones as well as running ones on any node.
+     */
+    @Override
+    public int cancelBatch(Long batchId) {
+        int cancelled = 0;
+        for (RunQueueJob job : runQueueService.findBatchJobs(batchId)) {
+            if (("queued".equals(job.getStatus()) || "running".equals(job.getStatus())) && testService.cancelTestRun(job.getId())) {
+                cancelled++;
+            }
+        }
+        logger.info("Cancelled {} runs of batch {}", cancelled, batchId);
+        return cancelled;
+    }
+
+    private boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+
+    private TestRequest suiteRequest(TestSuite suite, ExecutionPlan plan, String browser, boolean stopOnFailure) {
+        TestRequest request = new TestRequest();
+        request.setBrowser(browser != null ? browser : plan.getDefaultBrowser());
+        request.setActions(plan.getActions());
+        request.setStopOnFailure(stopOnFailure);
+        request.setSuiteId(suite.getId());
+        request.setSuiteVersion(ExecutionPlanCompiler.versionOf(suite));
+        request.setRunDeadlineSeconds(suite.getRunDeadlineSeconds());
+        request.setActionDeadlineSeconds(suite.getActionDeadlineSeconds());
+        return request;
+    }
+
+    private RunBatch createBatch(String kind, Long suiteId, Map<String, TestRequest> children,
+                                 String submittedBy, RunPriority priority) {
+        if (children.size() > maxRuns) {
+            throw new ValidationException("A batch is limited to " + maxRuns + " runs, " + children.size() + " were requested.");
+        }
+        // The whole batch is admitted or rejected, a partially queued batch would be misleading. Callers are
+        // transactional, so the admission lock is held until the batch's runs are committed
+        Map<String, Integer> runsByBrowser = new HashMap<>();
+        children.values().forEach(child -> runsByBrowser.merge(SeleniumUtils.normalizeBrowser(child.getBrowser()), 1, Integer::sum));
+        admissionService.admit(submittedBy, priority != null ? priority : RunPriority.BATCH, runsByBrowser);
+        RunBatch batch = new RunBatch();
+        batch.setKind(kind);
+        batch.setSuiteId(suiteId);
+        batch.setTotalRuns(children.size());
+        batch.setCreatedAt(LocalDateTime.now());
+        runBatchRepository.save(batch);
+        children.forEach((label, child) -> runQueueService.enqueue(child, batch.getId(), label));
+        logger.info("Queued {} batch {} of suite {} with {} runs", kind, batch.getId(), suiteId, children.size());
+        return batch;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> getBatchReport(Long batchId) {
+        return runBatchRepository.findById(batchId).map(batch -> buildReport(batch, runQueueService.findBatchJobs(batchId)));
+    }
+
+    private Map<String, Object> buildReport(RunBatch batch, List<RunQueueJob> jobs) {
+        Map<String, Long> statusCounts = new HashMap<>();
+        int passed = 0;
+        int failed = 0;
+        List<Long> durations = new ArrayList<>();
+        LocalDateTime lastFinishedAt = null;
+        List<Map<String, Object>> runs = new ArrayList<>(jobs.size());
+        for (RunQueueJob job : jobs) {
+            statusCounts.merge(job.getStatus(), 1L, Long::sum);
+            if ("finished".equals(job.getStatus())) {
+                if (Boolean.TRUE.equals(job.getPassed())) {
+                    passed++;
+                } else {
+                    failed++;
+                }
+            } else if ("failed".equals(job.getStatus())) {
+                failed++;
+            }
+            if (job.getDurationMillis() != null && !"cancelled".equals(job.getStatus())) {
+                durations.add(job.getDurationMillis());
+            }
+            if (job.getFinishedAt() != null && (lastFinishedAt == null || job.getFinishedAt().isAfter(lastFinishedAt))) {
+                lastFinishedAt = job.getFinishedAt();
+            }
+
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("testRunId", job.getId());
+            run.put("label", job.getBatchLabel());
+            run.put("browser", job.getBrowser());
+            run.put("status", job.getStatus());
+            run.put("passed", job.getPassed());
+            run.put("durationMillis", job.getDurationMillis());
+            run.put("reportTestRunId", job.getTestRunId());
+            run.put("error", job.getLastError());
+            runs.add(run);
+        }
+        boolean done = !statusCounts.containsKey("queued") && !statusCounts.containsKey("running");
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("batchId", batch.getId());
+        report.put("kind", batch.getKind());
+        report.put("suiteId", batch.getSuiteId());
+        report.put("status", done ? "finished" : "running");
+        report.put("totalRuns", batch.getTotalRuns());
+        report.put("statusCounts", statusCounts);
+        report.put("passed", passed);
+        report.put("failed", failed);
+        report.put("createdAt", batch.getCreatedAt());
+        // Wall-clock time of the whole batch, as opposed to the sum of the run durations
+        if (done && lastFinishedAt != null) {
+            report.put("wallClockMillis", Duration.between(batch.getCreatedAt(), lastFinishedAt).toMillis());
+        }
+        report.put("durationMillis", durationSummary(durations));
+        report.put("runs", runs);
+        if ("matrix".equals(batch.getKind())) {
+            report.put("comparison", compareLegs(jobs));
+        }
+        return report;
+    }
+
+    /**
+     * Timing differences between the legs of a matrix run: total duration of every leg relative to the fastest
+     * one, and the duration of every action per leg.
+     */
+    private Map<String, Object> compareLegs(List<RunQueueJob> jobs) {
+        List<RunQueueJob> finished = jobs.stream()
+                .filter(job -> "finished".equals(job.getStatus()) && job.getDurationMillis() != null)
+                .toList();
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        if (finished.isEmpty()) {
+            return comparison;
+        }
+        long fastest = finished.stream().mapToLong(RunQueueJob::getDurationMillis).min().orElse(0);
+        long slowest = finished.stream().mapToLong(RunQueueJob::getDurationMillis).max().orElse(0);
+        List<Map<String, Object>> legs = new ArrayList<>();
+        Map<Long, String> labelsByTestRun = new HashMap<>();
+        for (RunQueueJob job : finished) {
+            Map<String, Object> leg = new LinkedHashMap<>();
+            leg.put("label", job.getBatchLabel());
+            leg.put("durationMillis", job.getDurationMillis());
+            leg.put("slowerThanFastestMillis", job.getDurationMillis() - fastest);
+            legs.add(leg);
+            if (job.getTestRunId() != null) {
+                labelsByTestRun.put(job.getTestRunId(), job.getBatchLabel());
+            }
+        }
+        comparison.put("legs", legs);
+        // Legs run concurrently: the matrix takes as long as its slowest leg instead of the sum of all legs
+        comparison.put("slowestLegMillis", slowest);
+        comparison.put("sequentialMillis", finished.stream().mapToLong(RunQueueJob::getDurationMillis).sum());
+
+        Map<Integer, Map<String, Object>> actions = new TreeMap<>();
+        if (!labelsByTestRun.isEmpty()) {
+            for (ActionResultRecordRepository.ActionTiming timing : actionResultRecordRepository.findTimings(labelsByTestRun.keySet())) {
+                Map<String, Object> action = actions.computeIfAbsent(timing.getOrdinal(), ordinal -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("ordinal", ordinal);
+                    entry.put("actionType", timing.getActionType());
+                    entry.put("durationMillis", new LinkedHashMap<String, Long>());
+                    return entry;
+                });
+                @SuppressWarnings("unchecked")
+                Map<String, Long> durations = (Map<String, Long>) action.get("durationMillis");
+                durations.put(labelsByTestRun.get(timing.getTestRunId()), timing.getDurationMillis());
+            }
+            actions.values().forEach(action -> {
+                @SuppressWarnings("unchecked")
+                Collection<Long> durations = ((Map<String, Long>) action.get("durationMillis")).values();
+                action.put("spreadMillis", Collections.max(durations) - Collections.min(durations));
+            });
+        }
+        comparison.put("actions", actions.values());
+        return comparison;
+    }
+
+    private Map<String, Object> durationSummary(List<Long> durations) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        if (durations.isEmpty()) {
+            return summary;
+        }
+        Collections.sort(durations);
+        summary.put("min", durations.get(0));
+        summary.put("p50", percentile(durations, 50));
+        summary.put("p90", percentile(durations, 90));
+        summary.put("p95", percentile(durations, 95));
+        summary.put("p99", percentile(durations, 99));
+        summary.put("max", durations.get(durations.size() - 1));
+        summary.put("mean", Math.round(durations.stream().mapToLong(Long::longValue).average().orElse(0)));
+        return summary;
+    }
+
+    // Nearest-rank percentile of an ascending list
+    private long percentile(List<Long> sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+}
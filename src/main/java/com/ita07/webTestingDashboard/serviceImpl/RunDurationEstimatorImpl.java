@@ -0,0 +1,118 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunEta;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
+import com.ita07.webTestingDashboard.repository.RunQueueJobRepository;
+import com.ita07.webTestingDashboard.service.RunDurationEstimator;
+import com.ita07.webTestingDashboard.service.WorkerNodeService;
+import com.ita07.webTestingDashboard.utils.ExpiringCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Estimates how long a run takes from the rolling median of the last finished runs with the same cost key
+ * (the suite, or the hash of the action list, on the same browser). Runs without history are estimated
+ * from the median of all recent runs.
+ */
+@Service
+public class RunDurationEstimatorImpl implements RunDurationEstimator {
+
+    private static final String ALL_RUNS = "*";
+    private static final long NO_HISTORY = -1;
+
+    @Autowired
+    private RunQueueJobRepository runQueueJobRepository;
+    @Autowired
+    private WorkerNodeService workerNodeService;
+
+    @Value("${run.estimate.window:20}")
+    private int window;
+
+    @Value("${run.estimate.cache-seconds:60}")
+    private long cacheSeconds;
+
+    @Value("${run.admission.default-run-seconds:30}")
+    private long defaultRunSeconds;
+
+    // Ad-hoc action lists each get their own cost key, so the cache is bounded like the results cache
+    @Value("${run.estimate.cache-max-entries:1000}")
+    private int cacheMaxEntries;
+
+    private final ExpiringCache<String, Long> medians = new ExpiringCache<>(1000, Duration.ofSeconds(60));
+
+    @PostConstruct
+    public void initCache() {
+        medians.setLimits(cacheMaxEntries, Duration.ofSeconds(cacheSeconds));
+    }
+
+    @Override
+    public long estimateMillis(String costKey) {
+        if (costKey != null) {
+            long median = median(costKey);
+            if (median != NO_HISTORY) {
+                return median;
+            }
+        }
+        long overall = median(ALL_RUNS);
+        return overall != NO_HISTORY ? overall : defaultRunSeconds * 1000;
+    }
+
+    /**
+     * Replays the given start order over the cluster's slots of each browser: every slot becomes free when
+     * its running run is expected to finish, and each queued run starts on the slot of its browser that
+     * frees up first.
+     */
+    @Override
+    public Map<Long, RunEta> estimateEtas(List<QueuedRun> order) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, PriorityQueue<Long>> slotFreeAt = new HashMap<>();
+        for (RunQueueJob running : runQueueJobRepository.findByStatus("running")) {
+            long elapsed = running.getStartedAt() != null ? Duration.between(running.getStartedAt(), now).toMillis() : 0;
+            slotFreeAt.computeIfAbsent(running.getBrowser(), browser -> new PriorityQueue<>())
+                    .add(Math.max(0, estimateMillis(running.getCostKey()) - elapsed));
+        }
+        Map<Long, RunEta> etas = new LinkedHashMap<>();
+        Set<String> sized = new HashSet<>();
+        for (QueuedRun run : order) {
+            PriorityQueue<Long> slots = slotFreeAt.computeIfAbsent(run.browser(), browser -> new PriorityQueue<>());
+            if (sized.add(run.browser())) {
+                int browserSlots = workerNodeService.getClusterSlots(run.browser());
+                while (slots.size() < browserSlots) {
+                    slots.add(0L);
+                }
+            }
+            long startsIn = slots.poll();
+            long estimate = estimateMillis(run.costKey());
+            etas.put(run.id(), new RunEta(estimate, startsIn, startsIn + estimate));
+            slots.add(startsIn + estimate);
+        }
+        return etas;
+    }
+
+    private long median(String costKey) {
+        Long cached = cacheSeconds > 0 ? medians.get(costKey) : null;
+        if (cached != null) {
+            return cached;
+        }
+        List<Long> durations = new ArrayList<>(ALL_RUNS.equals(costKey)
+                ? runQueueJobRepository.findRecentDurations(window)
+                : runQueueJobRepository.findRecentDurations(costKey, window));
+        long median = NO_HISTORY;
+        if (!durations.isEmpty()) {
+            Collections.sort(durations);
+            int middle = durations.size() / 2;
+            median = durations.size() % 2 == 1 ? durations.get(middle) : (durations.get(middle - 1) + durations.get(middle)) / 2;
+        }
+        if (cacheSeconds > 0) {
+            medians.put(costKey, median);
+        }
+        return median;
+    }
+}
@@ -0,0 +1,415 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ita07.webTestingDashboard.model.ActionResult;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
+import com.ita07.webTestingDashboard.service.RunEventService;
+import com.ita07.webTestingDashboard.service.RunQueueService;
+import com.ita07.webTestingDashboard.utils.ExpiringCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes run progress to Server-Sent Event subscribers. Events are published through Postgres
+ * LISTEN/NOTIFY so that a dashboard node receives progress of runs executing on worker nodes.
+ * Status changes always go through the database; per-action results only do while some node
+ * watches the run, otherwise they stay on the node executing it.
+ */
+@Service
+public class RunEventServiceImpl implements RunEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunEventServiceImpl.class);
+    private static final String CHANNEL = "run_events";
+    private static final Set<String> TERMINAL_STATUSES = Set.of("finished", "failed", "cancelled", "not_found");
+    // NOTIFY payloads are limited to 8000 bytes, long messages are cut well below that
+    private static final int MAX_TEXT_LENGTH = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RunQueueService runQueueService;
+
+    @Value("${run.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${run.events.keepalive-interval-ms:15000}")
+    private long keepAliveIntervalMs;
+
+    // The listener keeps its own connection for the lifetime of the node, outside the connection pool
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+    @Value("${spring.datasource.username:}")
+    private String datasourceUsername;
+    @Value("${spring.datasource.password:}")
+    private String datasourcePassword;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Long, Subscription> subscriptions = new ConcurrentHashMap<>();
+    // Callers waiting for runs to end, such as synchronous suite runs; completed on the delivery executor
+    private final Map<Long, List<CompletableFuture<String>>> terminalWaiters = new ConcurrentHashMap<>();
+    // Runs with a subscriber on some node, announced by that node on subscribe and with every keepalive
+    private final ExpiringCache<Long, Boolean> watchedRuns = new ExpiringCache<>(10_000, Duration.ofMinutes(1));
+    // Final snapshots and queue positions need database lookups; the listener thread only hands them over
+    private final ThreadPoolExecutor deliveryExecutor = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1000), deliveryThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+    // Queue advances arriving while a refresh is pending are covered by that refresh
+    private final AtomicBoolean queueRefreshPending = new AtomicBoolean();
+    private volatile Thread listenerThread;
+    private volatile boolean running = true;
+    private volatile boolean localOnly = false;
+
+    private static class Subscription {
+        private final Supplier<Map<String, Object>> snapshot;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile String lastStatus;
+
+        private Subscription(Supplier<Map<String, Object>> snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    private static ThreadFactory deliveryThreadFactory() {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "run-events-delivery-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PostConstruct
+    public void init() {
+        deliveryExecutor.allowCoreThreadTimeOut(true);
+        // Watches expire after a few missed keepalives, e.g. when the subscribing node went away
+        watchedRuns.setLimits(10_000, Duration.ofMillis(keepAliveIntervalMs * 4));
+        startListener();
+    }
+
+    @Override
+    public SseEmitter subscribe(long testRunId, Supplier<Map<String, Object>> snapshot) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscription subscription = subscriptions.computeIfAbsent(testRunId, id -> new Subscription(snapshot));
+        subscription.emitters.add(emitter);
+        announceWatch(testRunId);
+        emitter.onCompletion(() -> removeEmitter(testRunId, emitter));
+        emitter.onTimeout(() -> removeEmitter(testRunId, emitter));
+        emitter.onError(e -> removeEmitter(testRunId, emitter));
+
+        // Registered before the snapshot is taken, so no transition can fall between the two
+        Map<String, Object> current = snapshot.get();
+        String status = String.valueOf(current.get("status"));
+        subscription.lastStatus = status;
+        if (send(emitter, "snapshot", current) && TERMINAL_STATUSES.contains(status)) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    @Override
+    public void publishStatus(long testRunId, String status) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "status");
+        event.put("testRunId", testRunId);
+        event.put("status", status);
+        publish(event);
+    }
+
+    @Override
+    public void publishResult(long testRunId, int index, ActionResult result) {
+        ActionResult trimmed = new ActionResult(result.getAction(), result.getStatus(), truncate(result.getMessage()),
+                result.getScreenshotPath(), result.getExecutionTimeMillis(), truncate(result.getDetails()));
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "result");
+        event.put("testRunId", testRunId);
+        event.put("index", index);
+        event.put("result", trimmed);
+        if (watchedRuns.get(testRunId) == null) {
+            // Nobody outside this node watches the run, so the result does not need a database round trip.
+            // A node that subscribed moments ago may miss a result; its final snapshot has all of them.
+            deliver(toPayload(event));
+            return;
+        }
+        publish(event);
+    }
+
+    @Override
+    public void publishQueueAdvanced() {
+        publish(Map.of("type", "queue"));
+    }
+
+    /**
+     * Completes with the terminal status of the run once it reached one on any node. Cancelling the returned
+     * future stops the wait.
+     */
+    @Override
+    public CompletableFuture<String> awaitTerminalStatus(long testRunId) {
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        terminalWaiters.computeIfAbsent(testRunId, id -> new CopyOnWriteArrayList<>()).add(waiter);
+        waiter.whenComplete((status, error) -> terminalWaiters.computeIfPresent(testRunId, (id, waiters) -> {
+            waiters.remove(waiter);
+            return waiters.isEmpty() ? null : waiters;
+        }));
+        // Registered before the lookup, so a run that ends in between is not missed
+        checkTerminalStatus(testRunId);
+        return waiter;
+    }
+
+    // Comment lines keep idle connections open through proxies and reveal disconnected clients
+    @Scheduled(fixedDelayString = "${run.events.keepalive-interval-ms:15000}")
+    public void sendKeepAlive() {
+        subscriptions.keySet().forEach(this::announceWatch);
+        // Covers terminal statuses published while the listener was reconnecting
+        terminalWaiters.keySet().forEach(this::checkTerminalStatus);
+        subscriptions.forEach((testRunId, subscription) -> subscription.emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (Exception e) {
+                removeEmitter(testRunId, emitter);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        deliveryExecutor.shutdown();
+        terminalWaiters.values().forEach(waiters -> waiters.forEach(waiter -> waiter.cancel(false)));
+        subscriptions.values().forEach(subscription -> subscription.emitters.forEach(SseEmitter::complete));
+        subscriptions.clear();
+    }
+
+    private void announceWatch(long testRunId) {
+        if (localOnly) {
+            return;
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "watch");
+        event.put("testRunId", testRunId);
+        publish(event);
+    }
+
+    private String toPayload(Map<String, Object> event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (Exception e) {
+            logger.warn("Failed to serialize run event: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void publish(Map<String, Object> event) {
+        String payload = toPayload(event);
+        if (payload == null) {
+            return;
+        }
+        if (!localOnly) {
+            try {
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+                return;
+            } catch (Exception e) {
+                logger.warn("Failed to publish run event through the database, delivering locally: {}", e.getMessage());
+            }
+        }
+        deliver(payload);
+    }
+
+    // Every node listens: dashboards for the progress of runs, nodes executing runs for the runs being watched
+    private synchronized void startListener() {
+        if (listenerThread != null || localOnly) {
+            return;
+        }
+        listenerThread = new Thread(this::listen, "run-events-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+                PGConnection pgConnection;
+                try {
+                    pgConnection = connection.unwrap(PGConnection.class);
+                } catch (SQLException e) {
+                    logger.warn("Database does not support LISTEN/NOTIFY, run events are delivered on this node only");
+                    localOnly = true;
+                    return;
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                logger.info("Listening for run events on channel '{}'", CHANNEL);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(5000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Run event listener lost its connection, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        if (payload == null) {
+            return;
+        }
+        Map<String, Object> event;
+        try {
+            event = objectMapper.readValue(payload, new TypeReference<>() {});
+        } catch (Exception e) {
+            logger.warn("Ignoring malformed run event: {}", e.getMessage());
+            return;
+        }
+        String type = String.valueOf(event.get("type"));
+        if ("queue".equals(type)) {
+            if (queueRefreshPending.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::refreshQueuePositions);
+            }
+            return;
+        }
+        long testRunId = ((Number) event.get("testRunId")).longValue();
+        if ("watch".equals(type)) {
+            watchedRuns.put(testRunId, Boolean.TRUE);
+            return;
+        }
+        if ("status".equals(type) && TERMINAL_STATUSES.contains(String.valueOf(event.get("status")))) {
+            completeWaiters(testRunId, String.valueOf(event.get("status")));
+        }
+        Subscription subscription = subscriptions.get(testRunId);
+        if (subscription == null) {
+            return;
+        }
+        if ("status".equals(type)) {
+            String status = String.valueOf(event.get("status"));
+            subscription.lastStatus = status;
+            if (TERMINAL_STATUSES.contains(status)) {
+                // The final snapshot carries the complete results, which do not fit into a notification
+                subscriptions.remove(testRunId);
+                deliveryExecutor.execute(() -> sendFinalSnapshot(subscription));
+                return;
+            }
+        }
+        subscription.emitters.forEach(emitter -> send(emitter, type, event));
+    }
+
+    private void checkTerminalStatus(long testRunId) {
+        try {
+            String status = runQueueService.findJob(testRunId).map(RunQueueJob::getStatus).orElse("not_found");
+            if (TERMINAL_STATUSES.contains(status)) {
+                completeWaiters(testRunId, status);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to look up the status of test run {}: {}", testRunId, e.getMessage());
+        }
+    }
+
+    // Waiters load the results when completed, which must not happen on the listener thread
+    private void completeWaiters(long testRunId, String status) {
+        List<CompletableFuture<String>> waiters = terminalWaiters.remove(testRunId);
+        if (waiters != null) {
+            deliveryExecutor.execute(() -> waiters.forEach(waiter -> waiter.complete(status)));
+        }
+    }
+
+    private void sendFinalSnapshot(Subscription subscription) {
+        Map<String, Object> snapshot;
+        try {
+            snapshot = subscription.snapshot.get();
+        } catch (Exception e) {
+            logger.warn("Failed to take the final snapshot of a run: {}", e.getMessage());
+            subscription.emitters.forEach(emitter -> emitter.completeWithError(e));
+            return;
+        }
+        subscription.emitters.forEach(emitter -> {
+            send(emitter, "snapshot", snapshot);
+            emitter.complete();
+        });
+    }
+
+    private void refreshQueuePositions() {
+        queueRefreshPending.set(false);
+        try {
+            subscriptions.forEach((testRunId, subscription) -> {
+                if (!"queued".equals(subscription.lastStatus)) {
+                    return;
+                }
+                Map<String, Object> event = new HashMap<>();
+                event.put("type", "status");
+                event.put("testRunId", testRunId);
+                event.put("status", "queued");
+                event.put("queuePosition", runQueueService.getQueuePosition(testRunId));
+                subscription.emitters.forEach(emitter -> send(emitter, "status", event));
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to refresh queue positions: {}", e.getMessage());
+        }
+    }
+
+    private boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (Exception e) {
+            logger.debug("Dropping run event subscriber: {}", e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void removeEmitter(long testRunId, SseEmitter emitter) {
+        subscriptions.computeIfPresent(testRunId, (id, subscription) -> {
+            subscription.emitters.remove(emitter);
+            return subscription.emitters.isEmpty() ? null : subscription;
+        });
+    }
+
+    private String truncate(String text) {
+        return text != null && text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) + "..." : text;
+    }
+}
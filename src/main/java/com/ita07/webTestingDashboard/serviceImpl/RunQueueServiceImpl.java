@@ -0,0 +1,486 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
+import com.ita07.webTestingDashboard.model.TestRequest;
+import com.ita07.webTestingDashboard.repository.RunQueueJobRepository;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.RunQueueService;
+import com.ita07.webTestingDashboard.service.RunScheduler;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class RunQueueServiceImpl implements RunQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunQueueServiceImpl.class);
+
+    @Autowired
+    private RunQueueJobRepository runQueueJobRepository;
+
+    @Value("${run.queue.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${run.queue.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${run.scheduler:fair-share}")
+    private String schedulerName;
+
+    @Autowired
+    private List<RunScheduler> schedulers;
+
+    private RunScheduler runScheduler;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper canonicalMapper = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private static final List<String> IN_FLIGHT = List.of("queued", "running");
+    // Submissions answered with the id of an identical run already in flight
+    private final AtomicLong coalesced = new AtomicLong();
+
+    // The simulated queue order is shared by all status and stream requests for a short while
+    private static final long QUEUE_ORDER_TTL_MS = 1000;
+    private volatile QueueOrder queueOrder;
+
+    private record QueueOrder(List<QueuedRun> runs, long computedAt) {
+    }
+
+    // Number of runs whose start order is simulated; later runs get a position in submission order
+    @Value("${run.queue.order-window:200}")
+    private int orderWindow;
+
+    @PostConstruct
+    public void selectScheduler() {
+        runScheduler = schedulers.stream()
+                .filter(scheduler -> scheduler.getName().equalsIgnoreCase(schedulerName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown run.scheduler '" + schedulerName + "', available: "
+                        + schedulers.stream().map(RunScheduler::getName).toList()));
+        logger.info("Scheduling queued runs with the '{}' scheduler", runScheduler.getName());
+    }
+
+    @Override
+    public RunQueueJob enqueue(TestRequest request) {
+        return enqueue(request, null, null);
+    }
+
+    @Override
+    public RunQueueJob enqueue(TestRequest request, Long batchId, String batchLabel) {
+        RunQueueJob job = newJob(request);
+        job.setStatus("queued");
+        job.setBatchId(batchId);
+        job.setBatchLabel(batchLabel);
+        return runQueueJobRepository.save(job);
+    }
+
+    /**
+     * Identifies submissions that would produce the same results: same actions, browser, test data, window size,
+     * failure handling and deadlines. Map keys are sorted, so the order of action parameters does not matter.
+     */
+    @Override
+    public String coalesceKey(TestRequest request) {
+        Map<String, Object> normalized = new TreeMap<>();
+        normalized.put("actions", request.getActions());
+        normalized.put("browser", SeleniumUtils.normalizeBrowser(request.getBrowser()));
+        normalized.put("testDataId", request.getTestDataId());
+        normalized.put("variables", request.getVariables());
+        normalized.put("stopOnFailure", request.isStopOnFailure());
+        normalized.put("windowSize", request.getWindowSize());
+        normalized.put("runDeadlineSeconds", request.getRunDeadlineSeconds());
+        normalized.put("actionDeadlineSeconds", request.getActionDeadlineSeconds());
+        try {
+            String json = canonicalMapper.writeValueAsString(normalized);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (Exception e) {
+            logger.warn("Could not compute the coalesce key of a request, it is queued on its own: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Subscribes the submission to the queued or running run with the same coalesce key, raising its priority when
+     * the new submission's class is higher, so an interactive trigger does not wait behind the batch run it attaches
+     * to. Returns empty when there is no such run or it finished before the subscription took effect.
+     */
+    @Override
+    @Transactional
+    public Optional<RunQueueJob> attachToInFlight(String coalesceKey, RunPriority priority) {
+        Optional<RunQueueJob> inFlight = runQueueJobRepository.findFirstByCoalesceKeyAndStatusInOrderByIdDesc(coalesceKey, IN_FLIGHT)
+                .filter(job -> runQueueJobRepository.addSubscriber(job.getId()) > 0);
+        inFlight.ifPresent(job -> {
+            if (priority != null && job.getPriority() != null && priority.getWeight() > job.getPriority().getWeight()
+                    && runQueueJobRepository.updateQueuedPriority(job.getId(), priority) > 0) {
+                logger.info("Raised priority of run {} to {} for an identical submission", job.getId(), priority.getValue());
+            }
+            coalesced.incrementAndGet();
+            logger.info("Attached an identical submission to {} run {}", job.getStatus(), job.getId());
+        });
+        return inFlight;
+    }
+
+    /**
+     * Withdraws one submission from a run shared by several. Returns false when the caller is the last subscriber,
+     * who has to cancel the run itself.
+     */
+    @Override
+    @Transactional
+    public boolean unsubscribe(Long jobId) {
+        return runQueueJobRepository.findByIdForUpdate(jobId)
+                .filter(job -> job.getSubscribers() > 1 && IN_FLIGHT.contains(job.getStatus()))
+                .map(job -> {
+                    job.setSubscribers(job.getSubscribers() - 1);
+                    logger.info("Withdrew a submission from run {}, {} still waiting for it", jobId, job.getSubscribers());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Queues the request unless an identical one went in flight since the caller last looked. The advisory lock
+     * makes the check and the insert atomic for concurrent submissions on all nodes.
+     */
+    @Override
+    @Transactional
+    public RunQueueJob enqueueCoalescing(TestRequest request, String coalesceKey) {
+        runQueueJobRepository.lockCoalesceKey(coalesceKey);
+        Optional<RunQueueJob> inFlight = attachToInFlight(coalesceKey, request.getPriority());
+        if (inFlight.isPresent()) {
+            return inFlight.get();
+        }
+        RunQueueJob job = newJob(request);
+        job.setStatus("queued");
+        job.setCoalesceKey(coalesceKey);
+        return runQueueJobRepository.save(job);
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    @Override
+    @Transactional
+    public Optional<RunQueueJob> claimNext(String nodeId, Collection<String> browsers) {
+        if (browsers.isEmpty()) {
+            return Optional.empty();
+        }
+        // Only the oldest run of every lane can start next, so the rest of the queue is never read here
+        List<QueuedRun> heads = runQueueJobRepository.findLaneHeads(browsers);
+        if (heads.isEmpty()) {
+            return Optional.empty();
+        }
+        List<QueuedRun> ranked = runScheduler.rank(heads, runningBySubmitter(), LocalDateTime.now());
+        for (QueuedRun candidate : ranked) {
+            // Another node may have claimed the candidate since it was read; fall through to the next one
+            Optional<RunQueueJob> locked = runQueueJobRepository.lockIfQueued(candidate.id());
+            if (locked.isPresent()) {
+                RunQueueJob job = locked.get();
+                applyClaim(job, nodeId);
+                runQueueJobRepository.save(job);
+                logger.info("Node {} claimed run {} (attempt {}, priority {}, submitted by {})",
+                        nodeId, job.getId(), job.getAttempts(), job.getPriority(), job.getSubmittedBy());
+                return locked;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional
+    public void markFinished(Long jobId, String nodeId, Long testRunId, boolean passed) {
+        runQueueJobRepository.findByIdForUpdate(jobId).ifPresent(job -> {
+            // A cancelled job, or one reclaimed and claimed by another node, must not be flipped to finished
+            if (!isRunningOn(job, nodeId)) {
+                logger.warn("Not marking run {} as finished, its status is '{}' on node {}", jobId, job.getStatus(), job.getClaimedBy());
+                return;
+            }
+            job.setStatus("finished");
+            job.setTestRunId(testRunId);
+            job.setPassed(passed);
+            complete(job);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(Long jobId, String nodeId, String error) {
+        runQueueJobRepository.findByIdForUpdate(jobId).ifPresent(job -> {
+            if (!isRunningOn(job, nodeId)) {
+                return;
+            }
+            job.setStatus("failed");
+            job.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            complete(job);
+        });
+    }
+
+    @Override
+    @Transactional
+    public boolean markCancelled(Long jobId) {
+        return runQueueJobRepository.findByIdForUpdate(jobId)
+                .filter(job -> "queued".equals(job.getStatus()) || "running".equals(job.getStatus()))
+                .map(job -> {
+                    job.setStatus("cancelled");
+                    complete(job);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    // Records the TestRun saved for a job that did not finish normally, e.g. the partial results of a cancelled run
+    @Override
+    @Transactional
+    public void linkTestRun(Long jobId, Long testRunId) {
+        runQueueJobRepository.findByIdForUpdate(jobId).ifPresent(job -> job.setTestRunId(testRunId));
+    }
+
+    @Override
+    @Transactional
+    public boolean cancelQueued(Long jobId) {
+        return runQueueJobRepository.findByIdForUpdate(jobId)
+                .filter(job -> "queued".equals(job.getStatus()))
+                .map(job -> {
+                    job.setStatus("cancelled");
+                    job.setFinishedAt(LocalDateTime.now());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    @Override
+    @Transactional
+    public boolean requestCancel(Long jobId) {
+        return runQueueJobRepository.findByIdForUpdate(jobId)
+                .filter(job -> "running".equals(job.getStatus()))
+                .map(job -> {
+                    job.setCancelRequested(true);
+                    logger.info("Requested node {} to cancel run {}", job.getClaimedBy(), jobId);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    @Override
+    public List<Long> findCancelRequested(String nodeId) {
+        return runQueueJobRepository.findCancelRequested(nodeId);
+    }
+
+    @Override
+    @Transactional
+    public void renewLeases(Collection<Long> jobIds, String nodeId) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        runQueueJobRepository.renewLeases(jobIds, nodeId, now, now.plusSeconds(leaseSeconds));
+    }
+
+    @Override
+    @Transactional
+    public int reclaimExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int failed = runQueueJobRepository.failExpired(now, maxAttempts);
+        int requeued = runQueueJobRepository.requeueExpired(now, maxAttempts);
+        if (requeued > 0 || failed > 0) {
+            logger.warn("Reclaimed runs with expired leases: {} re-queued, {} failed after {} attempts", requeued, failed, maxAttempts);
+        }
+        return requeued;
+    }
+
+    @Override
+    public Optional<RunQueueJob> findJob(Long jobId) {
+        return runQueueJobRepository.findById(jobId);
+    }
+
+    // Held until the caller's transaction ends, so the runs it admits are inserted before the next check
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockAdmission() {
+        runQueueJobRepository.lockAdmission();
+    }
+
+    @Override
+    public long countQueued() {
+        return runQueueJobRepository.countByStatus("queued");
+    }
+
+    @Override
+    public long countQueuedBy(String submittedBy) {
+        return runQueueJobRepository.countByStatusAndSubmittedBy("queued", submittedBy);
+    }
+
+    @Override
+    public long countRunning() {
+        return runQueueJobRepository.countByStatus("running");
+    }
+
+    @Override
+    public Map<String, Long> countQueuedPerBrowser() {
+        return countPerBrowser("queued");
+    }
+
+    @Override
+    public Map<String, Long> countRunningPerBrowser() {
+        return countPerBrowser("running");
+    }
+
+    @Override
+    public long getQueuePosition(Long jobId) {
+        List<QueuedRun> order = getQueueOrder(orderWindow);
+        for (int i = 0; i < order.size(); i++) {
+            if (order.get(i).id().equals(jobId)) {
+                return i + 1;
+            }
+        }
+        if (order.size() < orderWindow) {
+            // The whole queue was simulated, the run was queued after the cached order was computed
+            return order.size() + 1;
+        }
+        // Beyond the simulated window: estimated from the runs submitted before it
+        return Math.max(order.size(), runQueueJobRepository.countByStatusAndIdLessThan("queued", jobId)) + 1;
+    }
+
+    /**
+     * Order in which the first run.queue.order-window queued runs are expected to start, simulated with the
+     * active scheduler. The simulation assumes that started runs keep running, so it is an estimate for
+     * fair-share scheduling. Only the front of every lane is read, never the whole queue.
+     */
+    @Override
+    public List<QueuedRun> getQueueOrder(int limit) {
+        QueueOrder cached = queueOrder;
+        if (cached == null || System.currentTimeMillis() - cached.computedAt() > QUEUE_ORDER_TTL_MS) {
+            List<QueuedRun> laneFronts = runQueueJobRepository.findLaneFronts(orderWindow).stream()
+                    .map(run -> new QueuedRun(run.getId(), run.getSubmittedBy(), RunPriority.valueOf(run.getPriority()),
+                            run.getBrowser(), run.getCreatedAt(), run.getCostKey()))
+                    .toList();
+            cached = new QueueOrder(simulateOrder(laneFronts, orderWindow), System.currentTimeMillis());
+            queueOrder = cached;
+        }
+        return cached.runs().size() > limit ? cached.runs().subList(0, limit) : cached.runs();
+    }
+
+    @Override
+    public String getSchedulerName() {
+        return runScheduler.getName();
+    }
+
+    @Override
+    public List<RunQueueJob> findBatchJobs(Long batchId) {
+        return runQueueJobRepository.findByBatchIdOrderById(batchId);
+    }
+
+    @Override
+    public TestRequest readRequest(RunQueueJob job) {
+        try {
+            return objectMapper.readValue(job.getRequestJson(), TestRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored request for run " + job.getId() + " is not valid JSON", e);
+        }
+    }
+
+    private RunQueueJob newJob(TestRequest request) {
+        RunQueueJob job = new RunQueueJob();
+        try {
+            job.setRequestJson(objectMapper.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Test request could not be serialized: " + e.getMessage(), e);
+        }
+        job.setBrowser(SeleniumUtils.normalizeBrowser(request.getBrowser()));
+        job.setPriority(request.getPriority() != null ? request.getPriority() : RunPriority.CI);
+        job.setSubmittedBy(request.getSubmittedBy());
+        job.setCostKey(costKey(request, job.getBrowser(), job.getRequestJson()));
+        job.setCreatedAt(LocalDateTime.now());
+        return job;
+    }
+
+    // A lane read up to its first n runs cannot run dry within n starts, so the first n positions are exact
+    private List<QueuedRun> simulateOrder(List<QueuedRun> queued, int n) {
+        Map<String, Deque<QueuedRun>> lanes = new LinkedHashMap<>();
+        queued.forEach(run -> lanes.computeIfAbsent(laneKey(run), key -> new ArrayDeque<>()).add(run));
+        Map<String, Long> running = runningBySubmitter();
+        LocalDateTime now = LocalDateTime.now();
+        List<QueuedRun> order = new ArrayList<>(Math.min(queued.size(), n));
+        while (!lanes.isEmpty() && order.size() < n) {
+            List<QueuedRun> heads = lanes.values().stream().map(Deque::peekFirst).toList();
+            QueuedRun next = runScheduler.rank(heads, running, now).get(0);
+            order.add(next);
+            Deque<QueuedRun> lane = lanes.get(laneKey(next));
+            lane.pollFirst();
+            if (lane.isEmpty()) {
+                lanes.remove(laneKey(next));
+            }
+            running.merge(next.submittedBy(), 1L, Long::sum);
+        }
+        return order;
+    }
+
+    private String laneKey(QueuedRun run) {
+        return run.submittedBy() + "|" + run.priority();
+    }
+
+    private Map<String, Long> runningBySubmitter() {
+        Map<String, Long> running = new HashMap<>();
+        runQueueJobRepository.countRunningBySubmitter().forEach(count -> running.put(count.getSubmittedBy(), count.getRuns()));
+        return running;
+    }
+
+    private Map<String, Long> countPerBrowser(String status) {
+        Map<String, Long> counts = new HashMap<>();
+        runQueueJobRepository.countByStatusPerBrowser(status).forEach(count -> counts.put(count.getBrowser(), count.getRuns()));
+        return counts;
+    }
+
+    private String costKey(TestRequest request, String browser, String requestJson) {
+        if (request.getSuiteId() != null) {
+            return "suite:" + request.getSuiteId() + "|" + browser;
+        }
+        try {
+            String actionsJson = request.getActions() != null ? objectMapper.writeValueAsString(request.getActions()) : requestJson;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(actionsJson.getBytes(StandardCharsets.UTF_8));
+            return "actions:" + HexFormat.of().formatHex(hash, 0, 16) + "|" + browser;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private boolean isRunningOn(RunQueueJob job, String nodeId) {
+        return "running".equals(job.getStatus()) && Objects.equals(job.getClaimedBy(), nodeId);
+    }
+
+    private void complete(RunQueueJob job) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setFinishedAt(now);
+        job.setLeaseExpiresAt(null);
+        if (job.getStartedAt() != null) {
+            job.setDurationMillis(Duration.between(job.getStartedAt(), now).toMillis());
+        }
+    }
+
+    private void applyClaim(RunQueueJob job, String nodeId) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus("running");
+        job.setClaimedBy(nodeId);
+        job.setStartedAt(now);
+        job.setHeartbeatAt(now);
+        job.setLeaseExpiresAt(now.plusSeconds(leaseSeconds));
+        job.setAttempts(job.getAttempts() + 1);
+    }
+}
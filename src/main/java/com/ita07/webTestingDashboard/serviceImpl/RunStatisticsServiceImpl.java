@@ -0,0 +1,73 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.ActionResult;
+import com.ita07.webTestingDashboard.model.RunStatistics;
+import com.ita07.webTestingDashboard.model.TestRun;
+import com.ita07.webTestingDashboard.repository.RunStatisticsRepository;
+import com.ita07.webTestingDashboard.repository.TestRunRepository;
+import com.ita07.webTestingDashboard.service.ActionResultService;
+import com.ita07.webTestingDashboard.service.RunStatisticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class RunStatisticsServiceImpl implements RunStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunStatisticsServiceImpl.class);
+
+    @Autowired
+    private TestRunRepository testRunRepository;
+
+    @Autowired
+    private RunStatisticsRepository runStatisticsRepository;
+
+    @Autowired
+    private ActionResultService actionResultService;
+
+    /**
+     * Saves a finished or cancelled test run together with its action_result rows and updates the statistics
+     * row in the same transaction.
+     */
+    @Override
+    @Transactional
+    public TestRun saveTestRun(TestRun testRun, List<ActionResult> results) {
+        TestRun saved = testRunRepository.save(testRun);
+        actionResultService.saveResults(saved, results);
+        boolean successful = !results.isEmpty() && results.stream().allMatch(result -> "success".equalsIgnoreCase(result.getStatus()));
+        boolean cancelled = "cancelled".equalsIgnoreCase(testRun.getStatus());
+        long duration = results.stream().mapToLong(ActionResult::getExecutionTimeMillis).sum();
+        // Before the backfill has created the row this updates nothing; the backfill then counts the run itself
+        runStatisticsRepository.increment(successful ? 1 : 0, cancelled ? 1 : 0, successful ? duration : 0, duration, LocalDateTime.now());
+        return saved;
+    }
+
+    @Override
+    public RunStatistics getStatistics() {
+        return runStatisticsRepository.findById(RunStatistics.SINGLETON_ID).orElseGet(RunStatistics::new);
+    }
+
+    /**
+     * One-time backfill of the statistics row from the existing test runs, run on the first startup after upgrading.
+     */
+    @Override
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (runStatisticsRepository.existsById(RunStatistics.SINGLETON_ID)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        runStatisticsRepository.lockTestRuns();
+        if (runStatisticsRepository.backfill() > 0) {
+            logger.info("Backfilled run statistics from existing test runs in {} ms", System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -3,16 +3,23 @@ package com.ita07.webTestingDashboard.serviceImpl;
 
 import com.ita07.webTestingDashboard.config.EnvConfigService;
 import com.ita07.webTestingDashboard.model.SettingsDTO;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.AdaptiveConcurrencyService;
 import com.ita07.webTestingDashboard.service.SettingsService;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Service
 public class SettingsServiceImpl implements SettingsService {
 
     private final EnvConfigService envConfigService;
+    private final AdaptiveConcurrencyService adaptiveConcurrencyService;
 
-    public SettingsServiceImpl(EnvConfigService envConfigService) {
+    public SettingsServiceImpl(EnvConfigService envConfigService, AdaptiveConcurrencyService adaptiveConcurrencyService) {
         this.envConfigService = envConfigService;
+        this.adaptiveConcurrencyService = adaptiveConcurrencyService;
     }
 
     @Override
@@ -20,6 +27,18 @@ public class SettingsServiceImpl implements SettingsService {
         // Get concurrency from configuration instead of directly from the executor service
         String value = envConfigService.getProperty("parallel.tests.max", "4");
         int concurrency = Integer.parseInt(value);
-        return new SettingsDTO(concurrency);
+        Map<String, Integer> browserConcurrency = new LinkedHashMap<>();
+        Map<String, Integer> browserMaxQueued = new LinkedHashMap<>();
+        for (String browser : SeleniumUtils.SUPPORTED_BROWSERS) {
+            browserConcurrency.put(browser, getOptional("parallel.tests.max." + browser));
+            browserMaxQueued.put(browser, getOptional("run.admission.max-queued." + browser));
+        }
+        return new SettingsDTO(concurrency, browserConcurrency, browserMaxQueued, adaptiveConcurrencyService.isEnabled(),
+                adaptiveConcurrencyService.getMinParallelTests(), adaptiveConcurrencyService.getMaxParallelTests());
+    }
+
+    private Integer getOptional(String key) {
+        String value = envConfigService.getProperty(key, null);
+        return value != null ? Integer.valueOf(value) : null;
     }
 }
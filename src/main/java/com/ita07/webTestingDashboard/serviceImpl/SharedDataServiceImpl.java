@@ -3,8 +3,9 @@ package com.ita07.webTestingDashboard.serviceImpl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ita07.webTestingDashboard.controller.DashboardController;
+import com.ita07.webTestingDashboard.model.RunStatistics;
 import com.ita07.webTestingDashboard.model.TestRun;
-import com.ita07.webTestingDashboard.repository.TestRunRepository;
+import com.ita07.webTestingDashboard.service.RunStatisticsService;
 import com.ita07.webTestingDashboard.service.SharedDataService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,12 +20,13 @@ public class SharedDataServiceImpl implements SharedDataService {
     private static final Logger logger = LoggerFactory.getLogger(SharedDataServiceImpl.class);
 
     @Autowired
-    private TestRunRepository testRunRepository;
+    private RunStatisticsService runStatisticsService;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // Counts come from the run_statistics row maintained on every save instead of scanning all test runs
     public long getTotalTestRuns() {
-        return testRunRepository.count();
+        return runStatisticsService.getStatistics().getTotalRuns();
     }
 
     public boolean isTestRunSuccessful(TestRun testRun) {
@@ -42,32 +44,19 @@ public class SharedDataServiceImpl implements SharedDataService {
     }
 
     public long getCancelledTestRuns() {
-        return testRunRepository.findAll().stream()
-                .filter(testRun -> "cancelled".equalsIgnoreCase(testRun.getStatus()))
-                .count();
+        return runStatisticsService.getStatistics().getCancelledRuns();
     }
 
     public long getSuccessfulTestRuns() {
-        return testRunRepository.findAll().stream()
-                .filter(this::isTestRunSuccessful)
-                .count();
+        return runStatisticsService.getStatistics().getSuccessfulRuns();
     }
 
     public double getAverageTestRunDuration() {
-        return testRunRepository.findAll().stream()
-                .filter(this::isTestRunSuccessful)
-                .mapToDouble(testRun -> {
-                    try {
-                        JsonNode resultsJson = objectMapper.readTree(testRun.getResultsJson());
-                        return resultsJson.findValues("executionTimeMillis").stream()
-                                .mapToDouble(JsonNode::asDouble)
-                                .sum() / 1000.0; // Convert milliseconds to seconds
-                    } catch (Exception e) {
-                        logger.error("Failed to parse execution time for testRun ID {}: {}", testRun.getId(), e.getMessage());
-                        return 0;
-                    }
-                })
-                .average()
-                .orElse(0);
+        RunStatistics statistics = runStatisticsService.getStatistics();
+        if (statistics.getSuccessfulRuns() == 0) {
+            return 0;
+        }
+        // Convert milliseconds to seconds
+        return statistics.getSuccessfulDurationMillis() / 1000.0 / statistics.getSuccessfulRuns();
     }
 }
@@ -0,0 +1,50 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.service.RunDurationEstimator;
+import com.ita07.webTestingDashboard.service.RunScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the run with the shortest expected duration first, which minimizes the mean time to result.
+ * The estimate is divided by the priority class weight, and by a factor that doubles every aging
+ * interval a run waits, so long runs are delayed but never starved.
+ */
+@Component
+public class ShortestJobFirstRunScheduler implements RunScheduler {
+
+    @Autowired
+    private RunDurationEstimator runDurationEstimator;
+
+    @Value("${run.scheduler.aging-seconds:300}")
+    private long agingSeconds;
+
+    @Override
+    public String getName() {
+        return "shortest-job-first";
+    }
+
+    @Override
+    public List<QueuedRun> rank(List<QueuedRun> candidates, Map<String, Long> runningBySubmitter, LocalDateTime now) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (QueuedRun run : candidates) {
+            RunPriority priority = run.priority() != null ? run.priority() : RunPriority.CI;
+            double waited = run.createdAt() != null ? Duration.between(run.createdAt(), now).toSeconds() : 0;
+            double aging = Math.pow(2, agingSeconds > 0 ? waited / agingSeconds : 0);
+            scores.put(run.id(), runDurationEstimator.estimateMillis(run.costKey()) / (priority.getWeight() * aging));
+        }
+        return candidates.stream()
+                .sorted(Comparator.comparing((QueuedRun run) -> scores.get(run.id())).thenComparing(QueuedRun::id))
+                .toList();
+    }
+}
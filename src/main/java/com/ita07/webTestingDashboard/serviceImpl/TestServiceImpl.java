@@ -2,21 +2,40 @@ package com.ita07.webTestingDashboard.serviceImpl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ita07.webTestingDashboard.config.EnvConfigService;
+import com.ita07.webTestingDashboard.config.NodeIdentity;
 import com.ita07.webTestingDashboard.exception.ValidationException;
 import com.ita07.webTestingDashboard.model.*;
 import com.ita07.webTestingDashboard.repository.TestReportRepository;
 import com.ita07.webTestingDashboard.repository.TestRunRepository;
-import com.ita07.webTestingDashboard.selenium.config.SeleniumConfig;
+import com.ita07.webTestingDashboard.selenium.plan.ExecutionPlan;
+import com.ita07.webTestingDashboard.selenium.plan.ExecutionPlanCompiler;
+import com.ita07.webTestingDashboard.selenium.plan.PlanStep;
+import com.ita07.webTestingDashboard.selenium.pool.BrowserSession;
+import com.ita07.webTestingDashboard.selenium.pool.WebDriverPool;
 import com.ita07.webTestingDashboard.selenium.utils.SeleniumActionExecutor;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.AdaptiveConcurrencyService;
+import com.ita07.webTestingDashboard.service.AdmissionService;
+import com.ita07.webTestingDashboard.service.BrowserMemoryService;
+import com.ita07.webTestingDashboard.service.RunEventService;
+import com.ita07.webTestingDashboard.service.RunQueueService;
+import com.ita07.webTestingDashboard.service.RunStatisticsService;
 import com.ita07.webTestingDashboard.service.TestDataService;
 import com.ita07.webTestingDashboard.service.TestService;
+import com.ita07.webTestingDashboard.service.WorkerNodeService;
+import com.ita07.webTestingDashboard.utils.DeadlineWatchdog;
+import com.ita07.webTestingDashboard.utils.ExpiringCache;
+import com.ita07.webTestingDashboard.utils.VirtualThreads;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import lombok.Getter;
-import org.openqa.selenium.WebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
@@ -24,45 +43,124 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class TestServiceImpl implements TestService {
     private static final Logger logger = LoggerFactory.getLogger(TestServiceImpl.class);
-    // Add a fixed thread pool for parallel test execution
-    private static int currentParallelTests = -1; // clearly invalid until injected
-    @Getter
-    private static ThreadPoolExecutor executorService;
+    // One executor per browser type, so a flood of runs on one browser cannot take the slots of another
+    private static final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+    // Threads of the browser pools; virtual when enabled, the pool sizes still cap the browsers per pool
+    private static ThreadFactory runThreadFactory = Executors.defaultThreadFactory();
+
+    // Track test runs executing on this node with their run IDs, Future objects and browser sessions
+    private static final Map<Long, ActiveRun> activeTestRuns = new ConcurrentHashMap<>();
+
+    /**
+     * A run executing on this node. The state moves from RUNNING to CANCELLED, TIMED_OUT or COMPLETED exactly
+     * once, so a cancellation, a deadline and the run persisting its own results never act on it together.
+     */
+    private static final class ActiveRun {
+        private enum State { RUNNING, CANCELLED, TIMED_OUT, COMPLETED }
+
+        private final String browser;
+        private final TestRequest request;
+        private final Future<?> future;
+        private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
+        // Results of the actions completed so far, persisted when the run is cancelled
+        private final List<ActionResult> results = new CopyOnWriteArrayList<>();
+        private BrowserSession session;
+        private Thread worker;
+        private DeadlineWatchdog.Deadline runDeadline;
+        private DeadlineWatchdog.Deadline actionDeadline;
+        // Why the deadline fired, recorded on the step that was executing
+        private volatile String timeoutMessage;
+
+        private ActiveRun(String browser, TestRequest request, Future<?> future) {
+            this.browser = browser;
+            this.request = request;
+            this.future = future;
+        }
+
+        private boolean isRunning() {
+            return state.get() == State.RUNNING;
+        }
+
+        // Returns false when the run was cancelled before its browser session was ready
+        private synchronized boolean attach(BrowserSession session) {
+            if (!isRunning()) {
+                return false;
+            }
+            this.session = session;
+            this.worker = Thread.currentThread();
+            return true;
+        }
+
+        private synchronized void clearDeadlines() {
+            if (runDeadline != null) {
+                runDeadline.cancel();
+            }
+            if (actionDeadline != null) {
+                actionDeadline.cancel();
+            }
+        }
+
+        // A deadline interrupts the run's thread only until the thread starts saving its results
+        private synchronized void interruptWorker() {
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
 
-    // Fast, non-blocking counter for queued test runs
-    private static final AtomicInteger queuedCount = new AtomicInteger(0);
-    // Track active test runs with their unique IDs and Future objects
-    private static final Map<Integer, Future<?>> activeTestRuns = new ConcurrentHashMap<>();
+        // Called on the run's thread; clears an interrupt that already arrived and keeps later ones away
+        private synchronized void stopInterrupts() {
+            worker = null;
+            Thread.interrupted();
+        }
+
+        // Hands the session to exactly one caller: the run releasing it or the cancellation tearing it down
+        private synchronized BrowserSession detach() {
+            BrowserSession detached = session;
+            session = null;
+            return detached;
+        }
+    }
 
-    public static boolean isTestFutureActive(int testRunId) {
+    public static boolean isTestFutureActive(long testRunId) {
         return activeTestRuns.containsKey(testRunId);
     }
 
-    // Use an incrementing counter for test run IDs, reset when all runs are finished
-    private static final AtomicInteger testRunIdCounter = new AtomicInteger(1);
+    public static int getActiveRunCount() {
+        return activeTestRuns.size();
+    }
 
-    // Store the last assigned testRunId for controller access
-    private static final ThreadLocal<Integer> lastAssignedTestRunId = new ThreadLocal<>();
+    public static int getActiveRunCount(String browser) {
+        return (int) activeTestRuns.values().stream().filter(run -> browser.equals(run.browser)).count();
+    }
 
-    public static int getCurrentTestRunId() {
-        Integer id = lastAssignedTestRunId.get();
-        return id != null ? id : -1;
+    public static ThreadPoolExecutor getExecutorService(String browser) {
+        return executors.get(browser);
+    }
+
+    public static int getMaxParallelTests(String browser) {
+        ThreadPoolExecutor executor = executors.get(browser);
+        return executor != null && !executor.isShutdown() ? executor.getMaximumPoolSize() : 0;
     }
 
     // Store results for each testRunId
-    private static final ConcurrentHashMap<Integer, List<ActionResult>> testResults = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<Integer, TestRequest> testRequests = new ConcurrentHashMap<>();
+    // Store results of recent asynchronous runs for polling; once evicted they are read from the database
+    private static final ExpiringCache<Long, List<ActionResult>> testResults = new ExpiringCache<>(500, Duration.ofMinutes(30));
+    // Requests of the runs currently executing on this node; queued requests live in the run queue table
+    private static final ConcurrentHashMap<Long, TestRequest> testRequests = new ConcurrentHashMap<>();
 
     @Autowired
     private TestRunRepository testRunRepository;
@@ -72,196 +170,535 @@ public class TestServiceImpl implements TestService {
     private TemplateEngine templateEngine;
     @Autowired
     private TestDataService testDataService;
+    @Autowired
+    private WebDriverPool webDriverPool;
+    @Autowired
+    private RunQueueService runQueueService;
+    @Autowired
+    private NodeIdentity nodeIdentity;
+    @Autowired
+    private WorkerNodeService workerNodeService;
+    @Autowired
+    private EnvConfigService envConfigService;
+    @Autowired
+    private RunEventService runEventService;
+    @Autowired
+    private RunStatisticsService runStatisticsService;
+    @Autowired
+    private ExecutionPlanCompiler executionPlanCompiler;
+    @Autowired
+    private AdmissionService admissionService;
+    @Autowired
+    private AdaptiveConcurrencyService adaptiveConcurrencyService;
+    @Autowired
+    private BrowserMemoryService browserMemoryService;
+    @Autowired
+    private DeadlineWatchdog deadlineWatchdog;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Opt-in: identical asynchronous submissions share the queued or running run instead of starting their own
+    @Value("${run.coalesce.enabled:false}")
+    private boolean coalesceSubmissions;
+    // Deadlines for runs and suites that do not set their own, 0 disables them
+    @Value("${run.deadline.run-seconds:3600}")
+    private int defaultRunDeadlineSeconds;
+    @Value("${run.deadline.action-seconds:600}")
+    private int defaultActionDeadlineSeconds;
+
+    // Prevents the scheduled dispatcher and submitting threads from claiming jobs at the same time
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+
+    // Tears down the browsers of timed out runs; when it falls behind, the watchdog thread does the teardown itself
+    private final ThreadPoolExecutor teardownExecutor = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100), teardownThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+
+    private static ThreadFactory teardownThreadFactory() {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "deadline-teardown-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 
-    public synchronized void setMaxParallelTests(int max) {
+    public static synchronized void setMaxParallelTests(String browser, int max) {
         if (max <= 0) {
-            logger.warn("Attempted to set invalid concurrency: {}", max);
+            logger.warn("Attempted to set invalid concurrency for {}: {}", browser, max);
             return;
         }
 
-        currentParallelTests = max;
-
+        ThreadPoolExecutor executorService = executors.get(browser);
         if (executorService == null || executorService.isShutdown()) {
+            // Jobs are only handed to the executor when a slot is free, the backlog waits in the run queue table
             executorService = new ThreadPoolExecutor(
                     max,
                     max,
                     60L,
                     TimeUnit.SECONDS,
-                    new LinkedBlockingQueue<>(100)
+                    new LinkedBlockingQueue<>(),
+                    runThreadFactory
             );
-            logger.info("ExecutorService initialized with concurrency: {}", max);
+            executors.put(browser, executorService);
+            logger.info("ExecutorService for {} initialized with concurrency: {}", browser, max);
         } else {
             try {
                 int currentCorePoolSize = executorService.getCorePoolSize();
                 if (currentCorePoolSize > max) {
-                    logger.info("Reducing core pool size from {} to {} to match maximum pool size.", currentCorePoolSize, max);
+                    logger.info("Reducing {} core pool size from {} to {} to match maximum pool size.", browser, currentCorePoolSize, max);
                     executorService.setCorePoolSize(max);
                 }
 
                 executorService.setMaximumPoolSize(max);
-                logger.info("ExecutorService concurrency updated to: {}", max);
+                if (executorService.getCorePoolSize() < max) {
+                    executorService.setCorePoolSize(max);
+                }
+                logger.info("ExecutorService for {} concurrency updated to: {}", browser, max);
             } catch (IllegalArgumentException | NullPointerException e) {
-                logger.error("Failed to update ExecutorService concurrency to {}: {}", max, e.getMessage(), e);
+                logger.error("Failed to update {} ExecutorService concurrency to {}: {}", browser, max, e.getMessage(), e);
             }
         }
     }
 
+    /**
+     * Sizes every browser pool from env.properties: {@code parallel.tests.max.<browser>} when set,
+     * otherwise the shared {@code parallel.tests.max}.
+     */
+    public void applyConfiguredParallelTests() {
+        for (String browser : SeleniumUtils.SUPPORTED_BROWSERS) {
+            setMaxParallelTests(browser, getConfiguredParallelTests(browser));
+        }
+        // Slots that were added may be filled right away
+        dispatchQueuedRuns();
+    }
+
+    private int getConfiguredParallelTests(String browser) {
+        String value = envConfigService.getProperty("parallel.tests.max." + browser,
+                envConfigService.getProperty("parallel.tests.max", "4"));
+        return Integer.parseInt(value);
+    }
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // Initialized here rather than in a controller so that worker nodes without the web layer get an executor too
+    @Value("${run.results.cache.max-entries:500}")
+    private int resultsCacheMaxEntries;
+    @Value("${run.results.cache.ttl-minutes:30}")
+    private long resultsCacheTtlMinutes;
+
+    // The same switch moves the HTTP handlers and scheduled tasks to virtual threads on JDK 21
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @PostConstruct
+    public void initExecutor() {
+        testResults.setLimits(resultsCacheMaxEntries, Duration.ofMinutes(resultsCacheTtlMinutes));
+        teardownExecutor.allowCoreThreadTimeOut(true);
+        if (virtualThreads) {
+            // A run spends nearly all its time blocked on WebDriver calls, the database and report files
+            runThreadFactory = VirtualThreads.factory("test-run-").orElseGet(() -> {
+                logger.warn("spring.threads.virtual.enabled is set but the runtime is Java {}, test runs use platform threads",
+                        Runtime.version().feature());
+                return Executors.defaultThreadFactory();
+            });
+        }
+        for (String browser : SeleniumUtils.SUPPORTED_BROWSERS) {
+            setMaxParallelTests(browser, getConfiguredParallelTests(browser));
+        }
+    }
+
     @PreDestroy
     public void shutdownExecutor() {
         logger.info("Shutting down ExecutorService for parallel test execution...");
-        // Cancel all active test runs before shutting down
-        activeTestRuns.forEach((id, future) -> future.cancel(true));
-        executorService.shutdown();
+        // Cancel all active test runs before shutting down; their queue leases expire and another node picks them up
+        activeTestRuns.forEach((id, run) -> run.future.cancel(true));
+        executors.values().forEach(ThreadPoolExecutor::shutdown);
+        teardownExecutor.shutdown();
     }
 
-    // testRunIdGenerator is initialized with new AtomicLong(1).
-    // The first call to testRunIdGenerator.getAndIncrement() will return 1, making the first testRunId = 1.
-    // If the first observed ID is 2 on a clean application start, it implies an additional increment occurred
-    // before this method's invocation in that specific run, potentially due to environment or other startup processes.
     @Override
     public List<ActionResult> executeActions(TestRequest request) {
-        // Assign an incrementing test run ID
-        int testRunId = testRunIdCounter.getAndIncrement();
-        lastAssignedTestRunId.set(testRunId);
-        logger.info("Starting test run {} with {} actions", testRunId,
-                request.getActions() != null ? request.getActions().size() : 0);
+        RunHandle handle = startActions(request);
+        long testRunId = handle.getTestRunId();
+        try {
+            // Wait for the test run to complete and get its results.
+            return handle.getCompletion().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Restore interrupted status.
+            logger.error("Test run {} was interrupted.", testRunId, e);
+            cancelTestRun(testRunId); // Nobody is waiting for the results any more
+            throw new RuntimeException("Test run " + testRunId + " was interrupted.", e);
+        } catch (ExecutionException e) {
+            logger.error("Test run {} execution failed with an underlying cause.", testRunId, e.getCause());
+            throw new RuntimeException("Test run " + testRunId + " execution failed: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()), e.getCause() != null ? e.getCause() : e);
+        }
+    }
 
-        queuedCount.incrementAndGet();
-        Future<List<ActionResult>> future = null; // Declared to be in scope for activeTestRuns.put
+    /**
+     * Queues the run like any other and returns without waiting for it. The completion is finished once the
+     * run reached a terminal status on whichever node executed it: with its results, or with the partial
+     * results when it was cancelled. Cancelling the completion only stops waiting, the run goes on.
+     */
+    @Override
+    public RunHandle startActions(TestRequest request) {
+        long testRunId = submitTestAsync(request);
+        CompletableFuture<String> terminal = runEventService.awaitTerminalStatus(testRunId);
+        CompletableFuture<List<ActionResult>> completion = terminal.thenApply(status -> resultsOf(testRunId, status));
+        completion.whenComplete((results, error) -> terminal.cancel(false));
+        return new RunHandle(testRunId, completion);
+    }
 
-        try {
-            final int finalTestRunId = testRunId;
-            future = executorService.submit(() -> {
-                try {
-                    queuedCount.decrementAndGet(); // Decrement when actual execution begins
-                    logger.info("Executing test run {}", finalTestRunId);
-                    return executeActionsInternal(request, testRunId); // Pass testRunId to executeActionsInternal
-                } catch (Exception e) {
-                    logger.error("Error during execution of test run {}: {}", finalTestRunId, e.getMessage(), e);
-                    throw e; // Propagate to be caught by ExecutionException in the outer try-catch
-                }
-            });
+    private List<ActionResult> resultsOf(long testRunId, String status) {
+        RunQueueJob job = runQueueService.findJob(testRunId).orElse(null);
+        if ("finished".equals(status) && job != null) {
+            List<ActionResult> cached = testResults.get(testRunId); // Present when the run executed on this node
+            return cached != null ? cached : findPersistedResults(job)
+                    .orElseThrow(() -> new IllegalStateException("Results of test run " + testRunId + " could not be read"));
+        }
+        if ("cancelled".equals(status) && job != null) {
+            // Return the actions completed before the cancellation followed by a result indicating it
+            List<ActionResult> cancelResults = new ArrayList<>(findPersistedResults(job).orElse(List.of()));
+            cancelResults.add(new ActionResult("cancelled", "cancelled", "Test run " + testRunId + " was cancelled.", null, 0, "Test run ID: " + testRunId));
+            return cancelResults;
+        }
+        String error = job != null && job.getLastError() != null ? ": " + job.getLastError() : "";
+        throw new IllegalStateException("Test run " + testRunId + " " + status + error);
+    }
 
-            // Track this test run's Future object in the activeTestRuns map.
-            // This allows it to be cancelled later if needed.
-            activeTestRuns.put(testRunId, future);
+    @Override
+    public Optional<List<ActionResult>> findPersistedResults(RunQueueJob job) {
+        if (job.getTestRunId() == null) {
+            return Optional.empty();
+        }
+        return testRunRepository.findById(job.getTestRunId())
+                .map(testRun -> {
+                    try {
+                        return objectMapper.readValue(testRun.getResultsJson(), new TypeReference<List<ActionResult>>() {});
+                    } catch (Exception e) {
+                        logger.error("Failed to parse results of test run {}: {}", testRun.getId(), e.getMessage());
+                        return null;
+                    }
+                });
+    }
 
-            try {
-                // Wait for the test run to complete and get its results.
-                List<ActionResult> results = future.get();
-                logger.info("Test run {} completed successfully.", testRunId);
-                return results;
-            } catch (CancellationException e) {
-                logger.info("Test run {} was cancelled.", testRunId);
-                // Construct and return a result indicating cancellation.
-                List<ActionResult> cancelResults = new ArrayList<>();
-                cancelResults.add(new ActionResult("cancelled", "cancelled", "Test run " + testRunId + " was cancelled.", null, 0, "Test run ID: " + testRunId));
-                return cancelResults;
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Restore interrupted status.
-                logger.error("Test run {} was interrupted.", testRunId, e);
-                throw new RuntimeException("Test run " + testRunId + " was interrupted.", e);
-            } catch (ExecutionException e) {
-                logger.error("Test run {} execution failed with an underlying cause.", testRunId, e.getCause());
-                throw new RuntimeException("Test run " + testRunId + " execution failed: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()), e.getCause() != null ? e.getCause() : e);
+    @Override
+    public boolean cancelTestRun(long testRunId) {
+        logger.info("Attempting to cancel test run {}.", testRunId);
+        if (runQueueService.unsubscribe(testRunId)) {
+            // Identical submissions attached to the run still wait for its results
+            return true;
+        }
+        ActiveRun run = activeTestRuns.get(testRunId);
+
+        if (run == null) {
+            // Not executing on this node: it may still be waiting in the run queue
+            RunQueueJob job = runQueueService.findJob(testRunId).orElse(null);
+            if (job != null && runQueueService.cancelQueued(testRunId)) {
+                logger.info("Queued test run {} cancelled before it started.", testRunId);
+                // Linked to the job like a cancelled running run, so results polls and batch reports find it
+                Long savedId = saveCancelledTestRun(runQueueService.readRequest(job), List.of());
+                if (savedId != null) {
+                    runQueueService.linkTestRun(testRunId, savedId);
+                }
+                runEventService.publishStatus(testRunId, "cancelled");
+                runEventService.publishQueueAdvanced();
+                return true;
             }
-        } finally {
-            // Ensure the test run is removed from the activeTestRuns map
-            if (activeTestRuns.containsKey(testRunId)) {
-                activeTestRuns.remove(testRunId);
-                logger.debug("Removed test run {} from activeTestRuns map in finally block of executeActions.", testRunId);
+            run = activeTestRuns.get(testRunId); // It may have been dispatched in the meantime
+            if (run == null && runQueueService.requestCancel(testRunId)) {
+                // Running on another node, which cancels it on its next heartbeat
+                logger.info("Test run {} is running on node {}, cancellation requested.", testRunId, job.getClaimedBy());
+                return true;
             }
-            // Reset the counter only if no active test runs remain
-            if (activeTestRuns.isEmpty()) {
-                testRunIdCounter.set(1);
-                logger.info("All test runs finished. Resetting testRunIdCounter to 1.");
+            if (run == null) {
+                logger.warn("Test run {} not found in activeTestRuns or the run queue. It might have already completed or been cancelled.", testRunId);
+                return false;
             }
         }
+
+        if (!run.state.compareAndSet(ActiveRun.State.RUNNING, ActiveRun.State.CANCELLED)) {
+            logger.warn("Test run {} is already {}, it cannot be cancelled.", testRunId, run.state.get().name().toLowerCase());
+            return false;
+        }
+        run.future.cancel(true);
+        // The interrupt alone does not end a WebDriver call in progress; killing the browser does, and frees its slot now
+        BrowserSession session = run.detach();
+        if (session != null) {
+            webDriverPool.terminate(session);
+        }
+        logger.info("Test run {} cancelled after {} actions.", testRunId, run.results.size());
+        List<ActionResult> partialResults = List.copyOf(run.results);
+        removeActiveRun(testRunId);
+        runQueueService.markCancelled(testRunId);
+        // Linked to the run's job, so polls after the cancellation return the partial results from the database
+        Long savedId = saveCancelledTestRun(run.request, partialResults);
+        if (savedId != null) {
+            runQueueService.linkTestRun(testRunId, savedId);
+        }
+        runEventService.publishStatus(testRunId, "cancelled");
+        testRequests.remove(testRunId); // Clean up TestRequest
+        return true;
     }
 
+    private Long saveCancelledTestRun(TestRequest testRequest, List<ActionResult> partialResults) {
+        // Save the canceled test run to the database
+        try {
+            TestRun testRun = new TestRun();
+            testRun.setBrowser(testRequest != null ? testRequest.getBrowser() : "unknown");
+            testRun.setExecutedAt(LocalDateTime.now());
+            testRun.setActionsJson(testRequest != null ? objectMapper.writeValueAsString(testRequest.getActions()) : "[]");
+            // The actions that completed before the cancellation
+            testRun.setResultsJson(objectMapper.writeValueAsString(partialResults));
+            testRun.setStatus("cancelled");
+            testRun.setSuiteId(testRequest != null ? testRequest.getSuiteId() : null);
+            return runStatisticsService.saveTestRun(testRun, partialResults).getId();
+        } catch (Exception e) {
+            logger.error("Failed to save canceled test run to the database", e);
+            return null;
+        }
+    }
+
+    // Submit test asynchronously and return testRunId immediately
     @Override
-    public boolean cancelTestRun(long testRunId) {
-        logger.info("Attempting to cancel test run {}.", testRunId);
-        Future<?> future = activeTestRuns.get((int) testRunId);
+    public long submitTestAsync(TestRequest request) {
+        // Reject invalid requests up front instead of queueing a run that is bound to fail
+        executionPlanCompiler.compile(request);
+        RunPriority priority = request.getPriority() != null ? request.getPriority() : RunPriority.CI;
+        // An identical run already in flight answers this submission too, without another browser
+        String coalesceKey = coalesceSubmissions ? runQueueService.coalesceKey(request) : null;
+        if (coalesceKey != null) {
+            Optional<RunQueueJob> inFlight = runQueueService.attachToInFlight(coalesceKey, priority);
+            if (inFlight.isPresent()) {
+                return inFlight.get().getId();
+            }
+        }
+        // Admitted and queued in one transaction, the admission lock keeps concurrent submissions from overshooting the limits
+        RunQueueJob job = transactionTemplate.execute(status -> {
+            admissionService.admit(request.getSubmittedBy(), priority, Map.of(SeleniumUtils.normalizeBrowser(request.getBrowser()), 1));
+            return coalesceKey != null ? runQueueService.enqueueCoalescing(request, coalesceKey) : runQueueService.enqueue(request);
+        });
+        logger.info("Queued test run {}", job.getId());
+        // Start it right away when a slot is free instead of waiting for the next poll
+        dispatchQueuedRuns();
+        return job.getId();
+    }
 
-        if (future == null) {
-            logger.warn("Test run {} not found in activeTestRuns. It might have already completed or been cancelled.", testRunId);
-            return false;
+    /**
+     * Claims queued runs from the shared run queue while this node has free executor slots. Only runs
+     * for browsers whose pool has a free slot and whose projected memory fits the budget are claimed.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${run.queue.poll-interval-ms:1000}")
+    public void dispatchQueuedRuns() {
+        if (!workerNodeService.isExecutionEnabled() || executors.isEmpty() || !dispatchLock.tryLock()) {
+            return;
         }
+        try {
+            boolean dispatched = false;
+            List<String> browsers;
+            while (!(browsers = browsersWithFreeSlots()).isEmpty()) {
+                Optional<RunQueueJob> claimed = runQueueService.claimNext(nodeIdentity.getNodeId(), browsers);
+                if (claimed.isEmpty()) {
+                    break;
+                }
+                dispatch(claimed.get());
+                dispatched = true;
+            }
+            if (dispatched) {
+                // Every run still waiting moved up in the queue
+                runEventService.publishQueueAdvanced();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to dispatch queued test runs: {}", e.getMessage(), e);
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
 
-        boolean cancelled = future.cancel(true);
+    private List<String> browsersWithFreeSlots() {
+        return workerNodeService.getSupportedBrowsers().stream()
+                .filter(browser -> getActiveRunCount(browser) < getMaxParallelTests(browser))
+                .filter(browserMemoryService::fits)
+                .toList();
+    }
 
-        if (cancelled) {
-            logger.info("Test run {} successfully cancelled via future.cancel(true).", testRunId);
-            activeTestRuns.remove((int) testRunId);
+    /**
+     * Renews the leases of runs executing on this node, stops runs that were cancelled through another node
+     * and re-queues runs whose owner stopped heart-beating.
+     */
+    @Scheduled(fixedDelayString = "${run.queue.heartbeat-interval-ms:10000}")
+    public void heartbeatRunningJobs() {
+        try {
+            runQueueService.renewLeases(new ArrayList<>(activeTestRuns.keySet()), nodeIdentity.getNodeId());
+            for (Long testRunId : runQueueService.findCancelRequested(nodeIdentity.getNodeId())) {
+                if (activeTestRuns.containsKey(testRunId)) {
+                    cancelTestRun(testRunId);
+                } else {
+                    runQueueService.markCancelled(testRunId);
+                }
+            }
+            if (runQueueService.reclaimExpired() > 0) {
+                runEventService.publishQueueAdvanced();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to renew run queue leases: {}", e.getMessage(), e);
+        }
+    }
 
-            TestRequest testRequest = testRequests.get((int) testRunId); // Retrieve the TestRequest
+    private void dispatch(RunQueueJob job) {
+        long testRunId = job.getId();
+        TestRequest request;
+        try {
+            request = runQueueService.readRequest(job);
+        } catch (Exception e) {
+            logger.error("Test run {} has an unreadable request: {}", testRunId, e.getMessage());
+            runQueueService.markFailed(testRunId, nodeIdentity.getNodeId(), e.getMessage());
+            runEventService.publishStatus(testRunId, "failed");
+            return;
+        }
+        testRequests.put(testRunId, request);
+        runEventService.publishStatus(testRunId, "running");
 
-            // Save the canceled test run to the database
+        FutureTask<Void> future = new FutureTask<>(() -> {
             try {
-                TestRun testRun = new TestRun();
-                testRun.setBrowser(testRequest != null ? testRequest.getBrowser() : "unknown");
-                testRun.setExecutedAt(LocalDateTime.now());
-                testRun.setActionsJson(testRequest != null ? objectMapper.writeValueAsString(testRequest.getActions()) : "[]");
-                // Directly use the results from the testResults map
-                testRun.setResultsJson("[]"); // No results to save since it was cancelled
-                testRun.setStatus("cancelled");
-                testRunRepository.save(testRun);
+                List<ActionResult> resultsInternal = runJob(testRunId, request);
+                logger.info("For testRunId {}: executeActionsInternal returned. Results null? {}", testRunId, resultsInternal == null);
+                testResults.put(testRunId, resultsInternal);
+                logger.info("For testRunId {}: Put results into map. Map size: {}", testRunId, testResults.size());
+            } catch (CancellationException e) {
+                // cancelTestRun already persisted the partial results
+                logger.info("For testRunId {}: Run stopped after cancellation.", testRunId);
             } catch (Exception e) {
-                logger.error("Failed to save canceled test run to the database", e);
+                logger.error("For testRunId {}: Error in async test run: {}", testRunId, e.getMessage(), e);
+                testResults.put(testRunId, List.of());
+                logger.info("For testRunId {}: Put empty list into map due to error. Map size: {}", testRunId, testResults.size());
+            } finally {
+                removeActiveRun(testRunId);
+                testRequests.remove(testRunId); // Clean up TestRequest after completion
+                publishFinalStatus(testRunId);
             }
-        } else {
-            logger.warn("Failed to cancel test run {} via future.cancel(true). It may have already completed, been cancelled, or is non-interruptible.", testRunId);
+            return null;
+        });
+        startRun(testRunId, request, future);
+    }
+
+    private void startRun(long testRunId, TestRequest request, FutureTask<?> future) {
+        String browser = SeleniumUtils.normalizeBrowser(request.getBrowser());
+        browserMemoryService.reserve(testRunId, browser);
+        activeTestRuns.put(testRunId, new ActiveRun(browser, request, future));
+        executors.get(browser).execute(future);
+    }
+
+    private void removeActiveRun(long testRunId) {
+        ActiveRun run = activeTestRuns.remove(testRunId);
+        if (run != null) {
+            run.clearDeadlines();
+        }
+        browserMemoryService.release(testRunId);
+    }
+
+    // Publishes the status recorded in the run queue once the run has left this node
+    private void publishFinalStatus(long testRunId) {
+        try {
+            String status = runQueueService.findJob(testRunId).map(RunQueueJob::getStatus).orElse("not_found");
+            runEventService.publishStatus(testRunId, status);
+        } catch (Exception e) {
+            logger.warn("Failed to publish final status of test run {}: {}", testRunId, e.getMessage());
         }
-        testRequests.remove((int) testRunId); // Clean up TestRequest
-        return cancelled;
     }
 
-    public static int getQueuedCount() { // Ensure this method exists if it was part of previous thoughts, or adjust if queuedCount was removed
-        return executorService.getQueue().size();
+    // Runs a claimed job and records the outcome in the run queue
+    private List<ActionResult> runJob(long testRunId, TestRequest request) {
+        try {
+            return executeActionsInternal(request, testRunId);
+        } catch (CancellationException e) {
+            throw e; // Recorded as cancelled by cancelTestRun
+        } catch (RuntimeException e) {
+            runQueueService.markFailed(testRunId, nodeIdentity.getNodeId(), e.getMessage());
+            throw e;
+        }
     }
 
     // The original logic moved to a new method
-    private List<ActionResult> executeActionsInternal(TestRequest request, int testRunId) {
-        validateTestRequest(request);
-        String browser = request.getBrowser() != null ? request.getBrowser() : "chrome";
-        WebDriver driver = SeleniumConfig.createDriver(browser);
+    private List<ActionResult> executeActionsInternal(TestRequest request, long testRunId) {
+        // Suite runs reuse the plan compiled for the suite, other requests are validated and compiled here
+        ExecutionPlan plan = executionPlanCompiler.compile(request);
+        String browser = SeleniumUtils.normalizeBrowser(request.getBrowser());
         List<ActionResult> results = List.of();
 
         // Handle test data if provided
-        List<Map<String, Object>> resolvedActions = request.getActions();
-        if (request.getTestDataId() != null) {
+        if (request.getVariables() != null) {
+            // Parsed once when a data-driven batch was submitted
+            plan = executionPlanCompiler.bind(plan, request.getVariables());
+        } else if (request.getTestDataId() != null) {
             try {
                 TestData testData = testDataService.getTestData(request.getTestDataId());
                 // Properly parse the JSON string into a Map
                 Map<String, Object> variables = objectMapper.readValue(testData.getDataJson(), new TypeReference<>() {
                 });
                 logger.info("Loaded test data variables: {}", variables);
-
-                resolvedActions = request.getActions().stream()
-                        .map(action -> {
-                            Map<String, Object> resolvedAction = testDataService.resolveVariables(new HashMap<>(action), variables);
-                            logger.info("Original action: {}, Resolved action: {}", action, resolvedAction);
-                            return resolvedAction;
-                        })
-                        .toList();
+                plan = executionPlanCompiler.bind(plan, variables);
             } catch (Exception e) {
                 logger.error("Failed to process test data: {}", e.getMessage(), e);
                 throw new ValidationException("Failed to process test data: " + e.getMessage());
             }
         }
 
+        // Borrow a warm session from the pool instead of launching a new browser for every run
+        BrowserSession session = webDriverPool.acquire(browser);
+        ActiveRun run = activeTestRuns.get(testRunId);
+        if (run == null || !run.attach(session)) {
+            webDriverPool.release(session);
+            throw new CancellationException("Test run " + testRunId + " was cancelled before it started");
+        }
+        browserMemoryService.attach(testRunId, session);
+        int runDeadlineSeconds = request.getRunDeadlineSeconds() != null ? request.getRunDeadlineSeconds() : defaultRunDeadlineSeconds;
+        int actionDeadlineSeconds = request.getActionDeadlineSeconds() != null ? request.getActionDeadlineSeconds() : defaultActionDeadlineSeconds;
+        if (runDeadlineSeconds > 0) {
+            run.runDeadline = deadlineWatchdog.schedule(runDeadlineSeconds * 1000L,
+                    () -> timeOutRun(testRunId, run, "Run deadline of " + runDeadlineSeconds + " s exceeded."));
+        }
+        armActionDeadline(testRunId, run, actionDeadlineSeconds);
+        long peakRssBytes;
         try {
-            SeleniumActionExecutor executor = new SeleniumActionExecutor(driver);
-            results = executor.executeActions(resolvedActions, request.isStopOnFailure());
+            if (request.getWindowSize() != null) {
+                session.resizeWindow(SeleniumUtils.parseWindowSize(request.getWindowSize()));
+            }
+            SeleniumActionExecutor executor = new SeleniumActionExecutor(session.getDriver());
+            // Stream every result to subscribers as soon as its action completes
+            boolean sampleLatency = adaptiveConcurrencyService.isEnabled();
+            results = executor.executePlan(plan, request.isStopOnFailure(), (index, result) -> {
+                if (!run.isRunning()) {
+                    return; // Failures caused by tearing the browser down are not results of the run
+                }
+                run.results.add(result);
+                // The next action starts now and gets a fresh budget
+                armActionDeadline(testRunId, run, actionDeadlineSeconds);
+                runEventService.publishResult(testRunId, index, result);
+                if (sampleLatency && "success".equals(result.getStatus())) {
+                    adaptiveConcurrencyService.recordActionLatency(browser, result.getAction(), result.getExecutionTimeMillis());
+                }
+            });
             if (results == null) { // Ensure results is never null if method completes normally
-                logger.warn("SeleniumActionExecutor.executeActions returned null. Defaulting to an empty list of results.");
+                logger.warn("SeleniumActionExecutor.executePlan returned null. Defaulting to an empty list of results.");
                 results = new ArrayList<>();
             }
         } finally {
-            driver.quit();
+            peakRssBytes = browserMemoryService.release(testRunId);
+            // Null when a cancellation took the session to tear it down
+            BrowserSession ownSession = run.detach();
+            if (ownSession != null) {
+                webDriverPool.release(ownSession);
+            }
+        }
+        run.clearDeadlines();
+        if (!run.state.compareAndSet(ActiveRun.State.RUNNING, ActiveRun.State.COMPLETED)) {
+            if (run.state.get() == ActiveRun.State.CANCELLED) {
+                throw new CancellationException("Test run " + testRunId + " was cancelled");
+            }
+            // Timed out: the interrupt was meant for the browser calls, not for saving the results below
+            run.stopInterrupts();
+            results = timedOutResults(plan, run);
         }
 
         // Save test run to DB
@@ -269,10 +706,15 @@ public class TestServiceImpl implements TestService {
             TestRun testRun = new TestRun();
             testRun.setBrowser(browser);
             testRun.setExecutedAt(LocalDateTime.now());
-            testRun.setActionsJson(objectMapper.writeValueAsString(request.getActions()));
+            testRun.setActionsJson(objectMapper.writeValueAsString(plan.getActions()));
             testRun.setResultsJson(objectMapper.writeValueAsString(results));
             testRun.setStatus("finished"); // Set status to finished
-            testRunRepository.save(testRun);
+            testRun.setSuiteId(request.getSuiteId());
+            testRun.setPeakRssBytes(peakRssBytes > 0 ? peakRssBytes : null);
+            runStatisticsService.saveTestRun(testRun, results);
+            boolean passed = results.stream().noneMatch(result -> "failure".equalsIgnoreCase(result.getStatus())
+                    || "timeout".equalsIgnoreCase(result.getStatus()));
+            runQueueService.markFinished(testRunId, nodeIdentity.getNodeId(), testRun.getId(), passed);
             // Generate and save HTML report
             String htmlContent = generateHtmlReport(results);
             String reportPath = saveHtmlReport(testRun, htmlContent);
@@ -287,230 +729,59 @@ public class TestServiceImpl implements TestService {
             testReportRepository.save(testReport);
         } catch (Exception e) {
             logger.error("Failed to save test run to the database", e);
+            runQueueService.markFailed(testRunId, nodeIdentity.getNodeId(), "Failed to save test run: " + e.getMessage());
         }
 
         return results;
     }
 
-    private void validateTestRequest(TestRequest request) {
-        if (request == null) {
-            throw new ValidationException("Request body is missing.");
+    private void armActionDeadline(long testRunId, ActiveRun run, int actionDeadlineSeconds) {
+        if (actionDeadlineSeconds <= 0) {
+            return;
         }
-        if (request.getBrowser() != null) {
-            String browser = request.getBrowser().toLowerCase();
-            if (!browser.equals("chrome") && !browser.equals("firefox") && !browser.equals("edge")) {
-                throw new ValidationException("Unsupported browser type: " + request.getBrowser());
+        synchronized (run) {
+            if (run.actionDeadline != null) {
+                run.actionDeadline.cancel();
             }
+            run.actionDeadline = deadlineWatchdog.schedule(actionDeadlineSeconds * 1000L,
+                    () -> timeOutRun(testRunId, run, "Action deadline of " + actionDeadlineSeconds + " s exceeded."));
         }
-        if (request.getActions() == null || request.getActions().isEmpty()) {
-            throw new ValidationException("Actions list is missing or empty.");
+    }
+
+    /**
+     * Called on the watchdog thread when a deadline expires. Kills the browser so the blocked action returns
+     * right away; the run's own thread then records the step as timed out and saves the results.
+     */
+    private void timeOutRun(long testRunId, ActiveRun run, String message) {
+        if (!run.state.compareAndSet(ActiveRun.State.RUNNING, ActiveRun.State.TIMED_OUT)) {
+            return;
         }
-        int i = 0;
-        for (Object actionObj : request.getActions()) {
-            if (!(actionObj instanceof Map)) {
-                throw new ValidationException("Action at index " + i + " is not a valid object.");
-            }
-            // Suppressed unchecked cast warnings
-            @SuppressWarnings("unchecked")
-            Map<String, Object> action = (Map<String, Object>) actionObj;
-            String type = (String) action.get("action");
-            if (type == null || type.isBlank()) {
-                throw new ValidationException("Action type is missing at index " + i + ".");
-            }
-            // List of supported actions
-            final List<String> supportedActions = List.of(
-                    "navigate", "click", "type", "wait", "select", "check", "uncheck", "hover", "scroll", "upload", "assert", "doubleclick", "draganddrop"
-            );
-            if (!supportedActions.contains(type.toLowerCase())) {
-                throw new ValidationException("Unsupported action: '" + type + "' at index " + i + ".");
-            }
-            switch (type.toLowerCase()) {
-                case "navigate" -> {
-                    if (action.get("url") == null || ((String) action.get("url")).isBlank()) {
-                        throw new ValidationException("'url' is required for 'navigate' action at index " + i + ".");
-                    }
-                }
-                case "click", "type" -> {
-                    if (action.get("locator") == null || !(action.get("locator") instanceof Map)) {
-                        throw new ValidationException("'locator' is required for '" + type + "' action at index " + i + ".");
-                    }
-                    // Suppressed unchecked cast warnings
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> locator = (Map<String, String>) action.get("locator");
-                    if (!locator.containsKey("type") || !locator.containsKey("value") || locator.get("type").isBlank() || locator.get("value").isBlank()) {
-                        throw new ValidationException("'locator.type' and 'locator.value' are required for '" + type + "' action at index " + i + ".");
-                    }
-                    String locatorType = locator.get("type").toLowerCase();
-                    if (!locatorType.equals("id") && !locatorType.equals("name") && !locatorType.equals("xpath") && !locatorType.equals("cssselector") &&
-                            !locatorType.equals("classname") && !locatorType.equals("tagname") && !locatorType.equals("linktext") && !locatorType.equals("partiallinktext")) {
-                        throw new ValidationException("Unsupported locator type: '" + locatorType + "' for action '" + type + "' at index " + i + ".");
-                    }
-                    if (type.equalsIgnoreCase("type") && (action.get("text") == null || ((String) action.get("text")).isBlank())) {
-                        throw new ValidationException("'text' is required for 'type' action at index " + i + ".");
-                    }
-                }
-                case "wait" -> {
-                    if (action.get("seconds") == null) {
-                        throw new ValidationException("'seconds' is required for 'wait' action at index " + i + ".");
-                    }
-                    Object secondsObj = action.get("seconds");
-                    int seconds;
-                    try {
-                        seconds = (secondsObj instanceof Number) ? ((Number) secondsObj).intValue() : Integer.parseInt(secondsObj.toString());
-                    } catch (Exception e) {
-                        throw new ValidationException("'seconds' must be a valid integer for 'wait' action at index " + i + ".");
-                    }
-                    if (seconds < 0) {
-                        throw new ValidationException("'seconds' must be non-negative for 'wait' action at index " + i + ".");
-                    }
-                }
-                case "select" -> {
-                    if (action.get("locator") == null || !(action.get("locator") instanceof Map)) {
-                        throw new ValidationException("'locator' is required for 'select' action at index " + i + ".");
-                    }
-                    // Suppressed unchecked cast warnings
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> locator = (Map<String, String>) action.get("locator");
-                    if (!locator.containsKey("type") || !locator.containsKey("value") || locator.get("type").isBlank() || locator.get("value").isBlank()) {
-                        throw new ValidationException("'locator.type' and 'locator.value' are required for 'select' action at index " + i + ".");
-                    }
-                    String locatorType = locator.get("type").toLowerCase();
-                    if (!locatorType.equals("id") && !locatorType.equals("name") && !locatorType.equals("xpath") && !locatorType.equals("cssselector") &&
-                            !locatorType.equals("classname") && !locatorType.equals("tagname") && !locatorType.equals("linktext") && !locatorType.equals("partiallinktext")) {
-                        throw new ValidationException("Unsupported locator type: '" + locatorType + "' for action '" + type + "' at index " + i + ".");
-                    }
-                    if (action.get("selectBy") == null || ((String) action.get("selectBy")).isBlank()) {
-                        throw new ValidationException("'selectBy' is required for 'select' action at index " + i + ".");
-                    }
-                    String selectBy = ((String) action.get("selectBy")).toLowerCase();
-                    if (!selectBy.equals("value") && !selectBy.equals("visibletext") && !selectBy.equals("index")) {
-                        throw new ValidationException("'selectBy' must be one of 'value', 'visibleText', or 'index' for 'select' action at index " + i + ".");
-                    }
-                    if (action.get("option") == null || ((String) action.get("option")).isBlank()) {
-                        throw new ValidationException("'option' is required for 'select' action at index " + i + ".");
-                    }
-                }
-                case "check", "uncheck" -> {
-                    if (action.get("locator") == null || !(action.get("locator") instanceof Map)) {
-                        throw new ValidationException("'locator' is required for '" + type + "' action at index " + i + ".");
-                    }
-                    // Suppressed unchecked cast warnings
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> locator = (Map<String, String>) action.get("locator");
-                    if (!locator.containsKey("type") || !locator.containsKey("value") || locator.get("type").isBlank() || locator.get("value").isBlank()) {
-                        throw new ValidationException("'locator.type' and 'locator.value' are required for '" + type + "' action at index " + i + ".");
-                    }
-                    String locatorType = locator.get("type").toLowerCase();
-                    if (!locatorType.equals("id") && !locatorType.equals("name") && !locatorType.equals("xpath") && !locatorType.equals("cssselector") &&
-                            !locatorType.equals("classname") && !locatorType.equals("tagname") && !locatorType.equals("linktext") && !locatorType.equals("partiallinktext")) {
-                        throw new ValidationException("Unsupported locator type: '" + locatorType + "' for action '" + type + "' at index " + i + ".");
-                    }
-                }
-                case "assert" -> {
-                    if (action.get("condition") == null || ((String) action.get("condition")).isBlank()) {
-                        throw new ValidationException("'condition' is required for 'assert' action at index " + i + ".");
-                    }
-                    String condition = ((String) action.get("condition")).toLowerCase();
-                    switch (condition) {
-                        case "text", "title" -> {
-                            if (condition.equals("text")) {
-                                if (action.get("locator") == null || !(action.get("locator") instanceof Map)) {
-                                    throw new ValidationException("'locator' is required for 'assert' with 'text' condition at index " + i + ".");
-                                }
-                                // Suppressed unchecked cast warnings
-                                @SuppressWarnings("unchecked")
-                                Map<String, String> locator = (Map<String, String>) action.get("locator");
-                                if (!locator.containsKey("type") || !locator.containsKey("value") || locator.get("type").isBlank() || locator.get("value").isBlank()) {
-                                    throw new ValidationException("'locator.type' and 'locator.value' are required for 'assert' with 'text' condition at index " + i + ".");
-                                }
-                            }
-                            if (action.get("expected") == null || ((String) action.get("expected")).isBlank()) {
-                                throw new ValidationException("'expected' is required for 'assert' with '" + condition + "' condition at index " + i + ".");
-                            }
-                        }
-                        case "elementpresent", "elementvisible", "elementenabled" -> {
-                            if (action.get("locator") == null || !(action.get("locator") instanceof Map)) {
-                                throw new ValidationException("'locator' is required for 'assert' with '" + condition + "' condition at index " + i + ".");
-                            }
-                            // Suppressed unchecked cast warnings
-                            @SuppressWarnings("unchecked")
-                            Map<String, String> locator = (Map<String, String>) action.get("locator");
-                            if (!locator.containsKey("type") || !locator.containsKey("value") || locator.get("type").isBlank() || locator.get("value").isBlank()) {
-                                throw new ValidationException("'locator.type' and 'locator.value' are required for 'assert' with '" + condition + "' condition at index " + i + ".");
-                            }
-                        }
-                        case "attributevalue" -> {
-                            if (action.get("locator") == null || !(action.get("locator") instanceof Map)) {
-                                throw new ValidationException("'locator' is required for 'assert' with 'attributeValue' condition at index " + i + ".");
-                            }
-                            // Suppressed unchecked cast warnings
-                            @SuppressWarnings("unchecked")
-                            Map<String, String> locator = (Map<String, String>) action.get("locator");
-                            if (!locator.containsKey("type") || !locator.containsKey("value") || locator.get("type").isBlank() || locator.get("value").isBlank()) {
-                                throw new ValidationException("'locator.type' and 'locator.value' are required for 'assert' with 'attributeValue' condition at index " + i + ".");
-                            }
-                            if (action.get("attribute") == null || ((String) action.get("attribute")).isBlank()) {
-                                throw new ValidationException("'attribute' is required for 'assert' with 'attributeValue' condition at index " + i + ".");
-                            }
-                            if (action.get("expected") == null || ((String) action.get("expected")).isBlank()) {
-                                throw new ValidationException("'expected' is required for 'assert' with 'attributeValue' condition at index " + i + ".");
-                            }
-                        }
-                        default ->
-                                throw new ValidationException("Unsupported assertion condition: '" + condition + "' at index " + i + ".");
-                    }
-                }
-                case "doubleclick" -> {
-                    if (action.get("locator") == null || !(action.get("locator") instanceof Map)) {
-                        throw new ValidationException("'locator' is required for 'doubleclick' action at index " + i + ".");
-                    }
-                    // Suppressed unchecked cast warnings
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> locator = (Map<String, String>) action.get("locator");
-                    if (!locator.containsKey("type") || !locator.containsKey("value") || locator.get("type").isBlank() || locator.get("value").isBlank()) {
-                        throw new ValidationException("'locator.type' and 'locator.value' are required for 'doubleclick' action at index " + i + ".");
-                    }
-                    String locatorType = locator.get("type").toLowerCase();
-                    if (!locatorType.equals("id") && !locatorType.equals("name") && !locatorType.equals("xpath") && !locatorType.equals("cssselector") &&
-                            !locatorType.equals("classname") && !locatorType.equals("tagname") && !locatorType.equals("linktext") && !locatorType.equals("partiallinktext")) {
-                        throw new ValidationException("Unsupported locator type: '" + locatorType + "' for action 'doubleclick' at index " + i + ".");
-                    }
-                }
-                case "draganddrop" -> {
-                    if (action.get("sourceLocator") == null || !(action.get("sourceLocator") instanceof Map)) {
-                        throw new ValidationException("'sourceLocator' is required for 'draganddrop' action at index " + i + ".");
-                    }
-                    if (action.get("targetLocator") == null || !(action.get("targetLocator") instanceof Map)) {
-                        throw new ValidationException("'targetLocator' is required for 'draganddrop' action at index " + i + ".");
-                    }
-                    // Suppressed unchecked cast warnings
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> sourceLocator = (Map<String, String>) action.get("sourceLocator");
-                    // Suppressed unchecked cast warnings
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> targetLocator = (Map<String, String>) action.get("targetLocator");
-                    if (!sourceLocator.containsKey("type") || !sourceLocator.containsKey("value") || sourceLocator.get("type").isBlank() || sourceLocator.get("value").isBlank()) {
-                        throw new ValidationException("'sourceLocator.type' and 'sourceLocator.value' are required for 'draganddrop' action at index " + i + ".");
-                    }
-                    if (!targetLocator.containsKey("type") || !targetLocator.containsKey("value") || targetLocator.get("type").isBlank() || targetLocator.get("value").isBlank()) {
-                        throw new ValidationException("'targetLocator.type' and 'targetLocator.value' are required for 'draganddrop' action at index " + i + ".");
-                    }
-                    String sourceLocatorType = sourceLocator.get("type").toLowerCase();
-                    String targetLocatorType = targetLocator.get("type").toLowerCase();
-                    if (!sourceLocatorType.equals("id") && !sourceLocatorType.equals("name") && !sourceLocatorType.equals("xpath") && !sourceLocatorType.equals("cssselector") &&
-                            !sourceLocatorType.equals("classname") && !sourceLocatorType.equals("tagname") && !sourceLocatorType.equals("linktext") && !sourceLocatorType.equals("partiallinktext")) {
-                        throw new ValidationException("Unsupported sourceLocator type: '" + sourceLocatorType + "' for action 'draganddrop' at index " + i + ".");
-                    }
-                    if (!targetLocatorType.equals("id") && !targetLocatorType.equals("name") && !targetLocatorType.equals("xpath") && !targetLocatorType.equals("cssselector") &&
-                            !targetLocatorType.equals("classname") && !targetLocatorType.equals("tagname") && !targetLocatorType.equals("linktext") && !targetLocatorType.equals("partiallinktext")) {
-                        throw new ValidationException("Unsupported targetLocator type: '" + targetLocatorType + "' for action 'draganddrop' at index " + i + ".");
-                    }
-                }
-            }
-            i++;
+        logger.warn("Test run {} timed out after {} actions: {}", testRunId, run.results.size(), message);
+        run.timeoutMessage = message;
+        run.clearDeadlines();
+        BrowserSession session = run.detach();
+        run.interruptWorker();
+        if (session != null) {
+            // Tearing the browser down blocks on process exits, keep the watchdog thread free for other deadlines
+            teardownExecutor.execute(() -> webDriverPool.terminate(session));
         }
     }
 
+    // The completed actions, the step that was executing marked as timed out and the steps never started as skipped
+    private List<ActionResult> timedOutResults(ExecutionPlan plan, ActiveRun run) {
+        List<ActionResult> results = new ArrayList<>(run.results);
+        List<PlanStep> steps = plan.getSteps();
+        if (results.size() < steps.size()) {
+            PlanStep current = steps.get(results.size());
+            results.add(new ActionResult(current.getActionType(), "timeout", run.timeoutMessage, null, 0, current.getDetails()));
+        }
+        for (int i = results.size(); i < steps.size(); i++) {
+            results.add(new ActionResult(steps.get(i).getActionType(), "skipped",
+                    "Action was not executed because the run timed out.", null, 0, steps.get(i).getDetails()));
+        }
+        return results;
+    }
+
     private String generateHtmlReport(List<ActionResult> results) {
         Context context = new Context();
         context.setVariable("results", results);
@@ -538,56 +809,20 @@ public class TestServiceImpl implements TestService {
         }
     }
 
-    public static List<ActionResult> getResultsForRun(int testRunId) {
+    public static List<ActionResult> getResultsForRun(long testRunId) {
         logger.debug("Fetching results for testRunId: {}", testRunId);
         List<ActionResult> results = testResults.get(testRunId);
         if (results == null) {
-            logger.warn("No results found for testRunId: {}", testRunId);
+            // Not run on this node, still running or evicted; the caller falls back to the run queue and database
+            logger.debug("No in-memory results for testRunId: {}", testRunId);
         } else {
             logger.info("Results successfully fetched for testRunId: {}", testRunId);
         }
         return results;
     }
 
-    // Submit test asynchronously and return testRunId immediately
-    public int submitTestAsync(TestRequest request) {
-        int testRunId = testRunIdCounter.getAndIncrement(); // Get ID
-        testRequests.put(testRunId, request); // Store the TestRequest
-        logger.info("Storing TestRequest in map for test run {}", testRunId);
-
-        Future<?> future;
-        try {
-            future = executorService.submit(() -> {
-                try {
-                    List<ActionResult> resultsInternal = executeActionsInternal(request, testRunId);
-                    logger.info("For testRunId {}: executeActionsInternal returned. Results null? {}", testRunId, resultsInternal == null);
-                    testResults.put(testRunId, resultsInternal);
-                    logger.info("For testRunId {}: Put results into map. Map size: {}", testRunId, testResults.size());
-                } catch (Exception e) {
-                    logger.error("For testRunId {}: Error in async test run: {}", testRunId, e.getMessage(), e);
-                    testResults.put(testRunId, List.of());
-                    logger.info("For testRunId {}: Put empty list into map due to error. Map size: {}", testRunId, testResults.size());
-                } finally {
-                    activeTestRuns.remove(testRunId);
-                    testRequests.remove(testRunId); // Clean up TestRequest after completion
-                    if (activeTestRuns.isEmpty() && executorService.getQueue().isEmpty()) {
-                        testRunIdCounter.set(1);
-                        logger.info("All active test runs finished and executor queue is empty. Resetting testRunIdCounter to 1.");
-                    }
-                }
-            });
-            activeTestRuns.put(testRunId, future);
-        } catch (RejectedExecutionException ree) {
-            testRequests.remove(testRunId); // Clean up TestRequest if execution is rejected
-            logger.error("Test run {} rejected by executor service: {}", testRunId, ree.getMessage());
-            throw new RuntimeException("Test execution queue is full. Please try again later.", ree);
-        }
-        return testRunId;
-    }
-
-    public static void clearPersistedTestResults(int testRunId) {
-        if (testResults.containsKey(testRunId)) {
-            testResults.remove(testRunId);
+    public static void clearPersistedTestResults(long testRunId) {
+        if (testResults.remove(testRunId) != null) {
             logger.info("Cleared persisted results for test run ID: {}", testRunId);
         } else {
             logger.warn("Attempted to clear results for test run ID: {}, but they were not found.", testRunId);
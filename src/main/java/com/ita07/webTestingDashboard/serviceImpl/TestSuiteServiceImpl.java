@@ -32,6 +32,8 @@ public class TestSuiteServiceImpl implements TestSuiteService {
         toUpdate.setName(testSuite.getName());
         toUpdate.setDescription(testSuite.getDescription());
         toUpdate.setActionsJson(testSuite.getActionsJson());
+        toUpdate.setRunDeadlineSeconds(testSuite.getRunDeadlineSeconds());
+        toUpdate.setActionDeadlineSeconds(testSuite.getActionDeadlineSeconds());
         toUpdate.setUpdatedAt(LocalDateTime.now());
         return testSuiteRepository.save(toUpdate);
     }
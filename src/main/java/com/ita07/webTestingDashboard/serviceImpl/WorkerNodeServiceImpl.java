@@ -0,0 +1,191 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ita07.webTestingDashboard.config.NodeIdentity;
+import com.ita07.webTestingDashboard.model.WorkerNode;
+import com.ita07.webTestingDashboard.repository.WorkerNodeRepository;
+import com.ita07.webTestingDashboard.selenium.utils.SeleniumUtils;
+import com.ita07.webTestingDashboard.service.WorkerNodeService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class WorkerNodeServiceImpl implements WorkerNodeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerNodeServiceImpl.class);
+
+    @Autowired
+    private WorkerNodeRepository workerNodeRepository;
+
+    @Autowired
+    private NodeIdentity nodeIdentity;
+
+    // "full" serves the dashboard and executes runs, "worker" only executes runs
+    @Value("${dashboard.node.mode:full}")
+    private String mode;
+
+    // A dashboard-only node can set this to false and leave execution to worker nodes
+    @Value("${run.queue.execute:true}")
+    private boolean executionEnabled;
+
+    @Value("${worker.browsers:chrome,firefox,edge}")
+    private List<String> supportedBrowsers;
+
+    @Value("${worker.heartbeat-interval-ms:10000}")
+    private long heartbeatIntervalMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile boolean registered = false;
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() {
+        WorkerNode node = new WorkerNode();
+        node.setNodeId(nodeIdentity.getNodeId());
+        node.setHostname(hostname());
+        node.setMode(mode);
+        node.setStartedAt(LocalDateTime.now());
+        updateState(node);
+        workerNodeRepository.save(node);
+        registered = true;
+        logger.info("Registered node {} in '{}' mode with capacity {}", node.getNodeId(), mode, getCapacity());
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${worker.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        if (!registered) {
+            return;
+        }
+        WorkerNode node = workerNodeRepository.findById(nodeIdentity.getNodeId()).orElseGet(() -> {
+            // Row was removed as stale (e.g. after a long GC pause); register again
+            WorkerNode fresh = new WorkerNode();
+            fresh.setNodeId(nodeIdentity.getNodeId());
+            fresh.setHostname(hostname());
+            fresh.setMode(mode);
+            fresh.setStartedAt(LocalDateTime.now());
+            return fresh;
+        });
+        updateState(node);
+        workerNodeRepository.save(node);
+        int removed = workerNodeRepository.deleteStale(LocalDateTime.now().minus(Duration.ofMillis(heartbeatIntervalMs * 10)));
+        if (removed > 0) {
+            logger.info("Removed {} stale node registrations", removed);
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void deregister() {
+        if (!registered) {
+            return;
+        }
+        try {
+            workerNodeRepository.deleteById(nodeIdentity.getNodeId());
+            logger.info("Deregistered node {}", nodeIdentity.getNodeId());
+        } catch (Exception e) {
+            logger.warn("Failed to deregister node {}: {}", nodeIdentity.getNodeId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public List<WorkerNode> getLiveNodes() {
+        LocalDateTime since = LocalDateTime.now().minus(Duration.ofMillis(heartbeatIntervalMs * 3));
+        return workerNodeRepository.findByLastSeenAtAfterOrderByStartedAt(since);
+    }
+
+    // Concurrent runs of all live nodes; every browser has its own pool, so a node runs the sum of its pools at once
+    @Override
+    public int getClusterSlots() {
+        int slots = 0;
+        for (Map<String, Integer> capacity : getLiveCapacities()) {
+            slots += capacity.values().stream().mapToInt(Integer::intValue).sum();
+        }
+        if (slots == 0) {
+            slots = SeleniumUtils.SUPPORTED_BROWSERS.stream().mapToInt(TestServiceImpl::getMaxParallelTests).sum();
+        }
+        return Math.max(1, slots);
+    }
+
+    @Override
+    public int getClusterSlots(String browser) {
+        int slots = 0;
+        for (Map<String, Integer> capacity : getLiveCapacities()) {
+            slots += capacity.getOrDefault(browser, 0);
+        }
+        if (slots == 0) {
+            slots = TestServiceImpl.getMaxParallelTests(browser);
+        }
+        return Math.max(1, slots);
+    }
+
+    private List<Map<String, Integer>> getLiveCapacities() {
+        List<Map<String, Integer>> capacities = new ArrayList<>();
+        for (WorkerNode node : getLiveNodes()) {
+            try {
+                capacities.add(objectMapper.readValue(node.getCapacityJson(), new TypeReference<>() {}));
+            } catch (Exception e) {
+                logger.debug("Ignoring unreadable capacity of node {}: {}", node.getNodeId(), e.getMessage());
+            }
+        }
+        return capacities;
+    }
+
+    @Override
+    public Map<String, Integer> getCapacity() {
+        Map<String, Integer> capacity = new LinkedHashMap<>();
+        for (String browser : getSupportedBrowsers()) {
+            capacity.put(browser, executionEnabled ? TestServiceImpl.getMaxParallelTests(browser) : 0);
+        }
+        return capacity;
+    }
+
+    @Override
+    public List<String> getSupportedBrowsers() {
+        return supportedBrowsers.stream()
+                .map(browser -> browser.trim().toLowerCase())
+                .filter(browser -> !browser.isEmpty())
+                .toList();
+    }
+
+    @Override
+    public boolean isExecutionEnabled() {
+        return executionEnabled;
+    }
+
+    private void updateState(WorkerNode node) {
+        node.setActiveRuns(TestServiceImpl.getActiveRunCount());
+        node.setLastSeenAt(LocalDateTime.now());
+        try {
+            node.setCapacityJson(objectMapper.writeValueAsString(getCapacity()));
+        } catch (Exception e) {
+            node.setCapacityJson("{}");
+        }
+    }
+
+    private String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.ita07.webTestingDashboard.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fires deadlines from one thread using a hashed timer wheel: a deadline is dropped in the bucket of
+ * the tick it expires on and only that bucket is looked at when the tick comes, so arming and
+ * cancelling are O(1) however many runs and actions are being watched. Deadlines fire up to one tick late.
+ */
+@Component
+public class DeadlineWatchdog {
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineWatchdog.class);
+
+    @Value("${run.deadline.tick-ms:100}")
+    private long tickMillis;
+
+    // One turn of the wheel covers tick-ms * wheel-size, longer deadlines wait out the extra turns
+    @Value("${run.deadline.wheel-size:512}")
+    private int wheelSize;
+
+    private List<Queue<Deadline>> buckets;
+    private Thread worker;
+    private volatile boolean running;
+    private long startNanos;
+
+    /**
+     * A deadline armed on the watchdog. Cancelled deadlines are dropped when their bucket comes up.
+     */
+    public static final class Deadline {
+        private final long tick;
+        private final Runnable task;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Deadline(long tick, Runnable task) {
+            this.tick = tick;
+            this.task = task;
+        }
+
+        /**
+         * Returns false when the deadline had already fired.
+         */
+        public boolean cancel() {
+            return done.compareAndSet(false, true);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+        startNanos = System.nanoTime();
+        running = true;
+        worker = new Thread(this::run, "deadline-watchdog");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Runs the task on the watchdog thread once the delay has passed, unless the returned deadline is cancelled first.
+     * Tasks must be short; anything slow belongs on another thread.
+     */
+    public Deadline schedule(long delayMillis, Runnable task) {
+        long tick = currentTick() + Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        Deadline deadline = new Deadline(tick, task);
+        buckets.get((int) (tick % wheelSize)).add(deadline);
+        return deadline;
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startNanos) / (tickMillis * 1_000_000);
+    }
+
+    private void run() {
+        long tick = 0;
+        while (running) {
+            long now = currentTick();
+            // Catch up on every tick passed since the last pass, e.g. after a long GC pause
+            for (; tick <= now; tick++) {
+                expire(buckets.get((int) (tick % wheelSize)), tick);
+            }
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void expire(Queue<Deadline> bucket, long tick) {
+        Iterator<Deadline> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Deadline deadline = iterator.next();
+            if (deadline.done.get()) {
+                iterator.remove();
+            } else if (deadline.tick <= tick) {
+                iterator.remove();
+                if (deadline.cancel()) {
+                    try {
+                        deadline.task.run();
+                    } catch (Exception e) {
+                        logger.error("Deadline task failed: {}", e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+}
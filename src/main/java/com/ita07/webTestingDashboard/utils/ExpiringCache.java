@@ -0,0 +1,77 @@
+package com.ita07.webTestingDashboard.utils;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small map bounded by entry count and age. Entries are kept in insertion order, so the oldest entry is
+ * always the first one: expired entries are dropped from the front on every write and the oldest entry
+ * makes room when the cache is full. Expired entries are never returned.
+ */
+public class ExpiringCache<K, V> {
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>();
+    private int maxEntries;
+    private long ttlNanos;
+
+    private record Entry<V>(V value, long insertedAt) {
+    }
+
+    public ExpiringCache(int maxEntries, Duration ttl) {
+        setLimits(maxEntries, ttl);
+    }
+
+    public synchronized void setLimits(int maxEntries, Duration ttl) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttl.toNanos();
+        evict();
+    }
+
+    public synchronized void put(K key, V value) {
+        // Re-inserted so the entry moves to the back with its new timestamp
+        entries.remove(key);
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+        evict();
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.nanoTime())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry != null ? entry.value() : null;
+    }
+
+    public synchronized int size() {
+        evict();
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> oldest = iterator.next();
+            if (entries.size() > maxEntries || isExpired(oldest.getValue(), now)) {
+                iterator.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlNanos > 0 && now - entry.insertedAt() > ttlNanos;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ita07.webTestingDashboard.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads on JDK 21 and newer while the code base still compiles for Java 17, so the API
+ * is reached through reflection. On older runtimes nothing is returned and callers keep platform threads.
+ */
+public final class VirtualThreads {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * A factory of virtual threads named prefix0, prefix1, ..., or empty when the runtime has none.
+     */
+    public static Optional<ThreadFactory> factory(String prefix) {
+        if (!isSupported()) {
+            return Optional.empty();
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return Optional.of((ThreadFactory) builderType.getMethod("factory").invoke(builder));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Virtual threads are not available on this runtime: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
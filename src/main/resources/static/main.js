@@ -419,7 +419,7 @@ document.addEventListener('DOMContentLoaded', function () {
                     if (data.status === 'finished') {
                         clearInterval(interval);
                         resultsOutput.textContent = JSON.stringify(data.results, null, 2);
-                    } else if (data.status === 'not_found') {
+                    } else if (['not_found', 'failed', 'cancelled'].includes(data.status)) {
                         clearInterval(interval);
                         resultsOutput.textContent = 'Results not found.';
                     }
@@ -459,7 +459,7 @@ document.addEventListener('DOMContentLoaded', function () {
         let builtTests = getBuiltTests();
 
         // Global polling management
-        let activePollingIntervals = new Map(); // Map of testRunId -> intervalId
+        let activeStreams = new Map(); // Map of testRunId -> EventSource
         let isTabActive = true;
 
         // Mutex for sessionStorage updates to prevent race conditions
@@ -552,107 +552,126 @@ document.addEventListener('DOMContentLoaded', function () {
             console.log(`Found ${runningTests.length} running tests to resume polling for:`, runningTests.map(t => t.runId));
 
             runningTests.forEach(test => {
-                if (!activePollingIntervals.has(test.runId)) {
-                    console.log(`Starting polling for test run ${test.runId}`);
-                    startPollingForTest(test.runId);
+                if (!activeStreams.has(test.runId)) {
+                    console.log(`Starting stream for test run ${test.runId}`);
+                    startStreamingForTest(test.runId);
                 } else {
-                    console.log(`Polling already active for test run ${test.runId}`);
+                    console.log(`Stream already active for test run ${test.runId}`);
                 }
             });
         };
 
         const pauseAllPolling = () => {
-            const intervalCount = activePollingIntervals.size;
-            activePollingIntervals.forEach((intervalId, testRunId) => {
-                clearInterval(intervalId);
-                console.log(`Paused polling for test run ${testRunId}`);
+            const streamCount = activeStreams.size;
+            activeStreams.forEach((source, testRunId) => {
+                source.close();
+                console.log(`Paused stream for test run ${testRunId}`);
             });
-            activePollingIntervals.clear();
-            console.log(`Paused ${intervalCount} polling intervals`);
+            activeStreams.clear();
+            console.log(`Paused ${streamCount} streams`);
         };
 
         const clearAllPolling = () => {
-            activePollingIntervals.forEach((intervalId) => {
-                clearInterval(intervalId);
+            activeStreams.forEach((source) => {
+                source.close();
             });
-            activePollingIntervals.clear();
+            activeStreams.clear();
         };
 
-        const startPollingForTest = (testRunId) => {
-            // Clear any existing polling for this test
-            if (activePollingIntervals.has(testRunId)) {
-                clearInterval(activePollingIntervals.get(testRunId));
-                console.log(`Cleared existing polling for test ${testRunId}`);
+        const completeTest = async (testRunId, data) => {
+            const newStatus = data.status === 'cancelled' ? 'cancelled' :
+                (data.status === 'finished' && data.results && data.results.length > 0 && data.results.every(r => r.status === 'success')) ? 'pass' : 'fail';
+            const message = data.status === 'finished' ? `Test finished with status: ${newStatus.toUpperCase()}` :
+                data.status === 'cancelled' ? 'Test run was cancelled.' :
+                    data.status === 'failed' ? 'Test run failed to execute, marked as failed.' : 'Test results not found, marked as failed.';
+            const messageType = newStatus === 'pass' ? 'success' : newStatus === 'cancelled' ? 'warning' : 'error';
+
+            console.log(`Test ${testRunId} completed with status: ${newStatus}`);
+
+            // Use synchronized update
+            await updateTestInStorage(testRunId, (test) => {
+                test.status = newStatus;
+                delete test.runId;
+                delete test.completedActions;
+                return test;
+            });
+
+            // Only show toast if tab is active
+            if (isTabActive) {
+                showToast(message, messageType);
             }
+        };
 
-            const intervalId = setInterval(async () => {
-                // Skip polling if tab is not active
-                if (!isTabActive) {
-                    console.log(`Skipping poll for test ${testRunId} - tab inactive`);
-                    return;
-                }
+        const startStreamingForTest = (testRunId) => {
+            // Close any existing stream for this test
+            if (activeStreams.has(testRunId)) {
+                activeStreams.get(testRunId).close();
+                console.log(`Closed existing stream for test ${testRunId}`);
+            }
 
-                // Check if test still exists and is running
-                const currentTests = getBuiltTests();
-                const testToUpdate = currentTests.find(t => t.runId == testRunId);
+            // The server pushes status transitions, a result per completed action and a final snapshot
+            const source = new EventSource(`/api/tests/stream/${testRunId}`);
+            const stopStream = () => {
+                source.close();
+                activeStreams.delete(testRunId);
+            };
 
-                if (!testToUpdate) {
-                    clearInterval(intervalId);
-                    activePollingIntervals.delete(testRunId);
-                    console.log(`Test ${testRunId} no longer found, stopping polling`);
+            source.addEventListener('snapshot', async (event) => {
+                const data = JSON.parse(event.data);
+                console.log(`Snapshot for test ${testRunId}:`, data.status);
+
+                if (!getBuiltTests().some(t => t.runId == testRunId)) {
+                    stopStream();
+                    console.log(`Test ${testRunId} no longer found, closing stream`);
                     return;
                 }
+                if (['finished', 'not_found', 'failed', 'cancelled'].includes(data.status)) {
+                    stopStream();
+                    await completeTest(testRunId, data);
+                }
+            });
 
-                try {
-                    console.log(`Polling test ${testRunId}...`);
-                    const res = await fetch(`/api/tests/results/${testRunId}`);
-                    const data = await res.json();
-
-                    console.log(`Poll result for test ${testRunId}:`, data.status);
-
-                    if (data.status === 'finished' || data.status === 'not_found') {
-                        clearInterval(intervalId);
-                        activePollingIntervals.delete(testRunId);
-
-                        const newStatus = (data.status === 'finished' && data.results && data.results.length > 0 && data.results.every(r => r.status === 'success')) ? 'pass' : 'fail';
-                        const message = data.status === 'finished' ? `Test finished with status: ${newStatus.toUpperCase()}` : 'Test results not found, marked as failed.';
-                        const messageType = newStatus === 'pass' ? 'success' : 'error';
-
-                        console.log(`Test ${testRunId} completed with status: ${newStatus}`);
+            source.addEventListener('status', (event) => {
+                const data = JSON.parse(event.data);
+                if (data.status === 'queued' && data.queuePosition) {
+                    console.log(`Test ${testRunId} is queued at position ${data.queuePosition}`);
+                } else {
+                    console.log(`Test ${testRunId} is now ${data.status}`);
+                }
+            });
 
-                        // Use synchronized update
-                        await updateTestInStorage(testRunId, (test) => {
-                            test.status = newStatus;
-                            delete test.runId;
-                            return test;
-                        });
+            source.addEventListener('result', async (event) => {
+                const data = JSON.parse(event.data);
+                await updateTestInStorage(testRunId, (test) => {
+                    test.completedActions = Math.max(test.completedActions || 0, data.index + 1);
+                    return test;
+                });
+            });
 
-                        // Only show toast if tab is active
-                        if (isTabActive) {
-                            showToast(message, messageType);
-                        }
-                    }
-                } catch (err) {
-                    console.error(`Error polling for test ${testRunId}:`, err);
-                    clearInterval(intervalId);
-                    activePollingIntervals.delete(testRunId);
-
-                    // Use synchronized update for error case
-                    await updateTestInStorage(testRunId, (test) => {
-                        test.status = 'fail';
-                        delete test.runId;
-                        return test;
-                    });
+            source.onerror = async () => {
+                // EventSource reconnects on its own unless the server refused the stream
+                if (source.readyState !== EventSource.CLOSED) {
+                    return;
+                }
+                console.error(`Stream for test ${testRunId} was closed by the server`);
+                stopStream();
+
+                // Use synchronized update for error case
+                await updateTestInStorage(testRunId, (test) => {
+                    test.status = 'fail';
+                    delete test.runId;
+                    delete test.completedActions;
+                    return test;
+                });
 
-                    // Only show toast if tab is active
-                    if (isTabActive) {
-                        showToast('Error polling for results.', 'error');
-                    }
+                // Only show toast if tab is active
+                if (isTabActive) {
+                    showToast('Lost connection while waiting for results.', 'error');
                 }
-            }, 2000);
+            };
 
-            activePollingIntervals.set(testRunId, intervalId);
-            console.log(`Started polling for test ${testRunId}, active intervals: ${activePollingIntervals.size}`);
+            activeStreams.set(testRunId, source);
+            console.log(`Started streaming for test ${testRunId}, active streams: ${activeStreams.size}`);
         };
 
         const renderTestCards = () => {
@@ -686,7 +705,7 @@ document.addEventListener('DOMContentLoaded', function () {
                         <div class="test-status-badge status-${status}">
                             ${status === 'pass' ? '<i class="fas fa-check-circle"></i> PASS' :
                     status === 'fail' ? '<i class="fas fa-times-circle"></i> FAIL' :
-                        status === 'running' ? '<i class="fas fa-spinner fa-spin"></i> RUNNING' :
+                        status === 'running' ? `<i class="fas fa-spinner fa-spin"></i> RUNNING${test.completedActions ? ` ${test.completedActions}/${test.actions.length}` : ''}` :
                             status === 'cancelled' ? '<i class="fas fa-ban"></i> CANCELLED' :
                                 '<i class="fas fa-clock"></i> PENDING'}
                         </div>
@@ -788,7 +807,8 @@ document.addEventListener('DOMContentLoaded', function () {
                     const res = await fetch('/api/tests/run', {
                         method: 'POST',
                         headers: {'Content-Type': 'application/json'},
-                        body: JSON.stringify(test)
+                        // Runs started from the dashboard are interactive and never shed under load
+                        body: JSON.stringify({...test, priority: 'interactive'})
                     });
                     const data = await res.json();
 
@@ -810,8 +830,8 @@ document.addEventListener('DOMContentLoaded', function () {
                         button.dataset.testid = data.testRunId; // Set the correct ID for cancellation
                         button.disabled = false; // Re-enable
 
-                        // Start polling for this test
-                        startPollingForTest(data.testRunId);
+                        // Start streaming progress for this test
+                        startStreamingForTest(data.testRunId);
                     } else {
                         // --- Test Failed to Start ---
                         showToast('Error starting test: ' + (data.message || JSON.stringify(data)), 'error');
@@ -852,10 +872,10 @@ document.addEventListener('DOMContentLoaded', function () {
                     if (data.cancelled) {
                         showToast('Test cancelled successfully.', 'warning');
 
-                        // Stop polling for this test
-                        if (activePollingIntervals.has(parseInt(testRunId))) {
-                            clearInterval(activePollingIntervals.get(parseInt(testRunId)));
-                            activePollingIntervals.delete(parseInt(testRunId));
+                        // Stop streaming for this test
+                        if (activeStreams.has(parseInt(testRunId))) {
+                            activeStreams.get(parseInt(testRunId)).close();
+                            activeStreams.delete(parseInt(testRunId));
                         }
 
                         // Use synchronized update
@@ -879,10 +899,10 @@ document.addEventListener('DOMContentLoaded', function () {
                 const currentTests = getBuiltTests();
                 const testToDelete = currentTests[index];
 
-                // Stop polling if this test is running
-                if (testToDelete && testToDelete.runId && activePollingIntervals.has(testToDelete.runId)) {
-                    clearInterval(activePollingIntervals.get(testToDelete.runId));
-                    activePollingIntervals.delete(testToDelete.runId);
+                // Stop streaming if this test is running
+                if (testToDelete && testToDelete.runId && activeStreams.has(testToDelete.runId)) {
+                    activeStreams.get(testToDelete.runId).close();
+                    activeStreams.delete(testToDelete.runId);
                 }
 
                 currentTests.splice(index, 1);
@@ -916,6 +936,17 @@ document.addEventListener('DOMContentLoaded', function () {
                 })
                 .then(data => {
                     concurrencyInput.value = data.concurrency;
+                    document.getElementById('auto-concurrency').value = String(data.autoConcurrency);
+                    document.getElementById('auto-concurrency-min').value = data.autoConcurrencyMin;
+                    document.getElementById('auto-concurrency-max').value = data.autoConcurrencyMax;
+                    settingsForm.querySelectorAll('.browser-concurrency').forEach(input => {
+                        const value = (data.browserConcurrency || {})[input.dataset.browser];
+                        input.value = value != null ? value : '';
+                    });
+                    settingsForm.querySelectorAll('.browser-max-queued').forEach(input => {
+                        const value = (data.browserMaxQueued || {})[input.dataset.browser];
+                        input.value = value != null ? value : '';
+                    });
                     loader.style.display = 'none';
                     settingsForm.style.display = 'block';
                 })
@@ -0,0 +1,41 @@
+package com.ita07.webTestingDashboard.config;
+
+import com.ita07.webTestingDashboard.model.RunPriority;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientIdentityResolverTest {
+
+    private final ClientIdentityResolver resolver = new ClientIdentityResolver();
+
+    @Test
+    void dashboardSessionsMayRunInteractive() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(new MockHttpSession());
+
+        assertEquals(RunPriority.INTERACTIVE, resolver.resolvePriority(request, RunPriority.INTERACTIVE));
+    }
+
+    @Test
+    void apiClientsAreCappedAtCi() {
+        MockHttpServletRequest basicAuth = new MockHttpServletRequest();
+        basicAuth.addHeader(HttpHeaders.AUTHORIZATION, "Basic dXNlcjpwYXNz");
+        basicAuth.setSession(new MockHttpSession());
+
+        assertEquals(RunPriority.CI, resolver.resolvePriority(basicAuth, RunPriority.INTERACTIVE));
+        assertEquals(RunPriority.CI, resolver.resolvePriority(new MockHttpServletRequest(), RunPriority.INTERACTIVE));
+    }
+
+    @Test
+    void lowerPrioritiesAreKept() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        assertEquals(RunPriority.BATCH, resolver.resolvePriority(request, RunPriority.BATCH));
+        assertEquals(RunPriority.CI, resolver.resolvePriority(request, RunPriority.CI));
+        assertNull(resolver.resolvePriority(request, null));
+    }
+}
@@ -0,0 +1,169 @@
+package com.ita07.webTestingDashboard.selenium.plan;
+
+import com.ita07.webTestingDashboard.exception.ValidationException;
+import com.ita07.webTestingDashboard.model.TestRequest;
+import com.ita07.webTestingDashboard.model.TestSuite;
+import com.ita07.webTestingDashboard.service.TestSuiteService;
+import com.ita07.webTestingDashboard.serviceImpl.TestDataServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExecutionPlanCompilerTest {
+
+    private static final String SUITE_JSON = """
+            {"browser": "firefox", "actions": [
+              {"action": "navigate", "url": "https://example.com"},
+              {"action": "click", "locator": {"type": "id", "value": "submit"}}
+            ]}""";
+
+    private ExecutionPlanCompiler compiler;
+    private TestSuiteService testSuiteService;
+
+    @BeforeEach
+    void setUp() {
+        compiler = new ExecutionPlanCompiler();
+        testSuiteService = mock(TestSuiteService.class);
+        ReflectionTestUtils.setField(compiler, "testSuiteService", testSuiteService);
+        ReflectionTestUtils.setField(compiler, "testDataService", new TestDataServiceImpl());
+    }
+
+    @Test
+    void compilesLocatorsAndDetailsOnce() {
+        ExecutionPlan plan = compiler.compile(request(
+                Map.of("action", "type", "locator", Map.of("type", "name", "value", "q"), "text", "selenium")));
+
+        PlanStep step = plan.getSteps().get(0);
+        assertEquals("type", step.getActionType());
+        assertFalse(step.isTemplated());
+        assertInstanceOf(CompiledLocator.class, step.getParams().get("locator"));
+        assertEquals(By.name("q"), ((CompiledLocator) step.getParams().get("locator")).getBy());
+        assertEquals("locator={name: 'q'}, text=selenium", step.getDetails());
+    }
+
+    @Test
+    void bindResolvesOnlyTemplatedSteps() {
+        ExecutionPlan plan = compiler.compile(request(
+                Map.of("action", "navigate", "url", "https://example.com"),
+                Map.of("action", "type", "locator", Map.of("type", "${field.type}", "value", "user"), "text", "${user.name}")));
+        assertTrue(plan.isTemplated());
+
+        ExecutionPlan bound = compiler.bind(plan, Map.of("user", Map.of("name", "alice"), "field", Map.of("type", "id")));
+
+        assertSame(plan.getSteps().get(0), bound.getSteps().get(0));
+        PlanStep step = bound.getSteps().get(1);
+        assertFalse(step.isTemplated());
+        assertEquals("alice", step.getParams().get("text"));
+        assertEquals(By.id("user"), ((CompiledLocator) step.getParams().get("locator")).getBy());
+        // The template itself is left untouched for the next row
+        assertEquals("${user.name}", plan.getSteps().get(1).getParams().get("text"));
+    }
+
+    @Test
+    void bindReturnsPlansWithoutPlaceholdersAsTheyAre() {
+        ExecutionPlan plan = compiler.compile(request(Map.of("action", "navigate", "url", "https://example.com")));
+        assertSame(plan, compiler.bind(plan, Map.of()));
+    }
+
+    @Test
+    void rejectsInvalidActions() {
+        assertMessage("Actions list is missing or empty.", new TestRequest());
+        assertMessage("Action type is missing at index 0.", request(Map.of("url", "https://example.com")));
+        assertMessage("Unsupported action: 'fly' at index 0.", request(Map.of("action", "fly")));
+        assertMessage("'url' is required for 'navigate' action at index 0.", request(Map.of("action", "navigate", "url", " ")));
+        assertMessage("'locator' is required for 'click' action at index 0.", request(Map.of("action", "click")));
+        assertMessage("'locator.type' and 'locator.value' are required for 'check' action at index 0.",
+                request(Map.of("action", "check", "locator", Map.of("type", "id"))));
+        assertMessage("Unsupported locator type: 'label' for 'doubleclick' action at index 0.",
+                request(Map.of("action", "doubleclick", "locator", Map.of("type", "label", "value", "x"))));
+        assertMessage("'seconds' must be non-negative for 'wait' action at index 0.", request(Map.of("action", "wait", "seconds", -1)));
+        assertMessage("'seconds' must be a valid integer for 'wait' action at index 0.", request(Map.of("action", "wait", "seconds", "soon")));
+        assertMessage("'selectBy' must be one of 'value', 'visibleText', or 'index' for 'select' action at index 0.",
+                request(Map.of("action", "select", "locator", Map.of("type", "id", "value", "s"), "selectBy", "colour", "option", "red")));
+        assertMessage("'expected' is required for 'assert' with 'title' condition at index 0.", request(Map.of("action", "assert", "condition", "title")));
+        assertMessage("Unsupported assertion condition: 'pretty' at index 0.", request(Map.of("action", "assert", "condition", "pretty")));
+        assertMessage("'targetLocator' is required for 'draganddrop' action at index 1.", request(
+                Map.of("action", "navigate", "url", "https://example.com"),
+                Map.of("action", "draganddrop", "sourceLocator", Map.of("type", "id", "value", "a"))));
+    }
+
+    @Test
+    void rejectsInvalidRequestSettings() {
+        TestRequest request = request(Map.of("action", "navigate", "url", "https://example.com"));
+        request.setBrowser("safari");
+        assertMessage("Unsupported browser type: safari", request);
+
+        request.setBrowser("chrome");
+        request.setActionDeadlineSeconds(-5);
+        assertThrows(ValidationException.class, () -> compiler.compile(request));
+    }
+
+    @Test
+    void suiteRequestsReuseTheCachedSuitePlan() {
+        TestSuite suite = suite();
+        ExecutionPlan suitePlan = compiler.compileSuite(suite);
+        assertEquals("firefox", suitePlan.getDefaultBrowser());
+        assertSame(suitePlan, compiler.compileSuite(suite));
+
+        TestRequest request = new TestRequest();
+        request.setActions(suitePlan.getActions());
+        request.setSuiteId(suite.getId());
+        request.setSuiteVersion(ExecutionPlanCompiler.versionOf(suite));
+        assertSame(suitePlan, compiler.compile(request));
+    }
+
+    @Test
+    void suiteFieldsDoNotSkipValidationOfOtherActions() {
+        TestSuite suite = suite();
+        when(testSuiteService.getTestSuite(suite.getId())).thenReturn(suite);
+
+        TestRequest request = request(Map.of("action", "click", "locator", Map.of("type", "label", "value", "x")));
+        request.setSuiteId(suite.getId());
+        request.setSuiteVersion(ExecutionPlanCompiler.versionOf(suite));
+        assertThrows(ValidationException.class, () -> compiler.compile(request));
+
+        request.setActions(null);
+        assertMessage("Actions list is missing or empty.", request);
+
+        request.setActions(List.of(Map.of("action", "navigate", "url", "https://other.example.com")));
+        ExecutionPlan plan = compiler.compile(request);
+        assertEquals("https://other.example.com", plan.getSteps().get(0).getParams().get("url"));
+    }
+
+    @Test
+    void changedSuitesAreCompiledAgain() {
+        TestSuite suite = suite();
+        ExecutionPlan first = compiler.compileSuite(suite);
+        suite.setUpdatedAt(suite.getUpdatedAt().plusMinutes(1));
+        assertNotSame(first, compiler.compileSuite(suite));
+    }
+
+    @SafeVarargs
+    private static TestRequest request(Map<String, Object>... actions) {
+        TestRequest request = new TestRequest();
+        request.setActions(List.of(actions));
+        return request;
+    }
+
+    private static TestSuite suite() {
+        TestSuite suite = new TestSuite();
+        suite.setId(7L);
+        suite.setUpdatedAt(LocalDateTime.of(2026, 1, 1, 12, 0));
+        suite.setActionsJson(SUITE_JSON);
+        return suite;
+    }
+
+    private void assertMessage(String expected, TestRequest request) {
+        ValidationException e = assertThrows(ValidationException.class, () -> compiler.compile(request));
+        assertEquals(expected, e.getMessage());
+    }
+}
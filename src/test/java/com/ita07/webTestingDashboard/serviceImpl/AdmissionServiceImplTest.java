@@ -0,0 +1,163 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.config.EnvConfigService;
+import com.ita07.webTestingDashboard.exception.AdmissionRejectedException;
+import com.ita07.webTestingDashboard.exception.ValidationException;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.model.RunStatistics;
+import com.ita07.webTestingDashboard.service.RunQueueService;
+import com.ita07.webTestingDashboard.service.RunStatisticsService;
+import com.ita07.webTestingDashboard.service.WorkerNodeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionServiceImplTest {
+
+    private AdmissionServiceImpl admissionService;
+    private RunQueueService runQueueService;
+    private WorkerNodeService workerNodeService;
+    private RunStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        runQueueService = mock(RunQueueService.class);
+        workerNodeService = mock(WorkerNodeService.class);
+        RunStatisticsService runStatisticsService = mock(RunStatisticsService.class);
+        EnvConfigService envConfigService = mock(EnvConfigService.class);
+        statistics = new RunStatistics();
+        when(runStatisticsService.getStatistics()).thenReturn(statistics);
+        when(envConfigService.getProperty(anyString(), anyString())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(envConfigService.getProperty("run.admission.max-queued.firefox", "0")).thenReturn("3");
+        when(workerNodeService.getClusterSlots()).thenReturn(2);
+
+        admissionService = new AdmissionServiceImpl();
+        ReflectionTestUtils.setField(admissionService, "runQueueService", runQueueService);
+        ReflectionTestUtils.setField(admissionService, "workerNodeService", workerNodeService);
+        ReflectionTestUtils.setField(admissionService, "runStatisticsService", runStatisticsService);
+        ReflectionTestUtils.setField(admissionService, "envConfigService", envConfigService);
+        ReflectionTestUtils.setField(admissionService, "maxQueued", 10);
+        ReflectionTestUtils.setField(admissionService, "maxQueuedPerClient", 5);
+        ReflectionTestUtils.setField(admissionService, "shedBatchAbove", 0);
+        ReflectionTestUtils.setField(admissionService, "defaultRunSeconds", 30L);
+    }
+
+    @Test
+    void admitsSubmissionsBelowTheLimits() {
+        when(runQueueService.countQueued()).thenReturn(8L);
+        when(runQueueService.countQueuedBy("ci")).thenReturn(3L);
+
+        assertDoesNotThrow(() -> admissionService.admit("ci", RunPriority.CI, Map.of("chrome", 2)));
+    }
+
+    @Test
+    void retryAfterCoversTheWavesNeededToDrainTheExcess() {
+        // 12 runs, 2 of them cancelled, took 120 s, so a wave takes 10 s; 3 runs over the limit on 2 slots need 2 waves
+        statistics.setTotalRuns(12);
+        statistics.setCancelledRuns(2);
+        statistics.setTotalDurationMillis(120_000);
+        when(runQueueService.countQueued()).thenReturn(12L);
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> admissionService.admit(null, RunPriority.CI, Map.of("chrome", 1)));
+        assertEquals(20, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void retryAfterUsesTheDefaultRunTimeWithoutHistory() {
+        when(runQueueService.countQueued()).thenReturn(10L);
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> admissionService.admit(null, RunPriority.CI, Map.of("chrome", 1)));
+        assertEquals(30, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void averageRunTimeIsRoundedUpToWholeSeconds() {
+        statistics.setTotalRuns(2);
+        statistics.setTotalDurationMillis(3_000);
+
+        assertEquals(2, admissionService.estimateWaitSeconds(1));
+        assertEquals(4, admissionService.estimateWaitSeconds(3));
+        assertEquals(1, admissionService.estimateWaitSeconds(0), "never below one second");
+    }
+
+    @Test
+    void limitsAreCheckedUnderTheAdmissionLock() {
+        when(runQueueService.countQueued()).thenReturn(0L);
+
+        admissionService.admit("ci", RunPriority.CI, Map.of("chrome", 1));
+
+        InOrder inOrder = inOrder(runQueueService);
+        inOrder.verify(runQueueService).lockAdmission();
+        inOrder.verify(runQueueService).countQueued();
+        inOrder.verify(runQueueService).countQueuedBy("ci");
+    }
+
+    @Test
+    void rejectsClientsOverTheirOwnLimit() {
+        when(runQueueService.countQueued()).thenReturn(0L);
+        when(runQueueService.countQueuedBy("ci")).thenReturn(5L);
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> admissionService.admit("ci", RunPriority.CI, Map.of("chrome", 2)));
+        // 2 excess runs drain in one wave of 2 slots
+        assertEquals(30, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void batchLargerThanTheClientLimitIsAdmittedWhenTheClientHasNothingQueued() {
+        when(runQueueService.countQueued()).thenReturn(2L);
+        when(runQueueService.countQueuedBy("ci")).thenReturn(0L);
+
+        assertDoesNotThrow(() -> admissionService.admit("ci", RunPriority.BATCH, Map.of("chrome", 8)));
+    }
+
+    @Test
+    void batchLargerThanTheClientLimitWaitsForTheClientsQueuedRuns() {
+        when(runQueueService.countQueued()).thenReturn(0L);
+        when(runQueueService.countQueuedBy("ci")).thenReturn(1L);
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> admissionService.admit("ci", RunPriority.BATCH, Map.of("chrome", 8)));
+        // Only the one run already queued has to start first
+        assertEquals(30, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void shedsBatchRunsFirst() {
+        ReflectionTestUtils.setField(admissionService, "shedBatchAbove", 4);
+        when(runQueueService.countQueued()).thenReturn(5L);
+
+        assertThrows(AdmissionRejectedException.class, () -> admissionService.admit(null, RunPriority.BATCH, Map.of("chrome", 1)));
+        assertDoesNotThrow(() -> admissionService.admit(null, RunPriority.CI, Map.of("chrome", 1)));
+    }
+
+    @Test
+    void perBrowserLimitsUseThatBrowsersSlots() {
+        when(runQueueService.countQueued()).thenReturn(3L);
+        when(runQueueService.countQueuedPerBrowser()).thenReturn(Map.of("firefox", 3L));
+        when(workerNodeService.getClusterSlots("firefox")).thenReturn(1);
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> admissionService.admit(null, RunPriority.CI, Map.of("firefox", 2)));
+        // 2 excess runs on a single firefox slot need 2 waves
+        assertEquals(60, e.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> admissionService.admit(null, RunPriority.CI, Map.of("chrome", 2)));
+    }
+
+    @Test
+    void submissionsThatCanNeverFitAreInvalid() {
+        assertThrows(ValidationException.class, () -> admissionService.admit(null, RunPriority.CI, Map.of("chrome", 11)));
+        assertThrows(ValidationException.class, () -> admissionService.admit(null, RunPriority.CI, Map.of("firefox", 4)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FairShareRunSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private FairShareRunScheduler scheduler(String clientWeights) {
+        FairShareRunScheduler scheduler = new FairShareRunScheduler();
+        ReflectionTestUtils.setField(scheduler, "agingSeconds", 300L);
+        ReflectionTestUtils.setField(scheduler, "clientWeightsProperty", clientWeights);
+        scheduler.parseClientWeights();
+        return scheduler;
+    }
+
+    @Test
+    void higherPriorityClassesStartFirst() {
+        QueuedRun batch = run(1L, "a", RunPriority.BATCH, 0);
+        QueuedRun ci = run(2L, "b", RunPriority.CI, 0);
+        QueuedRun interactive = run(3L, "c", RunPriority.INTERACTIVE, 0);
+
+        assertEquals(List.of(interactive, ci, batch), scheduler("").rank(List.of(batch, ci, interactive), Map.of(), NOW));
+    }
+
+    @Test
+    void submittersUsingFewerSlotsGoFirst() {
+        QueuedRun busy = run(1L, "busy", RunPriority.CI, 0);
+        QueuedRun idle = run(2L, "idle", RunPriority.CI, 0);
+
+        assertEquals(List.of(idle, busy), scheduler("").rank(List.of(busy, idle), Map.of("busy", 3L), NOW));
+    }
+
+    @Test
+    void clientWeightsBuyALargerShare() {
+        // With weight 4, two running runs of the pipeline score (2 + 1) / (2 * 4) = 0.375, ahead of 1 / 2 for an idle client
+        QueuedRun pipeline = run(1L, "release-pipeline", RunPriority.CI, 0);
+        QueuedRun other = run(2L, "other", RunPriority.CI, 0);
+        FairShareRunScheduler scheduler = scheduler("release-pipeline=4, nightly=1");
+
+        assertEquals(List.of(pipeline, other), scheduler.rank(List.of(other, pipeline), Map.of("release-pipeline", 2L), NOW));
+        assertEquals(List.of(other, pipeline), scheduler.rank(List.of(other, pipeline), Map.of("release-pipeline", 4L), NOW));
+    }
+
+    @Test
+    void agingDoublesTheWeightOfWaitingRunsUpToInteractive() {
+        // A batch run waiting two aging intervals weighs 4, like a fresh interactive run; the older id wins the tie
+        QueuedRun agedBatch = run(1L, "nightly", RunPriority.BATCH, 600);
+        QueuedRun interactive = run(2L, "alice", RunPriority.INTERACTIVE, 0);
+        assertEquals(List.of(agedBatch, interactive), scheduler("").rank(List.of(interactive, agedBatch), Map.of(), NOW));
+
+        // One interval is not enough, and the weight is capped: waiting longer does not overtake a less busy submitter
+        QueuedRun halfAged = run(1L, "nightly", RunPriority.BATCH, 300);
+        assertEquals(List.of(interactive, halfAged), scheduler("").rank(List.of(halfAged, interactive), Map.of(), NOW));
+        QueuedRun longWaiting = run(1L, "nightly", RunPriority.BATCH, 3000);
+        assertEquals(List.of(interactive, longWaiting),
+                scheduler("").rank(List.of(longWaiting, interactive), Map.of("nightly", 1L), NOW));
+    }
+
+    private static QueuedRun run(long id, String submittedBy, RunPriority priority, long waitedSeconds) {
+        return new QueuedRun(id, submittedBy, priority, "chrome", NOW.minusSeconds(waitedSeconds), null);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FifoRunSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final FifoRunScheduler scheduler = new FifoRunScheduler();
+
+    @Test
+    void startsRunsInSubmissionOrderRegardlessOfPriorityAndLoad() {
+        QueuedRun batch = new QueuedRun(1L, "nightly", RunPriority.BATCH, "chrome", NOW.minusMinutes(5), null);
+        QueuedRun ci = new QueuedRun(2L, "ci", RunPriority.CI, "chrome", NOW.minusMinutes(3), null);
+        QueuedRun interactive = new QueuedRun(3L, "alice", RunPriority.INTERACTIVE, "firefox", NOW, null);
+
+        assertEquals(List.of(batch, ci, interactive),
+                scheduler.rank(List.of(interactive, batch, ci), Map.of("nightly", 10L), NOW));
+    }
+}
@@ -0,0 +1,251 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.RunBatch;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
+import com.ita07.webTestingDashboard.repository.ActionResultRecordRepository;
+import com.ita07.webTestingDashboard.repository.RunBatchRepository;
+import com.ita07.webTestingDashboard.service.RunQueueService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RunBatchServiceImplTest {
+
+    private static final long BATCH_ID = 7L;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private RunBatchServiceImpl runBatchService;
+    private RunBatchRepository runBatchRepository;
+    private RunQueueService runQueueService;
+    private ActionResultRecordRepository actionResultRecordRepository;
+
+    @BeforeEach
+    void setUp() {
+        runBatchRepository = mock(RunBatchRepository.class);
+        runQueueService = mock(RunQueueService.class);
+        actionResultRecordRepository = mock(ActionResultRecordRepository.class);
+
+        runBatchService = new RunBatchServiceImpl();
+        ReflectionTestUtils.setField(runBatchService, "runBatchRepository", runBatchRepository);
+        ReflectionTestUtils.setField(runBatchService, "runQueueService", runQueueService);
+        ReflectionTestUtils.setField(runBatchService, "actionResultRecordRepository", actionResultRecordRepository);
+    }
+
+    private void givenBatch(String kind, List<RunQueueJob> jobs) {
+        RunBatch batch = new RunBatch();
+        batch.setId(BATCH_ID);
+        batch.setKind(kind);
+        batch.setTotalRuns(jobs.size());
+        batch.setCreatedAt(CREATED_AT);
+        when(runBatchRepository.findById(BATCH_ID)).thenReturn(Optional.of(batch));
+        when(runQueueService.findBatchJobs(BATCH_ID)).thenReturn(jobs);
+    }
+
+    private RunQueueJob job(long id, String label, String status, Long durationMillis, Boolean passed) {
+        RunQueueJob job = new RunQueueJob();
+        job.setId(id);
+        job.setBatchId(BATCH_ID);
+        job.setBatchLabel(label);
+        job.setStatus(status);
+        job.setDurationMillis(durationMillis);
+        job.setPassed(passed);
+        if (durationMillis != null) {
+            job.setFinishedAt(CREATED_AT.plusNanos(durationMillis * 1_000_000));
+        }
+        return job;
+    }
+
+    private RunQueueJob leg(long id, String label, long durationMillis, long testRunId) {
+        RunQueueJob job = job(id, label, "finished", durationMillis, true);
+        job.setTestRunId(testRunId);
+        return job;
+    }
+
+    private ActionResultRecordRepository.ActionTiming timing(long testRunId, int ordinal, String actionType, long durationMillis) {
+        ActionResultRecordRepository.ActionTiming timing = mock(ActionResultRecordRepository.ActionTiming.class);
+        when(timing.getTestRunId()).thenReturn(testRunId);
+        when(timing.getOrdinal()).thenReturn(ordinal);
+        when(timing.getActionType()).thenReturn(actionType);
+        when(timing.getStatus()).thenReturn("success");
+        when(timing.getDurationMillis()).thenReturn(durationMillis);
+        return timing;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> comparison(Map<String, Object> report) {
+        return (Map<String, Object>) report.get("comparison");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> durationSummary(Map<String, Object> report) {
+        return (Map<String, Object>) report.get("durationMillis");
+    }
+
+    @Test
+    void durationPercentilesUseNearestRank() {
+        // 100, 200, ..., 1000 in shuffled order
+        List<RunQueueJob> jobs = new ArrayList<>();
+        long[] durations = {700, 100, 1000, 300, 900, 200, 600, 800, 400, 500};
+        for (int i = 0; i < durations.length; i++) {
+            jobs.add(job(i + 1, "row-" + i, "finished", durations[i], true));
+        }
+        givenBatch("data", jobs);
+
+        Map<String, Object> summary = durationSummary(runBatchService.getBatchReport(BATCH_ID).orElseThrow());
+
+        assertEquals(100L, summary.get("min"));
+        assertEquals(500L, summary.get("p50"));
+        assertEquals(900L, summary.get("p90"));
+        assertEquals(1000L, summary.get("p95"));
+        assertEquals(1000L, summary.get("p99"));
+        assertEquals(1000L, summary.get("max"));
+        assertEquals(550L, summary.get("mean"));
+    }
+
+    @Test
+    void singleRunIsEveryPercentile() {
+        givenBatch("data", List.of(job(1, "row-0", "finished", 1234L, true)));
+
+        Map<String, Object> summary = durationSummary(runBatchService.getBatchReport(BATCH_ID).orElseThrow());
+
+        assertEquals(1234L, summary.get("min"));
+        assertEquals(1234L, summary.get("p50"));
+        assertEquals(1234L, summary.get("p99"));
+        assertEquals(1234L, summary.get("max"));
+    }
+
+    @Test
+    void cancelledAndUnfinishedRunsAreLeftOutOfTheDurations() {
+        givenBatch("data", List.of(
+                job(1, "row-0", "finished", 100L, true),
+                job(2, "row-1", "failed", 300L, null),
+                job(3, "row-2", "cancelled", 5000L, null),
+                job(4, "row-3", "queued", null, null)));
+
+        Map<String, Object> report = runBatchService.getBatchReport(BATCH_ID).orElseThrow();
+        Map<String, Object> summary = durationSummary(report);
+
+        assertEquals(300L, summary.get("max"));
+        assertEquals(100L, summary.get("p50"));
+        assertEquals(200L, summary.get("mean"));
+        assertEquals("running", report.get("status"));
+        assertEquals(1, report.get("passed"));
+        assertEquals(1, report.get("failed"));
+        assertFalse(report.containsKey("wallClockMillis"));
+    }
+
+    @Test
+    void finishedBatchReportsWallClockTime() {
+        givenBatch("data", List.of(
+                job(1, "row-0", "finished", 400L, true),
+                job(2, "row-1", "finished", 900L, false)));
+
+        Map<String, Object> report = runBatchService.getBatchReport(BATCH_ID).orElseThrow();
+
+        assertEquals("finished", report.get("status"));
+        assertEquals(900L, report.get("wallClockMillis"));
+        assertEquals(1, report.get("passed"));
+        assertEquals(1, report.get("failed"));
+    }
+
+    @Test
+    void emptyBatchHasNoDurationSummary() {
+        givenBatch("data", List.of());
+
+        assertTrue(durationSummary(runBatchService.getBatchReport(BATCH_ID).orElseThrow()).isEmpty());
+    }
+
+    @Test
+    void unknownBatchHasNoReport() {
+        when(runBatchRepository.findById(BATCH_ID)).thenReturn(Optional.empty());
+
+        assertTrue(runBatchService.getBatchReport(BATCH_ID).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matrixLegsAreComparedWithTheFastestLeg() {
+        givenBatch("matrix", List.of(
+                leg(1, "chrome 1920x1080", 3000L, 101L),
+                leg(2, "firefox 1920x1080", 4500L, 102L),
+                leg(3, "edge 1920x1080", 3500L, 103L)));
+
+        Map<String, Object> comparison = comparison(runBatchService.getBatchReport(BATCH_ID).orElseThrow());
+
+        List<Map<String, Object>> legs = (List<Map<String, Object>>) comparison.get("legs");
+        assertEquals(3, legs.size());
+        assertEquals(0L, legs.get(0).get("slowerThanFastestMillis"));
+        assertEquals(1500L, legs.get(1).get("slowerThanFastestMillis"));
+        assertEquals(500L, legs.get(2).get("slowerThanFastestMillis"));
+        assertEquals(4500L, comparison.get("slowestLegMillis"));
+        assertEquals(11000L, comparison.get("sequentialMillis"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void actionsAreComparedAcrossLegs() {
+        givenBatch("matrix", List.of(
+                leg(1, "chrome", 3000L, 101L),
+                leg(2, "firefox", 4000L, 102L)));
+        List<ActionResultRecordRepository.ActionTiming> timings = List.of(
+                timing(101L, 0, "navigate", 800L),
+                timing(102L, 0, "navigate", 1100L),
+                timing(101L, 1, "click", 50L),
+                timing(102L, 1, "click", 40L));
+        when(actionResultRecordRepository.findTimings(any())).thenReturn(timings);
+
+        Map<String, Object> comparison = comparison(runBatchService.getBatchReport(BATCH_ID).orElseThrow());
+
+        List<Map<String, Object>> actions = new ArrayList<>((Collection<Map<String, Object>>) comparison.get("actions"));
+        assertEquals(2, actions.size());
+        assertEquals(0, actions.get(0).get("ordinal"));
+        assertEquals("navigate", actions.get(0).get("actionType"));
+        assertEquals(Map.of("chrome", 800L, "firefox", 1100L), actions.get(0).get("durationMillis"));
+        assertEquals(300L, actions.get(0).get("spreadMillis"));
+        assertEquals(10L, actions.get(1).get("spreadMillis"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unfinishedLegsAreLeftOutOfTheComparison() {
+        givenBatch("matrix", List.of(
+                leg(1, "chrome", 3000L, 101L),
+                job(2, "firefox", "failed", 9000L, null),
+                job(3, "edge", "running", null, null)));
+
+        Map<String, Object> comparison = comparison(runBatchService.getBatchReport(BATCH_ID).orElseThrow());
+
+        assertEquals(1, ((List<Map<String, Object>>) comparison.get("legs")).size());
+        assertEquals(3000L, comparison.get("slowestLegMillis"));
+        assertEquals(3000L, comparison.get("sequentialMillis"));
+    }
+
+    @Test
+    void matrixWithoutFinishedLegsHasAnEmptyComparison() {
+        givenBatch("matrix", List.of(job(1, "chrome", "queued", null, null)));
+
+        assertTrue(comparison(runBatchService.getBatchReport(BATCH_ID).orElseThrow()).isEmpty());
+        verify(actionResultRecordRepository, never()).findTimings(any());
+    }
+
+    @Test
+    void onlyMatrixBatchesAreCompared() {
+        givenBatch("data", List.of(leg(1, "row-0", 3000L, 101L)));
+
+        assertFalse(runBatchService.getBatchReport(BATCH_ID).orElseThrow().containsKey("comparison"));
+    }
+}
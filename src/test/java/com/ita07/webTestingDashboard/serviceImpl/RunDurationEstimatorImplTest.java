@@ -0,0 +1,115 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunEta;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.model.RunQueueJob;
+import com.ita07.webTestingDashboard.repository.RunQueueJobRepository;
+import com.ita07.webTestingDashboard.service.WorkerNodeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RunDurationEstimatorImplTest {
+
+    private RunDurationEstimatorImpl estimator;
+    private RunQueueJobRepository repository;
+    private WorkerNodeService workerNodeService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RunQueueJobRepository.class);
+        workerNodeService = mock(WorkerNodeService.class);
+        estimator = new RunDurationEstimatorImpl();
+        ReflectionTestUtils.setField(estimator, "runQueueJobRepository", repository);
+        ReflectionTestUtils.setField(estimator, "workerNodeService", workerNodeService);
+        ReflectionTestUtils.setField(estimator, "window", 20);
+        ReflectionTestUtils.setField(estimator, "cacheSeconds", 60L);
+        ReflectionTestUtils.setField(estimator, "defaultRunSeconds", 30L);
+        ReflectionTestUtils.setField(estimator, "cacheMaxEntries", 2);
+        estimator.initCache();
+        when(repository.findRecentDurations(anyString(), anyInt())).thenReturn(List.of());
+        when(repository.findRecentDurations(anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    void estimatesFromTheMedianOfRecentRunsWithTheSameCostKey() {
+        when(repository.findRecentDurations("odd", 20)).thenReturn(List.of(9000L, 1000L, 5000L));
+        when(repository.findRecentDurations("even", 20)).thenReturn(List.of(4000L, 1000L, 2000L, 8000L));
+
+        assertEquals(5000, estimator.estimateMillis("odd"));
+        assertEquals(3000, estimator.estimateMillis("even"));
+    }
+
+    @Test
+    void fallsBackToAllRunsAndThenToTheDefault() {
+        assertEquals(30_000, estimator.estimateMillis("new"));
+
+        RunDurationEstimatorImpl withHistory = new RunDurationEstimatorImpl();
+        ReflectionTestUtils.setField(withHistory, "runQueueJobRepository", repository);
+        ReflectionTestUtils.setField(withHistory, "window", 20);
+        ReflectionTestUtils.setField(withHistory, "cacheSeconds", 60L);
+        ReflectionTestUtils.setField(withHistory, "cacheMaxEntries", 10);
+        withHistory.initCache();
+        when(repository.findRecentDurations(20)).thenReturn(List.of(2000L, 6000L, 4000L));
+        assertEquals(4000, withHistory.estimateMillis("other"));
+        assertEquals(4000, withHistory.estimateMillis(null));
+    }
+
+    @Test
+    void mediansAreCachedWithinTheBound() {
+        when(repository.findRecentDurations("a", 20)).thenReturn(List.of(1000L));
+        estimator.estimateMillis("a");
+        estimator.estimateMillis("a");
+        verify(repository, times(1)).findRecentDurations("a", 20);
+
+        // The cache holds two keys, the oldest is evicted and computed again
+        when(repository.findRecentDurations("b", 20)).thenReturn(List.of(1000L));
+        when(repository.findRecentDurations("c", 20)).thenReturn(List.of(1000L));
+        estimator.estimateMillis("b");
+        estimator.estimateMillis("c");
+        estimator.estimateMillis("a");
+        verify(repository, times(2)).findRecentDurations("a", 20);
+    }
+
+    @Test
+    void etasReplayTheQueueOverTheSlotsOfEachBrowser() {
+        when(repository.findRecentDurations("short", 20)).thenReturn(List.of(10_000L));
+        when(repository.findRecentDurations("long", 20)).thenReturn(List.of(30_000L));
+        RunQueueJob running = new RunQueueJob();
+        running.setBrowser("chrome");
+        running.setCostKey("long");
+        running.setStartedAt(LocalDateTime.now().minusSeconds(10));
+        when(repository.findByStatus("running")).thenReturn(List.of(running));
+        when(workerNodeService.getClusterSlots("chrome")).thenReturn(2);
+        when(workerNodeService.getClusterSlots("firefox")).thenReturn(1);
+
+        Map<Long, RunEta> etas = estimator.estimateEtas(List.of(
+                queued(1L, "chrome", "short"),
+                queued(2L, "chrome", "short"),
+                queued(3L, "firefox", "long"),
+                queued(4L, "chrome", "long")));
+
+        // The free chrome slot starts run 1 now, the running run frees the other one after about 20 s
+        assertEquals(new RunEta(10_000, 0, 10_000), etas.get(1L));
+        assertEquals(10_000, etas.get(2L).startsInMillis());
+        assertEquals(new RunEta(30_000, 0, 30_000), etas.get(3L));
+        assertEquals(20_000, etas.get(4L).startsInMillis(), 1000);
+        assertEquals(50_000, etas.get(4L).finishesInMillis(), 1000);
+        verify(workerNodeService, times(1)).getClusterSlots(eq("chrome"));
+    }
+
+    private static QueuedRun queued(long id, String browser, String costKey) {
+        return new QueuedRun(id, "ci", RunPriority.CI, browser, LocalDateTime.now(), costKey);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.model.TestRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunQueueServiceImplTest {
+
+    private final RunQueueServiceImpl runQueueService = new RunQueueServiceImpl();
+
+    @Test
+    void coalesceKeyIgnoresParameterOrderAndBrowserCase() {
+        TestRequest first = request("chrome", orderedMap("action", "navigate", "url", "https://example.com"));
+        TestRequest second = request("CHROME", orderedMap("url", "https://example.com", "action", "navigate"));
+
+        String key = runQueueService.coalesceKey(first);
+        assertEquals(64, key.length());
+        assertEquals(key, runQueueService.coalesceKey(second));
+    }
+
+    @Test
+    void coalesceKeyTreatsAMissingBrowserAsChrome() {
+        Map<String, Object> action = Map.of("action", "navigate", "url", "https://example.com");
+        assertEquals(runQueueService.coalesceKey(request("chrome", action)), runQueueService.coalesceKey(request(null, action)));
+    }
+
+    @Test
+    void coalesceKeyIgnoresWhoSubmittedTheRunAndItsPriority() {
+        Map<String, Object> action = Map.of("action", "navigate", "url", "https://example.com");
+        TestRequest first = request("firefox", action);
+        first.setSubmittedBy("ci");
+        first.setPriority(RunPriority.BATCH);
+        TestRequest second = request("firefox", action);
+        second.setSubmittedBy("alice");
+        second.setPriority(RunPriority.INTERACTIVE);
+
+        assertEquals(runQueueService.coalesceKey(first), runQueueService.coalesceKey(second));
+    }
+
+    @Test
+    void coalesceKeyDiffersForRunsWithDifferentOutcomes() {
+        Map<String, Object> action = Map.of("action", "navigate", "url", "https://example.com");
+        String key = runQueueService.coalesceKey(request("chrome", action));
+
+        assertNotEquals(key, runQueueService.coalesceKey(request("firefox", action)));
+        assertNotEquals(key, runQueueService.coalesceKey(request("chrome", Map.of("action", "navigate", "url", "https://example.org"))));
+
+        TestRequest withData = request("chrome", action);
+        withData.setVariables(Map.of("user", "alice"));
+        assertNotEquals(key, runQueueService.coalesceKey(withData));
+
+        TestRequest stopping = request("chrome", action);
+        stopping.setStopOnFailure(true);
+        assertNotEquals(key, runQueueService.coalesceKey(stopping));
+
+        TestRequest sized = request("chrome", action);
+        sized.setWindowSize("1280x720");
+        assertNotEquals(key, runQueueService.coalesceKey(sized));
+
+        TestRequest limited = request("chrome", action);
+        limited.setRunDeadlineSeconds(60);
+        assertNotEquals(key, runQueueService.coalesceKey(limited));
+    }
+
+    private static TestRequest request(String browser, Map<String, Object> action) {
+        TestRequest request = new TestRequest();
+        request.setBrowser(browser);
+        request.setActions(List.of(action));
+        return request;
+    }
+
+    private static Map<String, Object> orderedMap(String... entries) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            map.put(entries[i], entries[i + 1]);
+        }
+        return map;
+    }
+}
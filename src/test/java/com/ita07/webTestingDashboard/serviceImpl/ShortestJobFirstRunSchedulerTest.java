@@ -0,0 +1,72 @@
+package com.ita07.webTestingDashboard.serviceImpl;
+
+import com.ita07.webTestingDashboard.model.QueuedRun;
+import com.ita07.webTestingDashboard.model.RunPriority;
+import com.ita07.webTestingDashboard.service.RunDurationEstimator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShortestJobFirstRunSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final ShortestJobFirstRunScheduler scheduler = new ShortestJobFirstRunScheduler();
+
+    @BeforeEach
+    void setUp() {
+        RunDurationEstimator estimator = mock(RunDurationEstimator.class);
+        when(estimator.estimateMillis("short")).thenReturn(10_000L);
+        when(estimator.estimateMillis("long")).thenReturn(60_000L);
+        ReflectionTestUtils.setField(scheduler, "runDurationEstimator", estimator);
+        ReflectionTestUtils.setField(scheduler, "agingSeconds", 300L);
+    }
+
+    @Test
+    void startsTheShortestRunFirst() {
+        QueuedRun longRun = run(1L, RunPriority.CI, "long", 0);
+        QueuedRun shortRun = run(2L, RunPriority.CI, "short", 0);
+
+        assertEquals(List.of(shortRun, longRun), scheduler.rank(List.of(longRun, shortRun), Map.of(), NOW));
+    }
+
+    @Test
+    void dividesTheEstimateByThePriorityWeight() {
+        // Scores: 60 s / 1 for batch, 60 s / 4 = 15 s for interactive and 10 s / 2 = 5 s for ci
+        QueuedRun batchLong = run(1L, RunPriority.BATCH, "long", 0);
+        QueuedRun interactiveLong = run(2L, RunPriority.INTERACTIVE, "long", 0);
+        QueuedRun ciShort = run(3L, RunPriority.CI, "short", 0);
+
+        assertEquals(List.of(ciShort, interactiveLong, batchLong),
+                scheduler.rank(List.of(batchLong, interactiveLong, ciShort), Map.of(), NOW));
+    }
+
+    @Test
+    void agingLetsLongRunsOvertakeNewShortOnes() {
+        // Waiting three aging intervals divides the long run's 60 s by 8, below the 10 s of a fresh short run
+        QueuedRun waitingLong = run(1L, RunPriority.CI, "long", 900);
+        QueuedRun freshShort = run(2L, RunPriority.CI, "short", 0);
+
+        assertEquals(List.of(waitingLong, freshShort), scheduler.rank(List.of(freshShort, waitingLong), Map.of(), NOW));
+    }
+
+    @Test
+    void equalScoresStartInSubmissionOrder() {
+        QueuedRun first = run(1L, RunPriority.CI, "short", 0);
+        QueuedRun second = run(2L, RunPriority.CI, "short", 0);
+
+        assertEquals(List.of(first, second), scheduler.rank(List.of(second, first), Map.of(), NOW));
+    }
+
+    private static QueuedRun run(long id, RunPriority priority, String costKey, long waitedSeconds) {
+        return new QueuedRun(id, "ci", priority, "chrome", NOW.minusSeconds(waitedSeconds), costKey);
+    }
+}
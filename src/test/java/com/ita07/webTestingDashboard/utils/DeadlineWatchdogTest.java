@@ -0,0 +1,83 @@
+package com.ita07.webTestingDashboard.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineWatchdogTest {
+
+    private DeadlineWatchdog watchdog;
+
+    @BeforeEach
+    void setUp() {
+        watchdog = new DeadlineWatchdog();
+        // One turn of this wheel is 80 ms
+        ReflectionTestUtils.setField(watchdog, "tickMillis", 10L);
+        ReflectionTestUtils.setField(watchdog, "wheelSize", 8);
+        watchdog.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchdog.stop();
+    }
+
+    @Test
+    void firesOnceTheDelayHasPassed() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong firedAfter = new AtomicLong();
+        long start = System.nanoTime();
+        DeadlineWatchdog.Deadline deadline = watchdog.schedule(50, () -> {
+            firedAfter.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            fired.countDown();
+        });
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(firedAfter.get() >= 40, "fired after " + firedAfter.get() + " ms");
+        // A deadline that fired cannot be cancelled any more
+        assertFalse(deadline.cancel());
+    }
+
+    @Test
+    void deadlinesLongerThanOneTurnWaitForTheirTurn() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        watchdog.schedule(250, fired::countDown);
+
+        assertFalse(fired.await(150, TimeUnit.MILLISECONDS));
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 240);
+    }
+
+    @Test
+    void cancelledDeadlinesDoNotFire() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        DeadlineWatchdog.Deadline deadline = watchdog.schedule(30, runs::incrementAndGet);
+        CountDownLatch later = new CountDownLatch(1);
+        watchdog.schedule(100, later::countDown);
+
+        assertTrue(deadline.cancel());
+        assertFalse(deadline.cancel());
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void aFailingTaskDoesNotStopTheWatchdog() throws InterruptedException {
+        watchdog.schedule(10, () -> {
+            throw new IllegalStateException("boom");
+        });
+        CountDownLatch fired = new CountDownLatch(1);
+        watchdog.schedule(40, fired::countDown);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,71 @@
+package com.ita07.webTestingDashboard.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+
+    @Test
+    void evictsTheOldestEntryWhenFull() {
+        ExpiringCache<Long, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(30));
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.put(3L, "three");
+
+        assertNull(cache.get(1L));
+        assertEquals("two", cache.get(2L));
+        assertEquals("three", cache.get(3L));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void replacingAnEntryMakesItTheNewest() {
+        ExpiringCache<Long, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(30));
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.put(1L, "uno");
+        cache.put(3L, "three");
+
+        assertEquals("uno", cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void expiredEntriesAreNeverReturned() throws InterruptedException {
+        ExpiringCache<Long, String> cache = new ExpiringCache<>(10, Duration.ofMillis(50));
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L));
+
+        Thread.sleep(80);
+        cache.put(2L, "two");
+        assertNull(cache.get(1L));
+        assertEquals("two", cache.get(2L));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shrinkingTheLimitsEvictsRightAway() {
+        ExpiringCache<Long, String> cache = new ExpiringCache<>(5, Duration.ofMinutes(30));
+        for (long i = 1; i <= 5; i++) {
+            cache.put(i, "value " + i);
+        }
+        cache.setLimits(2, Duration.ofMinutes(30));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(3L));
+        assertEquals("value 5", cache.get(5L));
+    }
+
+    @Test
+    void aZeroTtlKeepsEntriesUntilTheyAreEvictedBySize() throws InterruptedException {
+        ExpiringCache<Long, String> cache = new ExpiringCache<>(1, Duration.ZERO);
+        cache.put(1L, "one");
+        Thread.sleep(10);
+        assertEquals("one", cache.get(1L));
+        assertEquals("one", cache.remove(1L));
+        assertNull(cache.get(1L));
+    }
+}